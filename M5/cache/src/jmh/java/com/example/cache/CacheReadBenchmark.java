@@ -0,0 +1,79 @@
+package com.example.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Optional-returning read path with the allocation-free accessors on cache hits.
+ * Run with {@code -prof gc}: getOrNull, getOrDefault and getAll should report
+ * {@code gc.alloc.rate.norm} of 0 B/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheReadBenchmark {
+
+    private static final int SIZE = 1024;
+    private static final int MASK = SIZE - 1;
+    private static final int BATCH = 16;
+
+    private Cache<Integer, Integer> cache;
+    private Integer[] keys;
+    private Integer[] batchKeys;
+    private Integer[] batchValues;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        cache = new Cache<>();
+        keys = new Integer[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            // Values outside the Integer cache so that hits return real objects
+            keys[i] = i + 1_000_000;
+            cache.put(keys[i], i + 1_000_000);
+        }
+        batchKeys = new Integer[BATCH];
+        System.arraycopy(keys, 0, batchKeys, 0, BATCH);
+        batchValues = new Integer[BATCH];
+    }
+
+    private Integer nextKey() {
+        return keys[index++ & MASK];
+    }
+
+    @Benchmark
+    public Optional<Integer> getOptional() {
+        return cache.get(nextKey());
+    }
+
+    @Benchmark
+    public Integer getOrNull() {
+        return cache.getOrNull(nextKey());
+    }
+
+    @Benchmark
+    public Integer getOrDefault() {
+        return cache.getOrDefault(nextKey(), -1);
+    }
+
+    @Benchmark
+    public void getAll(Blackhole blackhole) {
+        blackhole.consume(cache.getAll(batchKeys, batchValues));
+        blackhole.consume(batchValues);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of statistics recording on the read path, with statistics on and off.
+ * The cache is shared by all benchmark threads; run with {@code -t 1} and {@code -t 8}
+ * to see both the uncontended cost and the effect of contention on the counters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheStatsBenchmark {
+
+    private static final int SIZE = 1024;
+    private static final int MASK = SIZE - 1;
+
+    @Param({"false", "true"})
+    public boolean recordStats;
+
+    private Cache<Integer, Integer> cache;
+    private Integer[] keys;
+
+    @Setup
+    public void setUp() {
+        CacheBuilder<Integer, Integer> builder = Cache.builder();
+        if (recordStats) {
+            builder.recordStats();
+        }
+        cache = builder.build();
+        keys = new Integer[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            keys[i] = i;
+            // Leave every fourth key out so the mix includes misses
+            if (i % 4 != 0) {
+                cache.put(i, i);
+            }
+        }
+    }
+
+    /** Per-thread position in the key array */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index;
+    }
+
+    @Benchmark
+    public Integer getOrNull(Cursor cursor) {
+        return cache.getOrNull(keys[cursor.index++ & MASK]);
+    }
+}
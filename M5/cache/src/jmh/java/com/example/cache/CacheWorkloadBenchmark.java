@@ -0,0 +1,156 @@
+package com.example.cache;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput and hit ratio of the cache configurations under realistic key distributions.
+ *
+ * <p>Each thread replays its own slice of a precomputed trace over {@value #KEY_SPACE}
+ * keys: uniform, Zipfian (theta 0.99) or Zipfian with sequential scans mixed in. A read
+ * that misses is followed by a put of the key, as a cache-aside caller would do, and a
+ * {@code readPercent} of less than 100 turns the rest of the operations into plain puts.
+ * Bounded configurations hold {@value #CAPACITY} entries, an eighth of the key space.
+ *
+ * <p>Hits and misses are reported as auxiliary counters; the hit ratio of a run is
+ * {@code hits / (hits + misses)}. The cache is shared, so thread count changes contention:
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="CacheWorkloadBenchmark -t 1 -prof gc"
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="CacheWorkloadBenchmark -t 8 -p distribution=zipfian"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheWorkloadBenchmark {
+
+    static final int KEY_SPACE = 1 << 16;
+    static final int CAPACITY = KEY_SPACE / 8;
+
+    @Param({"uniform", "zipfian", "scan"})
+    public String distribution;
+
+    @Param({"100", "90", "50"})
+    public int readPercent;
+
+    /**
+     * unbounded: plain cache; bounded: maximumSize; weighted: maximumWeight with the byte
+     * estimator; tiered: maximumSize with an off-heap second tier; loading: bounded
+     * LoadingCache reading through getOrLoad.
+     */
+    @Param({"unbounded", "bounded", "weighted", "tiered", "loading"})
+    public String cache;
+
+    private Cache<Integer, Integer> target;
+    private LoadingCache<Integer, Integer> loading;
+    private Integer[] keys;
+    private int[] trace;
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        keys = new Integer[KEY_SPACE];
+        for (int i = 0; i < KEY_SPACE; i++) {
+            keys[i] = i + 1_000_000;
+        }
+        trace = KeyTrace.generate(distribution, KEY_SPACE, 42);
+        CacheBuilder<Integer, Integer> builder = Cache.builder();
+        switch (cache) {
+            case "unbounded" -> {
+            }
+            case "bounded", "loading" -> builder.maximumSize(CAPACITY);
+            case "weighted" -> builder.maximumWeight(CAPACITY * 112L);
+            case "tiered" -> builder.maximumSize(CAPACITY).secondTier(CAPACITY * 64L, SnapshotCodec.integers());
+            default -> throw new IllegalArgumentException("Unknown cache: " + cache);
+        }
+        if (cache.equals("loading")) {
+            loading = builder.build(key -> key);
+            target = loading;
+        } else {
+            target = builder.build();
+        }
+        // Warm with one pass over the trace so that measurement starts from steady state
+        for (int i = 0; i < KeyTrace.LENGTH; i++) {
+            Integer key = keys[trace[i]];
+            if (target.getOrNull(key) == null) {
+                target.put(key, key);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        target.close();
+    }
+
+    /** Per-thread trace position and operation mix */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int position;
+        int operation;
+
+        @Setup
+        public void setUp(CacheWorkloadBenchmark benchmark) {
+            // Threads start far apart in the trace so they do not replay each other
+            position = benchmark.threadCount.getAndIncrement() * (KeyTrace.LENGTH / 16);
+        }
+    }
+
+    /** Hit and miss counts, reported next to the throughput */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HitCounters {
+        public long hits;
+        public long misses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    @Benchmark
+    public Integer workload(Cursor cursor, HitCounters counters) {
+        Integer key = keys[trace[cursor.position++ & KeyTrace.MASK]];
+        if (readPercent < 100 && cursor.operation++ % 100 >= readPercent) {
+            target.put(key, key);
+            return key;
+        }
+        if (loading != null) {
+            Integer cached = loading.getOrNull(key);
+            if (cached != null) {
+                counters.hits++;
+                return cached;
+            }
+            counters.misses++;
+            return loading.getOrLoad(key);
+        }
+        Integer value = target.getOrNull(key);
+        if (value != null) {
+            counters.hits++;
+            return value;
+        }
+        counters.misses++;
+        target.put(key, key);
+        return key;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.cache;
+
+import java.util.Random;
+
+/**
+ * Precomputed sequences of key indexes following a given access distribution, so that
+ * benchmarks pay for an array read per operation rather than for random number generation.
+ */
+final class KeyTrace {
+
+    /** Trace length; a power of two so positions can wrap with a mask */
+    static final int LENGTH = 1 << 20;
+    static final int MASK = LENGTH - 1;
+
+    /** Skew of the Zipfian distribution, as in the YCSB core workloads */
+    private static final double ZIPF_THETA = 0.99;
+
+    private KeyTrace() {
+    }
+
+    /**
+     * Generates a trace.
+     *
+     * @param distribution "uniform", "zipfian" or "scan"
+     * @param keySpace     the number of distinct keys
+     * @param seed         random seed, so every run replays the same trace
+     * @return key indexes in [0, keySpace)
+     */
+    static int[] generate(String distribution, int keySpace, long seed) {
+        Random random = new Random(seed);
+        int[] trace = new int[LENGTH];
+        switch (distribution) {
+            case "uniform" -> {
+                for (int i = 0; i < LENGTH; i++) {
+                    trace[i] = random.nextInt(keySpace);
+                }
+            }
+            case "zipfian" -> fillZipfian(trace, keySpace, random);
+            case "scan" -> {
+                // A Zipfian hot set interrupted by long sequential scans over the whole key
+                // space, the pattern that flushes recency-only policies
+                fillZipfian(trace, keySpace, random);
+                int position = 0;
+                while (position < LENGTH) {
+                    position += keySpace / 2;
+                    int start = random.nextInt(keySpace);
+                    for (int i = 0; i < keySpace && position < LENGTH; i++) {
+                        trace[position++] = (start + i) % keySpace;
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown distribution: " + distribution);
+        }
+        return trace;
+    }
+
+    /**
+     * Fills the trace with Zipfian ranks using the rejection-free method of Gray et al.,
+     * then maps ranks through a random permutation so that popular keys are not also
+     * adjacent in hash order.
+     */
+    private static void fillZipfian(int[] trace, int keySpace, Random random) {
+        double zetaN = zeta(keySpace);
+        double alpha = 1 / (1 - ZIPF_THETA);
+        double eta = (1 - Math.pow(2.0 / keySpace, 1 - ZIPF_THETA)) / (1 - zeta(2) / zetaN);
+        int[] permutation = new int[keySpace];
+        for (int i = 0; i < keySpace; i++) {
+            permutation[i] = i;
+        }
+        for (int i = keySpace - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = swap;
+        }
+        for (int i = 0; i < trace.length; i++) {
+            double u = random.nextDouble();
+            double uz = u * zetaN;
+            int rank;
+            if (uz < 1) {
+                rank = 0;
+            } else if (uz < 1 + Math.pow(0.5, ZIPF_THETA)) {
+                rank = 1;
+            } else {
+                rank = (int) (keySpace * Math.pow(eta * u - eta + 1, alpha));
+            }
+            trace[i] = permutation[Math.min(rank, keySpace - 1)];
+        }
+    }
+
+    private static double zeta(int n) {
+        double sum = 0;
+        for (int i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, ZIPF_THETA);
+        }
+        return sum;
+    }
+}
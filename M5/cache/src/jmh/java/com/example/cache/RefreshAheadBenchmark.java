@@ -0,0 +1,67 @@
+package com.example.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Samples read latency of a single hot key whose entries expire every 10 ms and
+ * take 1 ms to load. Without refresh-ahead the high percentiles show the reload
+ * at every expiry boundary; with it they should stay close to the median.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RefreshAheadBenchmark {
+
+    private static final String HOT_KEY = "hot";
+
+    @Param({"0", "0.8"})
+    public double refreshAhead;
+
+    private ExecutorService refresher;
+    private LoadingCache<String, Long> cache;
+
+    @Setup
+    public void setUp() {
+        refresher = Executors.newSingleThreadExecutor();
+        CacheBuilder<String, Long> builder = Cache.<String, Long>builder()
+            .expireAfterWrite(Duration.ofMillis(10))
+            .executor(refresher);
+        if (refreshAhead > 0) {
+            builder.refreshAhead(refreshAhead);
+        }
+        cache = builder.build(key -> {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            return System.nanoTime();
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        refresher.shutdownNow();
+    }
+
+    @Benchmark
+    public Long readHotKey() {
+        return cache.getOrLoad(HOT_KEY);
+    }
+}
@@ -3,13 +3,33 @@ package com.example.cache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
 
 /**
- * A generic cache implementation using HashMap as the underlying storage.
+ * A generic, thread-safe cache implementation using ConcurrentHashMap as the underlying storage.
  * This cache provides basic operations like put, get, remove, and size.
+ * Null values are supported; {@link #get(Object)} reports them as an empty Optional.
+ * Caches built through {@link #builder()} can additionally record statistics,
+ * expire entries a fixed time after they were written, and bound their size by
+ * entry count or by the total weight of their entries. The contents can be saved to
+ * a snapshot file and loaded back on startup to avoid a cold cache after a restart.
+ * A bounded cache can be given a second tier outside the heap, see
+ * {@link CacheBuilder#secondTier(long, SnapshotCodec)}, and any cache can guard against
+ * lookups of keys that are not cached, see {@link CacheBuilder#negativeLookupGuard(int)}.
+ * Writes can be persisted in the background with
+ * {@link CacheBuilder#writeBehind(Path, SnapshotCodec, SnapshotCodec)}; such a cache should be
+ * closed when it is no longer needed. Removals can be observed through a
+ * {@link CacheBuilder#removalListener(RemovalListener) listener} or drained in batches.
  * 
  * @param <K> the type of keys maintained by this cache
  * @param <V> the type of mapped values
@@ -18,12 +38,120 @@ import java.util.Optional;
  * @version 1.0
  * @since 1.0
  */
-public class Cache<K, V> {
+public class Cache<K, V> implements AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(Cache.class);
     
     /** The underlying storage for cache entries */
-    private final Map<K, V> store = new HashMap<>();
+    private final ConcurrentHashMap<K, CacheEntry<K, V>> store = new ConcurrentHashMap<>();
+
+    /** Records hits, misses, loads and evictions; a no-op unless statistics are enabled */
+    final StatsCounter statsCounter;
+
+    /** Time source for entry ages, in nanoseconds */
+    private final LongSupplier ticker;
+
+    /** Lifetime of an entry after it was written, or 0 if entries never expire */
+    private final long expireAfterWriteNanos;
+
+    /** Age after which a read triggers a background refresh, or 0 if refresh-ahead is off */
+    final long refreshAfterNanos;
+
+    /** Maximum total weight of all entries, or -1 if the cache is unbounded */
+    private final long maximumWeight;
+
+    /** Assigns a weight to each entry of a bounded cache */
+    private final Weigher<? super K, ? super V> weigher;
+
+    /** Current total weight of all entries of a bounded cache */
+    private final AtomicLong totalWeight = new AtomicLong();
+
+    /**
+     * Entries of a bounded cache in write order, oldest first. Replaced and removed entries
+     * stay queued until the eviction sweep reaches them or the queue is compacted.
+     */
+    private final ConcurrentLinkedQueue<CacheEntry<K, V>> evictionQueue;
+
+    /** Number of elements in the eviction queue, whose own size() is linear */
+    private final AtomicLong queuedEntries = new AtomicLong();
+
+    /** Serializes eviction sweeps and queue compaction */
+    private final Object evictionLock = new Object();
+
+    /** Off-heap tier receiving entries evicted for size, or null if the cache has one tier */
+    private final SecondTier<K, V> secondTier;
+
+    /** Filter of stored keys and set of known-absent keys, or null if the guard is off */
+    private final NegativeLookupGuard<K> guard;
+
+    /** Background log persisting puts, removals and clears, or null if writes are not persisted */
+    private final WriteBehindLog<K, V> writeBehind;
+
+    /**
+     * Keys the second tier dropped, by overwriting or clearing, while the log may still hold
+     * them, or null without both a second tier and write-behind. The tier reports drops while a key's lock
+     * in the store may be held, so their tombstones are queued from here afterwards.
+     */
+    private final ConcurrentLinkedQueue<K> secondTierDrops;
+
+    /** Queue of removal notifications, or null if removals are not reported */
+    private final RemovalEvents<K, V> removalEvents;
+
+    /** Sheds entries when the heap fills up, or null if not enabled */
+    private final MemoryPressureMonitor pressureMonitor;
+
+    /**
+     * Creates an unbounded cache without statistics.
+     */
+    public Cache() {
+        this(new CacheBuilder<>());
+    }
+
+    /**
+     * Creates a cache from the settings of a builder.
+     * 
+     * @param builder the builder holding the configuration
+     */
+    Cache(CacheBuilder<K, V> builder) {
+        this.statsCounter = builder.newStatsCounter();
+        this.ticker = builder.ticker;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.refreshAfterNanos = builder.refreshAfterNanos();
+        this.maximumWeight = builder.maximumWeight;
+        this.weigher = maximumWeight >= 0 ? builder.weigherOrDefault() : null;
+        this.evictionQueue = maximumWeight >= 0 ? new ConcurrentLinkedQueue<>() : null;
+        this.removalEvents = builder.removalListener == null && builder.removalEventCapacity == 0 ? null
+            : new RemovalEvents<>(builder.removalEventCapacityOrDefault(), builder.removalListener);
+        this.guard = builder.negativeLookupKeys == 0 ? null
+            : new NegativeLookupGuard<>(builder.negativeLookupKeys, this::now, expireAfterWriteNanos);
+        this.secondTier = builder.secondTierCodec == null ? null : new SecondTier<>(
+            (int) builder.secondTierCapacity, builder.secondTierFile, builder.secondTierCodec,
+            builder.compressSecondTier, guard, this::afterSecondTierRemoval);
+        this.writeBehind = builder.writeBehindFile == null ? null : new WriteBehindLog<>(
+            builder.writeBehindFile, builder.writeBehindKeyCodec, builder.writeBehindValueCodec,
+            builder.writeBehindDelayNanos);
+        this.secondTierDrops = secondTier == null || writeBehind == null ? null : new ConcurrentLinkedQueue<>();
+        if (writeBehind != null) {
+            try {
+                writeBehind.open(this);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open write-behind log " + builder.writeBehindFile, e);
+            }
+        }
+        this.pressureMonitor = builder.memoryWatermark == 0 ? null
+            : new MemoryPressureMonitor(this, builder.memoryWatermark, builder.memoryShedFraction);
+    }
+
+    /**
+     * Returns a builder for caches with optional features such as statistics.
+     * 
+     * @param <K> the type of keys maintained by the cache
+     * @param <V> the type of mapped values
+     * @return a new builder
+     */
+    public static <K, V> CacheBuilder<K, V> builder() {
+        return new CacheBuilder<>();
+    }
 
     /**
      * Associates the specified value with the specified key in this cache.
@@ -39,8 +167,17 @@ public class Cache<K, V> {
             throw new IllegalArgumentException("Key cannot be null");
         }
         
-        boolean isUpdate = store.containsKey(key);
-        store.put(key, value);
+        if (guard != null) {
+            guard.forgetAbsent(key);
+        }
+        CacheEntry<K, V> entry = newEntry(key, value);
+        CacheEntry<K, V> previous = secondTier == null && writeBehind == null
+            ? store.put(key, entry) : putUnderKeyLock(entry);
+        boolean isUpdate = previous != null;
+        if (isUpdate) {
+            afterRemoval(previous, isExpired(previous, now()) ? RemovalCause.EXPIRED : RemovalCause.REPLACED);
+        }
+        afterWrite(entry);
         
         if (isUpdate) {
             logger.debug("Updated cache entry for key: {}", key);
@@ -63,17 +200,89 @@ public class Cache<K, V> {
             throw new IllegalArgumentException("Key cannot be null");
         }
         
-        Optional<V> result = Optional.ofNullable(store.get(key));
+        CacheEntry<K, V> entry = lookup(key);
+        Optional<V> result = entry == null ? Optional.empty() : Optional.ofNullable(entry.value);
         
         if (result.isPresent()) {
+            statsCounter.recordHit();
             logger.debug("Cache hit for key: {}", key);
         } else {
+            statsCounter.recordMiss();
             logger.debug("Cache miss for key: {}", key);
         }
         
         return result;
     }
 
+    /**
+     * Returns the value to which the specified key is mapped, or null if this cache
+     * contains no mapping for the key. Unlike {@link #get(Object)} this method does not
+     * allocate or log, so it is intended for hot lookup paths. A key mapped to a null
+     * value is indistinguishable from a missing key.
+     * 
+     * @param key the key whose associated value is to be returned
+     * @return the value associated with the key, or null if not found
+     * @throws IllegalArgumentException if key is null
+     */
+    public V getOrNull(K key) {
+        if (key == null) {
+            logger.error("Attempted to get value with null key from cache");
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        
+        CacheEntry<K, V> entry = lookup(key);
+        V value = entry == null ? null : entry.value;
+        if (value != null) {
+            statsCounter.recordHit();
+        } else {
+            statsCounter.recordMiss();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the given default
+     * if this cache contains no mapping (or a null value) for the key.
+     * Like {@link #getOrNull(Object)} this method does not allocate or log.
+     * 
+     * @param key          the key whose associated value is to be returned
+     * @param defaultValue the value to return when the key is not found
+     * @return the value associated with the key, or defaultValue if not found
+     * @throws IllegalArgumentException if key is null
+     */
+    public V getOrDefault(K key, V defaultValue) {
+        V value = getOrNull(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Looks up several keys at once, writing each value into the slot of the
+     * caller-provided array at the same index (null for a miss). Reusing the
+     * output array keeps bulk lookups allocation-free.
+     * 
+     * @param keys   the keys to look up
+     * @param values the array receiving the values, at least as long as keys
+     * @return the number of keys that were found with a non-null value
+     * @throws IllegalArgumentException if either array is null, values is shorter
+     *                                  than keys, or any key is null
+     */
+    public int getAll(K[] keys, V[] values) {
+        if (keys == null || values == null || values.length < keys.length) {
+            logger.error("Invalid arrays provided to getAll");
+            throw new IllegalArgumentException("Values array must be at least as long as keys array");
+        }
+        
+        int hits = 0;
+        for (int i = 0; i < keys.length; i++) {
+            V value = getOrNull(keys[i]);
+            values[i] = value;
+            if (value != null) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
     /**
      * Returns true if this cache contains a mapping for the specified key.
      * 
@@ -87,7 +296,7 @@ public class Cache<K, V> {
             throw new IllegalArgumentException("Key cannot be null");
         }
         
-        boolean contains = store.containsKey(key);
+        boolean contains = lookup(key) != null;
         logger.debug("ContainsKey check for key: {} returned: {}", key, contains);
         return contains;
     }
@@ -100,29 +309,63 @@ public class Cache<K, V> {
      * @throws IllegalArgumentException if key is null
      */
     public V remove(K key) {
+        CacheEntry<K, V> removed = removeEntry(key);
+        return removed == null ? null : removed.value;
+    }
+
+    /**
+     * Removes the mapping for a key from this cache if it is present, telling apart a key
+     * mapped to null from a missing one. The check and the removal are one atomic step, so
+     * of several concurrent calls for the same mapping only one returns true.
+     * 
+     * @param key key whose mapping is to be removed from the cache
+     * @return true if the cache contained a mapping for the key
+     * @throws IllegalArgumentException if key is null
+     */
+    public boolean removeKey(K key) {
+        return removeEntry(key) != null;
+    }
+
+    /**
+     * Removes a key and returns its live entry, or null if it was absent or expired.
+     */
+    private CacheEntry<K, V> removeEntry(K key) {
         if (key == null) {
             logger.error("Attempted to remove entry with null key from cache");
             throw new IllegalArgumentException("Key cannot be null");
         }
         
-        V removedValue = store.remove(key);
+        CacheEntry<K, V> removed;
+        if (secondTier == null) {
+            removed = writeBehind == null ? store.remove(key) : removeUnderKeyLock(key);
+            if (removed != null) {
+                afterRemoval(removed, isExpired(removed, now()) ? RemovalCause.EXPIRED : RemovalCause.EXPLICIT);
+            }
+        } else {
+            removed = removeFromBothTiers(key);
+            logSecondTierDrops();
+        }
+        CacheEntry<K, V> live = removed == null || isExpired(removed, now()) ? null : removed;
         
-        if (removedValue != null) {
+        if (live != null) {
             logger.debug("Removed cache entry for key: {}", key);
         } else {
             logger.debug("Attempted to remove non-existent key: {}", key);
         }
         
-        return removedValue;
+        return live;
     }
 
     /**
      * Returns the number of key-value mappings in this cache.
+     * With expiry enabled this may include expired entries that have not been
+     * read or swept by {@link #cleanUp()} yet. With a second tier it counts both tiers
+     * and may include second-tier entries that were overwritten but not yet dropped.
      * 
      * @return the number of key-value mappings in this cache
      */
     public int size() {
-        int currentSize = store.size();
+        int currentSize = secondTier == null ? store.size() : store.size() + secondTier.size();
         logger.debug("Cache size requested: {}", currentSize);
         return currentSize;
     }
@@ -131,8 +374,24 @@ public class Cache<K, V> {
      * Removes all mappings from this cache.
      */
     public void clear() {
-        int previousSize = store.size();
-        store.clear();
+        if (writeBehind != null) {
+            // Queued before the removals, so a put that outlives the clear is logged after it
+            writeBehind.clear();
+        }
+        int previousSize = 0;
+        for (CacheEntry<K, V> entry : store.values()) {
+            if (removeMapping(entry)) {
+                afterRemoval(entry, RemovalCause.EXPLICIT);
+                previousSize++;
+            }
+        }
+        if (secondTier != null) {
+            previousSize += secondTier.clear();
+        }
+        if (guard != null) {
+            guard.clearAbsent();
+        }
+        logSecondTierDrops();
         logger.info("Cache cleared. Previous size: {}", previousSize);
     }
     
@@ -142,8 +401,787 @@ public class Cache<K, V> {
      * @return true if this cache contains no key-value mappings
      */
     public boolean isEmpty() {
-        boolean empty = store.isEmpty();
+        boolean empty = store.isEmpty() && (secondTier == null || secondTier.size() == 0);
         logger.debug("Cache isEmpty check returned: {}", empty);
         return empty;
     }
+
+    /**
+     * Removes all expired entries. Expired entries are otherwise removed lazily
+     * when they are read; calling this periodically keeps {@link #size()} accurate
+     * and frees entries that are never read again.
+     * 
+     * @return the number of entries removed
+     */
+    public int cleanUp() {
+        if (expireAfterWriteNanos == 0) {
+            return 0;
+        }
+        
+        long now = now();
+        int removed = 0;
+        for (CacheEntry<K, V> entry : store.values()) {
+            if (isExpired(entry, now) && removeMapping(entry)) {
+                afterRemoval(entry, RemovalCause.EXPIRED);
+                removed++;
+            }
+        }
+        logger.debug("Cleanup removed {} expired entries", removed);
+        return removed;
+    }
+
+    /**
+     * Returns the total weight of the entries in this cache. For a cache bounded with
+     * {@link CacheBuilder#maximumSize(long)} this is the entry count; for an unbounded
+     * cache it is always 0. Entries in the second tier do not count.
+     * 
+     * @return the current total weight
+     */
+    public long weightedSize() {
+        return totalWeight.get();
+    }
+
+    /**
+     * Writes the live entries of this cache to a compact binary snapshot file,
+     * replacing the file atomically. Entries with null values and entries in the
+     * second tier are not written.
+     * Writes that happen concurrently may or may not be included.
+     * 
+     * @param file       the snapshot file to write
+     * @param keyCodec   codec used to encode keys
+     * @param valueCodec codec used to encode values
+     * @return the number of entries written
+     * @throws IOException              if the file cannot be written
+     * @throws IllegalArgumentException if any argument is null
+     */
+    public int writeSnapshot(Path file, SnapshotCodec<K> keyCodec, SnapshotCodec<V> valueCodec)
+            throws IOException {
+        if (file == null || keyCodec == null || valueCodec == null) {
+            logger.error("Invalid arguments provided to writeSnapshot");
+            throw new IllegalArgumentException("File and codecs cannot be null");
+        }
+        return CacheSnapshot.write(this, file, keyCodec, valueCodec);
+    }
+
+    /**
+     * Bulk-loads a snapshot written by {@link #writeSnapshot} into this cache, reading it
+     * through a memory-mapped view of the file. Entries keep the age they had when the
+     * snapshot was written, so entries that have expired since are skipped. Keys that are
+     * already present are left untouched.
+     * 
+     * @param file       the snapshot file to read
+     * @param keyCodec   codec used to decode keys
+     * @param valueCodec codec used to decode values
+     * @return the number of entries added to this cache
+     * @throws IOException              if the file cannot be read or is not a valid snapshot
+     * @throws IllegalArgumentException if any argument is null
+     */
+    public int loadSnapshot(Path file, SnapshotCodec<K> keyCodec, SnapshotCodec<V> valueCodec)
+            throws IOException {
+        if (file == null || keyCodec == null || valueCodec == null) {
+            logger.error("Invalid arguments provided to loadSnapshot");
+            throw new IllegalArgumentException("File and codecs cannot be null");
+        }
+        return CacheSnapshot.load(this, file, keyCodec, valueCodec);
+    }
+
+    /**
+     * Writes the puts, removals and clears queued for write-behind to the log and forces
+     * them to storage, blocking until they are durable. Does nothing for a cache without
+     * write-behind.
+     * 
+     * @throws IOException if the log cannot be written; the writes stay queued
+     */
+    public void flush() throws IOException {
+        if (writeBehind != null) {
+            writeBehind.flush();
+        }
+    }
+
+    /**
+     * Releases the resources of this cache: queued write-behind records are flushed and
+     * the log is closed, the removal listener receives the notifications queued so far, and
+     * memory pressure is no longer watched. The cache stays usable in memory, but later
+     * writes are no longer persisted and later removals are no longer dispatched. Closing a
+     * cache twice has no further effect.
+     * 
+     * @throws UncheckedIOException if the last write-behind records cannot be written
+     */
+    @Override
+    public void close() {
+        if (pressureMonitor != null) {
+            pressureMonitor.close();
+        }
+        if (removalEvents != null) {
+            removalEvents.close();
+        }
+        if (writeBehind != null) {
+            try {
+                writeBehind.close();
+            } catch (IOException e) {
+                logger.error("Failed to flush write-behind log on close", e);
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Evicts a fraction of the entries held on the heap, oldest first if the cache is
+     * bounded and in no particular order otherwise. Shed entries are reported with
+     * {@link RemovalCause#EVICTED}; entries in a second tier are off-heap and are kept.
+     * This is what the cache does under {@link CacheBuilder#shedOnMemoryPressure memory
+     * pressure}, and it can also be called directly.
+     * 
+     * @param fraction the fraction of entries to evict, greater than 0 and at most 1
+     * @return the number of entries evicted
+     * @throws IllegalArgumentException if fraction is out of range
+     */
+    public int shed(double fraction) {
+        if (!(fraction > 0 && fraction <= 1)) {
+            logger.error("Invalid fraction provided to shed: {}", fraction);
+            throw new IllegalArgumentException("Fraction must be greater than 0 and at most 1");
+        }
+        long target = (long) Math.ceil(store.size() * fraction);
+        int shed = 0;
+        if (evictionQueue != null) {
+            synchronized (evictionLock) {
+                while (shed < target) {
+                    CacheEntry<K, V> entry = evictionQueue.poll();
+                    if (entry == null) {
+                        break;
+                    }
+                    queuedEntries.decrementAndGet();
+                    if (shedEntry(entry)) {
+                        shed++;
+                    }
+                }
+            }
+        } else {
+            Iterator<CacheEntry<K, V>> it = store.values().iterator();
+            while (shed < target && it.hasNext()) {
+                if (shedEntry(it.next())) {
+                    shed++;
+                }
+            }
+        }
+        logger.debug("Shed {} of {} targeted cache entries", shed, target);
+        return shed;
+    }
+
+    /**
+     * Moves up to maxEvents queued removal notifications into the sink, oldest first.
+     * Requires a cache built with {@link CacheBuilder#removalEventQueue(int)} and no
+     * removal listener. Notifications that did not fit into the queue are dropped and
+     * counted by {@link #droppedRemovalEvents()}.
+     * 
+     * @param sink      the collection receiving the notifications
+     * @param maxEvents the maximum number of notifications to move
+     * @return the number of notifications moved
+     * @throws IllegalArgumentException if sink is null
+     * @throws IllegalStateException    if removal events are not queued or go to a listener
+     */
+    public int drainRemovalEvents(Collection<? super RemovalNotification<K, V>> sink, int maxEvents) {
+        if (sink == null) {
+            logger.error("Invalid sink provided to drainRemovalEvents");
+            throw new IllegalArgumentException("Sink cannot be null");
+        }
+        if (removalEvents == null) {
+            throw new IllegalStateException("Removal events are not enabled");
+        }
+        return removalEvents.drainTo(sink, maxEvents);
+    }
+
+    /**
+     * Returns the number of removal notifications dropped because the queue was full.
+     * 
+     * @return the dropped notification count, 0 if removals are not reported
+     */
+    public long droppedRemovalEvents() {
+        return removalEvents == null ? 0 : removalEvents.dropped();
+    }
+
+    /**
+     * Records that the backing store has no value for the key, so that callers can skip
+     * asking it again. The mark is dropped when the key is put, when the cache is cleared,
+     * and after the entry lifetime if the cache expires entries. The number of marked keys
+     * is bounded; older marks may be dropped to make room. Has no effect unless the cache
+     * was built with {@link CacheBuilder#negativeLookupGuard(int)}.
+     * 
+     * @param key the key that has no value
+     * @throws IllegalArgumentException if key is null
+     */
+    public void markAbsent(K key) {
+        if (key == null) {
+            logger.error("Attempted to mark null key as absent");
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        if (guard != null) {
+            guard.markAbsent(key);
+        }
+    }
+
+    /**
+     * Returns true if the key was marked with {@link #markAbsent(Object)} and the mark
+     * still holds. Like {@link #getOrNull(Object)} this method does not allocate or log.
+     * 
+     * @param key the key to check
+     * @return true if the key is known to have no value in the backing store
+     * @throws IllegalArgumentException if key is null
+     */
+    public boolean isKnownAbsent(K key) {
+        if (key == null) {
+            logger.error("Attempted to check isKnownAbsent with null key");
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        return guard != null && guard.isKnownAbsent(key);
+    }
+
+    /**
+     * Returns a snapshot of the statistics recorded by this cache. All counters are zero
+     * unless the cache was built with {@link CacheBuilder#recordStats()}.
+     * 
+     * @return the current statistics
+     */
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * Returns the live entry mapped to the key without logging or validation.
+     * An expired entry is removed and reported as missing; an entry old enough
+     * for refresh-ahead is returned after {@link #refreshAhead} has been notified.
+     * A key found only in the second tier is promoted back into the store. With a
+     * negative lookup guard, keys the filter rules out are not looked up at all.
+     *
+     * @param key the key to look up, must not be null
+     * @return the entry, or null if there is no live mapping
+     */
+    CacheEntry<K, V> lookup(K key) {
+        if (guard != null && !guard.mightContain(key)) {
+            return null;
+        }
+        CacheEntry<K, V> entry = store.get(key);
+        if (entry == null) {
+            return secondTier == null || !secondTier.contains(key) ? null : promote(key);
+        }
+        
+        if (expireAfterWriteNanos != 0) {
+            long age = now() - entry.writeNanos;
+            if (age >= expireAfterWriteNanos) {
+                if (removeMapping(entry)) {
+                    afterRemoval(entry, RemovalCause.EXPIRED);
+                }
+                return null;
+            }
+            if (refreshAfterNanos != 0 && age >= refreshAfterNanos) {
+                refreshAhead(key, entry);
+            }
+        }
+        if (evictionQueue != null && !entry.accessed) {
+            entry.accessed = true;
+        }
+        return entry;
+    }
+
+    /**
+     * Called when a read finds an entry past its refresh-ahead age. The cache
+     * itself has no way to reload values, so the default does nothing.
+     *
+     * @param key   the key that was read
+     * @param entry the entry that is due for a refresh
+     */
+    void refreshAhead(K key, CacheEntry<K, V> entry) {
+    }
+
+    /**
+     * Replaces an entry with a new value only if the key is still mapped to that entry.
+     *
+     * @param key      the key to update
+     * @param expected the entry the key must currently be mapped to
+     * @param value    the new value
+     * @return true if the entry was replaced
+     */
+    boolean replaceEntry(K key, CacheEntry<K, V> expected, V value) {
+        CacheEntry<K, V> entry = newEntry(key, value);
+        boolean replaced;
+        if (writeBehind == null) {
+            replaced = store.replace(key, expected, entry);
+        } else {
+            boolean[] swapped = new boolean[1];
+            store.computeIfPresent(key, (k, current) -> {
+                if (current != expected) {
+                    return current;
+                }
+                writeBehind.put(k, value);
+                swapped[0] = true;
+                return entry;
+            });
+            replaced = swapped[0];
+        }
+        if (!replaced) {
+            discard(entry);
+            return false;
+        }
+        afterRemoval(expected, isExpired(expected, now()) ? RemovalCause.EXPIRED : RemovalCause.REPLACED);
+        afterWrite(entry);
+        return true;
+    }
+
+    /**
+     * Removes a key only if it is still mapped to the given entry.
+     *
+     * @param key      the key to remove
+     * @param expected the entry the key must currently be mapped to
+     * @return true if the entry was removed
+     */
+    boolean removeEntry(K key, CacheEntry<K, V> expected) {
+        if (!removeMapping(expected)) {
+            return false;
+        }
+        afterRemoval(expected, RemovalCause.EXPLICIT);
+        return true;
+    }
+
+    /**
+     * Returns a live view of the stored entries, including expired ones not yet removed.
+     *
+     * @return the values of the underlying map
+     */
+    Iterable<CacheEntry<K, V>> entries() {
+        return store.values();
+    }
+
+    /**
+     * Returns whether an entry has not expired.
+     *
+     * @param entry the entry to check
+     * @return true if the entry is still live
+     */
+    boolean isLive(CacheEntry<K, V> entry) {
+        return !isExpired(entry, now());
+    }
+
+    /**
+     * Returns how long ago an entry was written, or 0 when entries never expire.
+     *
+     * @param entry the entry to check
+     * @return the age in nanoseconds
+     */
+    long ageNanos(CacheEntry<K, V> entry) {
+        return expireAfterWriteNanos == 0 ? 0 : now() - entry.writeNanos;
+    }
+
+    /**
+     * Returns whether an entry of the given age would still be live.
+     *
+     * @param ageNanos the age in nanoseconds
+     * @return true if such an entry has not expired
+     */
+    boolean isLiveAtAge(long ageNanos) {
+        return expireAfterWriteNanos == 0 || ageNanos < expireAfterWriteNanos;
+    }
+
+    /**
+     * Adds a value restored from outside the cache unless the key is already present.
+     *
+     * @param key      the key to add
+     * @param value    the value to add
+     * @param ageNanos how long ago the value was originally written
+     * @return true if the value was added
+     */
+    boolean putLoaded(K key, V value, long ageNanos) {
+        long writeNanos = expireAfterWriteNanos == 0 ? 0 : now() - ageNanos;
+        CacheEntry<K, V> entry = createEntry(key, value, writeNanos);
+        if (store.putIfAbsent(key, entry) != null) {
+            discard(entry);
+            return false;
+        }
+        afterWrite(entry);
+        return true;
+    }
+
+    private CacheEntry<K, V> newEntry(K key, V value) {
+        return createEntry(key, value, now());
+    }
+
+    /**
+     * Creates an entry, registering its key with the negative lookup guard before the
+     * entry can be stored. An entry that does not make it into the store must be discarded.
+     */
+    private CacheEntry<K, V> createEntry(K key, V value, long writeNanos) {
+        int weight = weigh(key, value);
+        return new CacheEntry<>(key, value, writeNanos, weight, guard == null ? null : guard.add(key));
+    }
+
+    /**
+     * Unregisters an entry that was created but never stored.
+     */
+    private void discard(CacheEntry<K, V> entry) {
+        if (guard != null) {
+            guard.remove(entry.key, entry.filterStage);
+        }
+    }
+
+    private int weigh(K key, V value) {
+        if (weigher == null) {
+            return 0;
+        }
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            logger.error("Weigher returned negative weight {} for key: {}", weight, key);
+            throw new IllegalArgumentException("Weight cannot be negative");
+        }
+        return weight;
+    }
+
+    /**
+     * Accounts for an entry that was just added to the store and evicts if the
+     * cache went over its maximum weight.
+     */
+    private void afterWrite(CacheEntry<K, V> entry) {
+        if (evictionQueue == null) {
+            return;
+        }
+        evictionQueue.add(entry);
+        long queued = queuedEntries.incrementAndGet();
+        long weight = totalWeight.addAndGet(entry.weight);
+        
+        if (entry.weight > maximumWeight && evictEntry(entry)) {
+            logger.debug("Evicted cache entry heavier than the maximum weight for key: {}", entry.key);
+        } else if (weight > maximumWeight) {
+            evict();
+        } else if (queued > 2L * store.size() + 1024) {
+            compactEvictionQueue();
+        }
+        logSecondTierDrops();
+    }
+
+    /**
+     * Accounts for an entry that was just removed from the store and reports its removal.
+     *
+     * @param entry the removed entry
+     * @param cause why the entry was removed
+     */
+    private void afterRemoval(CacheEntry<K, V> entry, RemovalCause cause) {
+        release(entry);
+        notifyRemoval(entry.key, entry.value, cause);
+    }
+
+    /**
+     * Accounts for an entry that left the store, without reporting a removal. Used on its
+     * own when an entry moves to the second tier and so stays in the cache.
+     */
+    private void release(CacheEntry<K, V> entry) {
+        if (guard != null) {
+            guard.remove(entry.key, entry.filterStage);
+        }
+        if (evictionQueue != null) {
+            totalWeight.addAndGet(-entry.weight);
+        }
+    }
+
+    /**
+     * Records an eviction in the statistics if the cause is one and publishes a notification.
+     */
+    private void notifyRemoval(K key, V value, RemovalCause cause) {
+        if (cause.wasEvicted()) {
+            statsCounter.recordEviction();
+        }
+        if (removalEvents != null) {
+            removalEvents.publish(key, value, cause);
+        }
+    }
+
+    /**
+     * Reports an entry dropped by the second tier itself, whose value is gone.
+     */
+    private void afterSecondTierRemoval(K key, RemovalCause cause) {
+        if (secondTierDrops != null) {
+            secondTierDrops.add(key);
+        }
+        notifyRemoval(key, null, cause);
+    }
+
+    /**
+     * Queues tombstones for keys the second tier dropped, unless the key is back in the
+     * cache by now. Each check runs under the key's lock, so it cannot overtake a write.
+     */
+    private void logSecondTierDrops() {
+        if (secondTierDrops == null) {
+            return;
+        }
+        K key;
+        while ((key = secondTierDrops.poll()) != null) {
+            store.compute(key, (k, current) -> {
+                if (current == null && !secondTier.contains(k)) {
+                    writeBehind.remove(k);
+                }
+                return current;
+            });
+        }
+    }
+
+    /**
+     * Removes a key from the store if it is still mapped to the entry. With write-behind the
+     * tombstone is queued under the key's lock, so it cannot overtake a later write of the key.
+     *
+     * @return true if the entry was removed
+     */
+    private boolean removeMapping(CacheEntry<K, V> entry) {
+        if (writeBehind == null) {
+            return store.remove(entry.key, entry);
+        }
+        boolean[] removed = new boolean[1];
+        store.computeIfPresent(entry.key, (key, current) -> {
+            if (current != entry) {
+                return current;
+            }
+            writeBehind.remove(key);
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Evicts entries until the total weight is within the maximum. Entries are visited in
+     * write order; one that was read since its last visit is moved to the back of the queue
+     * instead, unless a full pass over the queue found nothing to evict.
+     */
+    private void evict() {
+        synchronized (evictionLock) {
+            long secondChances = queuedEntries.get();
+            while (totalWeight.get() > maximumWeight) {
+                CacheEntry<K, V> entry = evictionQueue.poll();
+                if (entry == null) {
+                    break;
+                }
+                queuedEntries.decrementAndGet();
+                if (store.get(entry.key) != entry) {
+                    continue;
+                }
+                if (entry.accessed && secondChances-- > 0) {
+                    entry.accessed = false;
+                    evictionQueue.add(entry);
+                    queuedEntries.incrementAndGet();
+                    continue;
+                }
+                if (evictEntry(entry)) {
+                    logger.debug("Evicted cache entry for key: {}", entry.key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes an entry chosen for eviction if the key is still mapped to it. With a second
+     * tier the entry is demoted rather than dropped; the demotion happens under the key's
+     * lock in the store, so a concurrent put or remove of the key cannot be overtaken by it.
+     *
+     * @param entry the entry to evict
+     * @return true if the entry was removed from the store
+     */
+    private boolean evictEntry(CacheEntry<K, V> entry) {
+        if (secondTier == null) {
+            if (!removeMapping(entry)) {
+                return false;
+            }
+            afterRemoval(entry, RemovalCause.SIZE);
+            return true;
+        }
+        
+        boolean[] removed = new boolean[1];
+        store.computeIfPresent(entry.key, (key, current) -> {
+            if (current != entry) {
+                return current;
+            }
+            if (demote(entry)) {
+                release(entry);
+            } else {
+                if (writeBehind != null) {
+                    writeBehind.remove(key);
+                }
+                afterRemoval(entry, RemovalCause.SIZE);
+            }
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Removes an entry chosen for shedding if the key is still mapped to it. Unlike
+     * {@link #evictEntry}, this never demotes: shedding happens when memory is short.
+     */
+    private boolean shedEntry(CacheEntry<K, V> entry) {
+        if (!removeMapping(entry)) {
+            return false;
+        }
+        afterRemoval(entry, RemovalCause.EVICTED);
+        return true;
+    }
+
+    /**
+     * Writes an evicted entry to the second tier.
+     *
+     * @return true if the entry was demoted, false if it could not be kept
+     */
+    private boolean demote(CacheEntry<K, V> entry) {
+        if (entry.value == null || isExpired(entry, now())) {
+            return false;
+        }
+        try {
+            return secondTier.put(entry.key, entry.value, entry.writeNanos);
+        } catch (RuntimeException e) {
+            logger.warn("Could not demote cache entry for key: {}", entry.key, e);
+            return false;
+        }
+    }
+
+    /**
+     * Moves a key from the second tier back into the store. The entry keeps its original
+     * write time, so expiry is unaffected by the round trip.
+     *
+     * @return the promoted entry, an entry another thread stored meanwhile, or null
+     */
+    private CacheEntry<K, V> promote(K key) {
+        AtomicReference<CacheEntry<K, V>> promoted = new AtomicReference<>();
+        CacheEntry<K, V> entry = store.computeIfAbsent(key, k -> {
+            SecondTier.Stored<V> stored;
+            try {
+                stored = secondTier.take(k);
+            } catch (RuntimeException e) {
+                logger.warn("Could not promote cache entry for key: {}", k, e);
+                return null;
+            }
+            if (stored == null) {
+                return null;
+            }
+            if (expireAfterWriteNanos != 0 && now() - stored.writeNanos() >= expireAfterWriteNanos) {
+                if (writeBehind != null) {
+                    writeBehind.remove(k);
+                }
+                notifyRemoval(k, stored.value(), RemovalCause.EXPIRED);
+                return null;
+            }
+            CacheEntry<K, V> restored = createEntry(k, stored.value(), stored.writeNanos());
+            restored.accessed = true;
+            promoted.set(restored);
+            return restored;
+        });
+        if (promoted.get() != null) {
+            afterWrite(promoted.get());
+            logger.debug("Promoted cache entry from second tier for key: {}", key);
+        } else {
+            logSecondTierDrops();
+        }
+        return entry;
+    }
+
+    /**
+     * Stores an entry under the key's lock, taking the key out of the second tier and
+     * queueing the write-behind record in the same step, so that concurrent writes of the
+     * key reach the log in the order they reached the store.
+     *
+     * @return the entry previously in the store, an unregistered entry holding the value
+     *         taken from the second tier, or null
+     */
+    private CacheEntry<K, V> putUnderKeyLock(CacheEntry<K, V> entry) {
+        AtomicReference<CacheEntry<K, V>> previous = new AtomicReference<>();
+        store.compute(entry.key, (key, current) -> {
+            previous.set(current);
+            if (secondTier != null) {
+                SecondTier.Stored<V> stored = current == null ? secondTier.take(key) : null;
+                if (stored != null) {
+                    previous.set(new CacheEntry<>(key, stored.value(), stored.writeNanos(), 0, null));
+                } else if (current != null) {
+                    secondTier.remove(key);
+                }
+            }
+            if (writeBehind != null) {
+                writeBehind.put(key, entry.value);
+            }
+            return entry;
+        });
+        return previous.get();
+    }
+
+    /**
+     * Removes a key from the store and queues its tombstone in the same step; a key that
+     * is not present is not logged, as the log holds only what the cache holds.
+     *
+     * @return the removed entry, or null
+     */
+    private CacheEntry<K, V> removeUnderKeyLock(K key) {
+        AtomicReference<CacheEntry<K, V>> removed = new AtomicReference<>();
+        store.computeIfPresent(key, (k, current) -> {
+            removed.set(current);
+            writeBehind.remove(k);
+            return null;
+        });
+        return removed.get();
+    }
+
+    /**
+     * Removes a key from both tiers under the key's lock and accounts for the removal.
+     * A value found only in the second tier is returned as an unregistered entry.
+     *
+     * @return the removed entry, or null if neither tier held the key
+     */
+    private CacheEntry<K, V> removeFromBothTiers(K key) {
+        AtomicReference<CacheEntry<K, V>> removed = new AtomicReference<>();
+        store.compute(key, (k, current) -> {
+            if (current != null) {
+                secondTier.remove(k);
+                afterRemoval(current, isExpired(current, now()) ? RemovalCause.EXPIRED : RemovalCause.EXPLICIT);
+                removed.set(current);
+            } else {
+                SecondTier.Stored<V> stored = secondTier.take(k);
+                if (stored != null) {
+                    CacheEntry<K, V> taken = new CacheEntry<>(k, stored.value(), stored.writeNanos(), 0, null);
+                    notifyRemoval(k, stored.value(),
+                        isExpired(taken, now()) ? RemovalCause.EXPIRED : RemovalCause.EXPLICIT);
+                    removed.set(taken);
+                }
+            }
+            if (removed.get() != null && writeBehind != null) {
+                writeBehind.remove(k);
+            }
+            return null;
+        });
+        return removed.get();
+    }
+
+    /**
+     * Drops replaced and removed entries from the eviction queue so that it stays
+     * proportional to the number of live entries.
+     */
+    private void compactEvictionQueue() {
+        synchronized (evictionLock) {
+            if (queuedEntries.get() <= 2L * store.size() + 1024) {
+                return;
+            }
+            int before = 0;
+            int dropped = 0;
+            for (Iterator<CacheEntry<K, V>> it = evictionQueue.iterator(); it.hasNext(); ) {
+                CacheEntry<K, V> entry = it.next();
+                before++;
+                if (store.get(entry.key) != entry) {
+                    it.remove();
+                    dropped++;
+                }
+            }
+            queuedEntries.addAndGet(-dropped);
+            logger.debug("Compacted eviction queue from {} to {} entries", before, before - dropped);
+        }
+    }
+
+    private boolean isExpired(CacheEntry<K, V> entry, long now) {
+        return expireAfterWriteNanos != 0 && now - entry.writeNanos >= expireAfterWriteNanos;
+    }
+
+    /** Reads the ticker only when entry ages matter, keeping the clock off unbounded hot paths */
+    private long now() {
+        return expireAfterWriteNanos == 0 ? 0 : ticker.getAsLong();
+    }
 }
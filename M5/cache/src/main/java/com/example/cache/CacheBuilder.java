@@ -0,0 +1,422 @@
+package com.example.cache;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Builder for {@link Cache} and {@link LoadingCache} instances with optional features.
+ * Obtain one through {@link Cache#builder()}:
+ * <pre>{@code
+ * Cache<String, Integer> cache = Cache.<String, Integer>builder()
+ *     .recordStats()
+ *     .build();
+ * }</pre>
+ *
+ * @param <K> the type of keys maintained by the cache
+ * @param <V> the type of mapped values
+ *
+ * @author Cache Team
+ * @version 1.0
+ * @since 1.2
+ */
+public final class CacheBuilder<K, V> {
+
+    boolean recordStats;
+    Executor executor = ForkJoinPool.commonPool();
+    LongSupplier ticker = System::nanoTime;
+    long expireAfterWriteNanos;
+    double refreshAheadFactor;
+    long maximumWeight = -1;
+    Weigher<? super K, ? super V> weigher;
+    long secondTierCapacity;
+    SnapshotCodec<V> secondTierCodec;
+    Path secondTierFile;
+    boolean compressSecondTier;
+    int negativeLookupKeys;
+    Path writeBehindFile;
+    SnapshotCodec<K> writeBehindKeyCodec;
+    SnapshotCodec<V> writeBehindValueCodec;
+    long writeBehindDelayNanos = TimeUnit.MILLISECONDS.toNanos(100);
+    RemovalListener<K, V> removalListener;
+    int removalEventCapacity;
+    double memoryWatermark;
+    double memoryShedFraction;
+
+    CacheBuilder() {
+    }
+
+    /**
+     * Enables recording of hit, miss, load and eviction statistics, available through
+     * {@link Cache#stats()}. Statistics are off by default.
+     *
+     * @return this builder
+     */
+    public CacheBuilder<K, V> recordStats() {
+        this.recordStats = true;
+        return this;
+    }
+
+    /**
+     * Bounds the cache to the given number of entries. When a write takes the cache over
+     * the bound, entries are evicted in roughly least-recently-used order: entries are
+     * visited oldest first and an entry read since the last visit gets a second chance.
+     *
+     * @param maximumSize the maximum number of entries, zero or positive
+     * @return this builder
+     * @throws IllegalArgumentException if maximumSize is negative
+     * @throws IllegalStateException    if a maximum size or weight was already set
+     */
+    public CacheBuilder<K, V> maximumSize(long maximumSize) {
+        maximumWeight(maximumSize);
+        this.weigher = Weigher.singleton();
+        return this;
+    }
+
+    /**
+     * Bounds the total weight of the entries in the cache, using the configured
+     * {@link #weigher(Weigher)} or {@link Weigher#byteEstimate()} if none is set.
+     * Eviction follows the same order as for {@link #maximumSize(long)} and keeps the
+     * total weight at or below the budget; an entry heavier than the whole budget is
+     * evicted as soon as it is written.
+     *
+     * @param maximumWeight the maximum total weight, zero or positive
+     * @return this builder
+     * @throws IllegalArgumentException if maximumWeight is negative
+     * @throws IllegalStateException    if a maximum size or weight was already set
+     */
+    public CacheBuilder<K, V> maximumWeight(long maximumWeight) {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("Maximum weight cannot be negative");
+        }
+        if (this.maximumWeight >= 0) {
+            throw new IllegalStateException("Maximum size or weight was already set");
+        }
+        this.maximumWeight = maximumWeight;
+        return this;
+    }
+
+    /**
+     * Sets the weigher assigning a cost to each entry of a cache bounded by
+     * {@link #maximumWeight(long)}.
+     *
+     * @param weigher the weigher to use
+     * @return this builder
+     * @throws IllegalArgumentException if weigher is null
+     */
+    public CacheBuilder<K, V> weigher(Weigher<? super K, ? super V> weigher) {
+        if (weigher == null) {
+            throw new IllegalArgumentException("Weigher cannot be null");
+        }
+        this.weigher = weigher;
+        return this;
+    }
+
+    /**
+     * Adds a second tier of the given size outside the Java heap to a cache bounded by
+     * {@link #maximumSize(long)} or {@link #maximumWeight(long)}. Entries evicted for size
+     * are serialized with the codec and demoted to the second tier instead of being dropped;
+     * a read that misses on-heap promotes the key back. The heap then only has to hold the
+     * hottest entries while the cache as a whole keeps many more.
+     *
+     * <p>The second tier is a ring: when it is full, the oldest demoted entries are
+     * overwritten and count as evictions. Reads that promote an entry deserialize it and
+     * therefore allocate. Entries with null values are not demoted.
+     *
+     * @param capacityBytes the size of the second tier in bytes, at most {@link Integer#MAX_VALUE}
+     * @param valueCodec    codec used to serialize values
+     * @return this builder
+     * @throws IllegalArgumentException if capacityBytes is out of range or valueCodec is null
+     */
+    public CacheBuilder<K, V> secondTier(long capacityBytes, SnapshotCodec<V> valueCodec) {
+        if (capacityBytes <= 0 || capacityBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Second-tier capacity must be between 1 and "
+                + Integer.MAX_VALUE + " bytes");
+        }
+        if (valueCodec == null) {
+            throw new IllegalArgumentException("Value codec cannot be null");
+        }
+        this.secondTierCapacity = capacityBytes;
+        this.secondTierCodec = valueCodec;
+        return this;
+    }
+
+    /**
+     * Backs the second tier with a memory-mapped file instead of a direct buffer, so its
+     * pages live in the operating system's page cache. The file is scratch space: it is
+     * created if needed and its previous contents are not read back.
+     *
+     * @param file the file to map
+     * @return this builder
+     * @throws IllegalArgumentException if file is null
+     */
+    public CacheBuilder<K, V> secondTierFile(Path file) {
+        if (file == null) {
+            throw new IllegalArgumentException("Second-tier file cannot be null");
+        }
+        this.secondTierFile = file;
+        return this;
+    }
+
+    /**
+     * Deflate-compresses values in the second tier, trading CPU on demotion and promotion
+     * for room for more entries.
+     *
+     * @return this builder
+     */
+    public CacheBuilder<K, V> compressSecondTier() {
+        this.compressSecondTier = true;
+        return this;
+    }
+
+    /**
+     * Adds a negative lookup guard: a counting Bloom filter over the stored keys and a
+     * bounded set of keys known to have no value (see {@link Cache#markAbsent(Object)}).
+     * Lookups of keys the filter rules out return at once without touching the store or a
+     * second tier, and a {@link LoadingCache} does not call its loader for known-absent keys;
+     * a loader returning null marks the key absent. The filter grows in stages as the cache
+     * does, at the cost of a few extra memory reads per lookup and update.
+     *
+     * @param expectedKeys the number of keys the filter is first sized for, also the
+     *                     maximum number of known-absent keys
+     * @return this builder
+     * @throws IllegalArgumentException if expectedKeys is not positive
+     */
+    public CacheBuilder<K, V> negativeLookupGuard(int expectedKeys) {
+        if (expectedKeys <= 0) {
+            throw new IllegalArgumentException("Expected keys must be positive");
+        }
+        this.negativeLookupKeys = expectedKeys;
+        return this;
+    }
+
+    /**
+     * Persists puts, removals and clears to an append-only log file. Callers never wait for
+     * the disk: writes are queued, repeated writes of a key coalesce, and a background thread
+     * appends and syncs them in batches at least every {@link #writeBehindDelay(Duration)}.
+     * A crash loses at most the writes of that window. When the cache is built, the entries
+     * of an existing log are loaded into it. Entries that leave through eviction, shedding
+     * or expiry are logged as removals too, so the log holds what the cache holds and
+     * removing an absent key writes nothing. Close the cache to flush the last writes.
+     *
+     * @param file       the log file, created if it does not exist
+     * @param keyCodec   codec used to encode keys
+     * @param valueCodec codec used to encode values
+     * @return this builder
+     * @throws IllegalArgumentException if any argument is null
+     */
+    public CacheBuilder<K, V> writeBehind(Path file, SnapshotCodec<K> keyCodec, SnapshotCodec<V> valueCodec) {
+        if (file == null || keyCodec == null || valueCodec == null) {
+            throw new IllegalArgumentException("File and codecs cannot be null");
+        }
+        this.writeBehindFile = file;
+        this.writeBehindKeyCodec = keyCodec;
+        this.writeBehindValueCodec = valueCodec;
+        return this;
+    }
+
+    /**
+     * Sets the longest time a write waits in the write-behind queue, which bounds the
+     * writes lost in a crash. Defaults to 100 milliseconds.
+     *
+     * @param delay the maximum flush delay, must be positive
+     * @return this builder
+     * @throws IllegalArgumentException if delay is null, zero or negative
+     */
+    public CacheBuilder<K, V> writeBehindDelay(Duration delay) {
+        if (delay == null || delay.isNegative() || delay.isZero()) {
+            throw new IllegalArgumentException("Write-behind delay must be positive");
+        }
+        this.writeBehindDelayNanos = delay.toNanos();
+        return this;
+    }
+
+    /**
+     * Reports every entry that leaves the cache to the listener, with the cause of its
+     * removal. Notifications are queued without blocking and delivered on a background
+     * thread, so a slow listener never stalls writes; when the queue is full, further
+     * notifications are dropped and counted (see {@link Cache#droppedRemovalEvents()}).
+     * Entries moved to a second tier have not left the cache and are not reported.
+     *
+     * @param listener the listener to notify
+     * @return this builder
+     * @throws IllegalArgumentException if listener is null
+     */
+    public CacheBuilder<K, V> removalListener(RemovalListener<K, V> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Removal listener cannot be null");
+        }
+        this.removalListener = listener;
+        return this;
+    }
+
+    /**
+     * Sets the capacity of the removal notification queue, which defaults to 1024. Without
+     * a {@link #removalListener(RemovalListener) listener}, this enables the queue for
+     * consumers that pull notifications with {@link Cache#drainRemovalEvents}.
+     *
+     * @param capacity the maximum number of queued notifications, must be positive
+     * @return this builder
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public CacheBuilder<K, V> removalEventQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Removal event queue capacity must be positive");
+        }
+        this.removalEventCapacity = capacity;
+        return this;
+    }
+
+    /**
+     * Makes the cache give memory back when the heap fills up: once the old generation is
+     * more than watermark full, whether seen as a usage threshold crossing or as the
+     * occupancy left after a garbage collection, the given fraction of the cache's entries
+     * is evicted with {@link RemovalCause#EVICTED}. At most one shed happens per garbage
+     * collection. Unlike soft references, which the collector clears all at once and in no
+     * controlled order, this sheds a known share of the oldest entries while the heap still
+     * has room. Call {@link Cache#close()} to stop watching; the JVM-wide pool thresholds
+     * lowered for the cache are restored once no other cache needs them.
+     *
+     * @param watermark    old generation occupancy that triggers a shed, greater than 0 and below 1
+     * @param shedFraction fraction of entries evicted per shed, greater than 0 and at most 1
+     * @return this builder
+     * @throws IllegalArgumentException if either fraction is out of range
+     */
+    public CacheBuilder<K, V> shedOnMemoryPressure(double watermark, double shedFraction) {
+        if (!(watermark > 0 && watermark < 1)) {
+            throw new IllegalArgumentException("Watermark must be greater than 0 and below 1");
+        }
+        if (!(shedFraction > 0 && shedFraction <= 1)) {
+            throw new IllegalArgumentException("Shed fraction must be greater than 0 and at most 1");
+        }
+        this.memoryWatermark = watermark;
+        this.memoryShedFraction = shedFraction;
+        return this;
+    }
+
+    /**
+     * Makes entries expire once the given time has passed since they were written.
+     * Expired entries are treated as missing and removed when read or on {@link Cache#cleanUp()}.
+     *
+     * @param duration the lifetime of an entry, must be positive
+     * @return this builder
+     * @throws IllegalArgumentException if duration is null, zero or negative
+     */
+    public CacheBuilder<K, V> expireAfterWrite(Duration duration) {
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Expiry duration must be positive");
+        }
+        this.expireAfterWriteNanos = duration.toNanos();
+        return this;
+    }
+
+    /**
+     * Enables refresh-ahead for a loading cache with expiry. When an entry is read after
+     * the given fraction of its lifetime has passed, a reload is scheduled on the executor
+     * while readers keep getting the current value. Hot keys are thereby reloaded before
+     * they expire instead of missing at the expiry boundary.
+     *
+     * @param fraction the fraction of the lifetime after which reads trigger a refresh,
+     *                 strictly between 0 and 1 (for example 0.8)
+     * @return this builder
+     * @throws IllegalArgumentException if fraction is not between 0 and 1
+     */
+    public CacheBuilder<K, V> refreshAhead(double fraction) {
+        if (!(fraction > 0.0 && fraction < 1.0)) {
+            throw new IllegalArgumentException("Refresh-ahead fraction must be between 0 and 1");
+        }
+        this.refreshAheadFactor = fraction;
+        return this;
+    }
+
+    /**
+     * Sets the executor used for asynchronous loads and refreshes. Defaults to the common fork-join pool.
+     *
+     * @param executor the executor to use
+     * @return this builder
+     * @throws IllegalArgumentException if executor is null
+     */
+    public CacheBuilder<K, V> executor(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Builds a cache with the configured settings.
+     *
+     * @return a new cache
+     */
+    public Cache<K, V> build() {
+        if (refreshAheadFactor != 0) {
+            throw new IllegalStateException("Refresh-ahead requires a loading cache");
+        }
+        validate();
+        return new Cache<>(this);
+    }
+
+    /**
+     * Builds a loading cache that computes missing values with the given loader.
+     *
+     * @param loader function computing the value for a missing key
+     * @return a new loading cache
+     * @throws IllegalArgumentException if loader is null
+     */
+    public LoadingCache<K, V> build(Function<? super K, ? extends V> loader) {
+        if (refreshAheadFactor != 0 && expireAfterWriteNanos == 0) {
+            throw new IllegalStateException("Refresh-ahead requires expireAfterWrite");
+        }
+        validate();
+        return new LoadingCache<>(this, loader);
+    }
+
+    /**
+     * Replaces the time source, so that tests can move time forward without sleeping.
+     *
+     * @param ticker supplier of the current time in nanoseconds
+     * @return this builder
+     */
+    CacheBuilder<K, V> ticker(LongSupplier ticker) {
+        this.ticker = ticker;
+        return this;
+    }
+
+    private void validate() {
+        if (weigher != null && maximumWeight < 0) {
+            throw new IllegalStateException("Weigher requires maximumWeight");
+        }
+        if (secondTierCodec != null && maximumWeight < 0) {
+            throw new IllegalStateException("Second tier requires maximumSize or maximumWeight");
+        }
+        if ((secondTierFile != null || compressSecondTier) && secondTierCodec == null) {
+            throw new IllegalStateException("Second-tier options require secondTier");
+        }
+    }
+
+    /**
+     * Returns the weigher to use for a bounded cache.
+     *
+     * @return the configured weigher, or the byte estimator if none was set
+     */
+    Weigher<? super K, ? super V> weigherOrDefault() {
+        return weigher != null ? weigher : Weigher.byteEstimate();
+    }
+
+    int removalEventCapacityOrDefault() {
+        return removalEventCapacity > 0 ? removalEventCapacity : 1024;
+    }
+
+    StatsCounter newStatsCounter() {
+        return recordStats ? new ConcurrentStatsCounter() : StatsCounter.DISABLED;
+    }
+
+    long refreshAfterNanos() {
+        return (long) (expireAfterWriteNanos * refreshAheadFactor);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.cache;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Holder for a single cached value.
+ * Wrapping the value lets the cache store null values in a concurrent map,
+ * which does not accept null values itself, and gives room for per-entry metadata.
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of the cached value
+ */
+final class CacheEntry<K, V> {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<CacheEntry> REFRESHING =
+        AtomicIntegerFieldUpdater.newUpdater(CacheEntry.class, "refreshing");
+
+    /** The key this entry is stored under, needed when the entry is evicted */
+    final K key;
+
+    /** The cached value, possibly null */
+    final V value;
+
+    /** Ticker time at which the value was written, used for expiry */
+    final long writeNanos;
+
+    /** Cost of the entry against the cache's maximum weight, 0 for unbounded caches */
+    final int weight;
+
+    /** Negative lookup filter stage the key was added to, or null without a guard */
+    final CountingBloomFilter filterStage;
+
+    /**
+     * Set on reads and cleared by the eviction sweep, which gives recently read entries
+     * a second chance. Races only cost accuracy, so the field is deliberately not volatile.
+     */
+    boolean accessed;
+
+    /** 1 while a refresh-ahead reload of this entry is scheduled or running */
+    private volatile int refreshing;
+
+    /**
+     * Creates a new entry for the given value.
+     *
+     * @param key        the key of the entry
+     * @param value      the value to hold, may be null
+     * @param writeNanos ticker time of the write
+     * @param weight     the weight of the entry
+     * @param filterStage the negative lookup filter stage holding the key, or null
+     */
+    CacheEntry(K key, V value, long writeNanos, int weight, CountingBloomFilter filterStage) {
+        this.key = key;
+        this.value = value;
+        this.writeNanos = writeNanos;
+        this.weight = weight;
+        this.filterStage = filterStage;
+    }
+
+    /**
+     * Claims the right to refresh this entry.
+     *
+     * @return true if the caller should refresh, false if a refresh is already under way
+     */
+    boolean tryStartRefresh() {
+        return refreshing == 0 && REFRESHING.compareAndSet(this, 0, 1);
+    }
+
+    /**
+     * Releases the refresh claim so that a later read can try again.
+     */
+    void refreshFailed() {
+        refreshing = 0;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes the binary snapshot format used by {@link Cache#writeSnapshot} and
+ * {@link Cache#loadSnapshot}.
+ *
+ * <p>Layout, all integers big-endian:
+ * <pre>
+ * header: int magic "CSNP" | int version | int entryCount
+ * entry:  long writtenAtMillis | int keyLength | key bytes | int valueLength | value bytes
+ * </pre>
+ * The write time lets a loaded entry keep its remaining lifetime instead of starting over.
+ * Snapshots are written to a temporary file and moved into place, so a crash while writing
+ * never leaves a truncated snapshot behind.
+ */
+final class CacheSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheSnapshot.class);
+
+    private static final int MAGIC = 0x43534E50;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 3 * Integer.BYTES;
+    private static final int COUNT_OFFSET = 2 * Integer.BYTES;
+
+    private CacheSnapshot() {
+    }
+
+    /**
+     * Writes the live, non-null entries of a cache to a snapshot file.
+     *
+     * @return the number of entries written
+     */
+    static <K, V> int write(Cache<K, V> cache, Path file, SnapshotCodec<K> keyCodec,
+                            SnapshotCodec<V> valueCodec) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        int count = 0;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(0);
+
+                long nowMillis = System.currentTimeMillis();
+                for (CacheEntry<K, V> entry : cache.entries()) {
+                    if (entry.value == null || !cache.isLive(entry)) {
+                        continue;
+                    }
+                    byte[] key = keyCodec.encode(entry.key);
+                    byte[] value = valueCodec.encode(entry.value);
+                    out.writeLong(nowMillis - TimeUnit.NANOSECONDS.toMillis(cache.ageNanos(entry)));
+                    out.writeInt(key.length);
+                    out.write(key);
+                    out.writeInt(value.length);
+                    out.write(value);
+                    count++;
+                }
+                out.flush();
+
+                channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, count), COUNT_OFFSET);
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        logger.info("Wrote cache snapshot with {} entries to {}", count, file);
+        return count;
+    }
+
+    /**
+     * Loads a snapshot file into a cache through a memory-mapped view of the file.
+     * Keys already present in the cache and entries that expired in the meantime are skipped.
+     *
+     * @return the number of entries added to the cache
+     */
+    static <K, V> int load(Cache<K, V> cache, Path file, SnapshotCodec<K> keyCodec,
+                           SnapshotCodec<V> valueCodec) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid snapshot size " + size + " for " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a cache snapshot: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + file);
+            }
+            int count = buffer.getInt();
+
+            long nowMillis = System.currentTimeMillis();
+            int loaded = 0;
+            try {
+                for (int i = 0; i < count; i++) {
+                    long writtenAtMillis = buffer.getLong();
+                    K key = keyCodec.decode(slice(buffer));
+                    ByteBuffer valueBytes = slice(buffer);
+                    long ageNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, nowMillis - writtenAtMillis));
+                    if (cache.isLiveAtAge(ageNanos)
+                            && cache.putLoaded(key, valueCodec.decode(valueBytes), ageNanos)) {
+                        loaded++;
+                    }
+                }
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new IOException("Truncated cache snapshot: " + file, e);
+            }
+            logger.info("Loaded {} of {} snapshot entries from {}", loaded, count, file);
+            return loaded;
+        }
+    }
+
+    /**
+     * Returns a view of the next length-prefixed field and advances past it.
+     */
+    private static ByteBuffer slice(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        ByteBuffer field = buffer.slice(buffer.position(), length).asReadOnlyBuffer();
+        buffer.position(buffer.position() + length);
+        return field;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.cache;
+
+/**
+ * Immutable snapshot of the statistics recorded by a {@link Cache}.
+ * All counters are zero for a cache built without {@link CacheBuilder#recordStats()}.
+ *
+ * @param hitCount           number of lookups that found a value
+ * @param missCount          number of lookups that found no value
+ * @param loadSuccessCount   number of loads that completed with a value
+ * @param loadFailureCount   number of loads that threw an exception
+ * @param totalLoadTimeNanos total time spent in successful and failed loads, in nanoseconds
+ * @param evictionCount      number of entries removed by the cache's own eviction policies
+ *
+ * @author Cache Team
+ * @version 1.0
+ * @since 1.2
+ */
+public record CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount,
+                         long totalLoadTimeNanos, long evictionCount) {
+
+    private static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0);
+
+    /**
+     * Returns a snapshot with all counters at zero.
+     *
+     * @return the empty snapshot
+     */
+    public static CacheStats empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the number of lookups, hits plus misses.
+     *
+     * @return the request count
+     */
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * Returns the ratio of hits to lookups, or 1.0 if there were no lookups.
+     *
+     * @return the hit ratio between 0.0 and 1.0
+     */
+    public double hitRate() {
+        long requests = requestCount();
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    /**
+     * Returns the ratio of misses to lookups, or 0.0 if there were no lookups.
+     *
+     * @return the miss ratio between 0.0 and 1.0
+     */
+    public double missRate() {
+        long requests = requestCount();
+        return requests == 0 ? 0.0 : (double) missCount / requests;
+    }
+
+    /**
+     * Returns the number of loads, successful or not.
+     *
+     * @return the load count
+     */
+    public long loadCount() {
+        return loadSuccessCount + loadFailureCount;
+    }
+
+    /**
+     * Returns the average time spent per load, or 0.0 if nothing was loaded.
+     *
+     * @return the average load latency in nanoseconds
+     */
+    public double averageLoadPenaltyNanos() {
+        long loads = loadCount();
+        return loads == 0 ? 0.0 : (double) totalLoadTimeNanos / loads;
+    }
+}
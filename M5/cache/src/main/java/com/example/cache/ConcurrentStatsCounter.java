@@ -0,0 +1,50 @@
+package com.example.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics counter backed by {@link LongAdder}s, so threads recording hits
+ * concurrently update separate cells instead of contending on one field.
+ */
+final class ConcurrentStatsCounter implements StatsCounter {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadSuccesses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Override
+    public void recordHit() {
+        hits.increment();
+    }
+
+    @Override
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadTimeNanos) {
+        loadSuccesses.increment();
+        totalLoadTime.add(loadTimeNanos);
+    }
+
+    @Override
+    public void recordLoadFailure(long loadTimeNanos) {
+        loadFailures.increment();
+        totalLoadTime.add(loadTimeNanos);
+    }
+
+    @Override
+    public void recordEviction() {
+        evictions.increment();
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        return new CacheStats(hits.sum(), misses.sum(), loadSuccesses.sum(), loadFailures.sum(),
+            totalLoadTime.sum(), evictions.sum());
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.cache;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed-size counting Bloom filter over key hash codes, used as one stage of a
+ * {@link NegativeLookupGuard}. Each slot is an 8-bit counter instead of a bit, so keys
+ * can be removed again; a counter that reaches 255 saturates and is never decremented,
+ * which can only cause false positives.
+ *
+ * <p>The filter also counts the keys it holds. A stage accepts keys until it is full and
+ * can be retired once its count drops back to zero, after which it accepts nothing.
+ */
+final class CountingBloomFilter {
+
+    private static final VarHandle COUNTERS = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private static final int SATURATED = 0xFF;
+
+    /** Marks a retired filter in {@link #keys} */
+    private static final long RETIRED = -1;
+
+    private final byte[] counters;
+    private final int hashes;
+    private final int capacity;
+    private final AtomicLong keys = new AtomicLong();
+
+    /**
+     * Creates a filter sized for the given number of keys at a 1% false-positive rate.
+     *
+     * @param capacity the number of keys the filter is sized for
+     */
+    CountingBloomFilter(int capacity) {
+        // m = -n ln(p) / ln(2)^2 and k = m/n ln(2) for p = 0.01
+        long size = (long) Math.ceil(capacity * 9.585);
+        this.counters = new byte[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(64, size))];
+        this.hashes = 7;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Adds a key unless the filter is full or retired.
+     *
+     * @param hash the key's hash code
+     * @return false if the key must go to another filter
+     */
+    boolean tryAdd(int hash) {
+        long current;
+        do {
+            current = keys.get();
+            if (current == RETIRED || current >= capacity) {
+                return false;
+            }
+        } while (!keys.compareAndSet(current, current + 1));
+
+        long mixed = mix(hash);
+        int h1 = (int) mixed;
+        int h2 = (int) (mixed >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            increment(index(h1, h2, i));
+        }
+        return true;
+    }
+
+    /**
+     * Removes a key that was added to this filter.
+     *
+     * @param hash the key's hash code
+     * @return true if the filter holds no keys anymore
+     */
+    boolean remove(int hash) {
+        long mixed = mix(hash);
+        int h1 = (int) mixed;
+        int h2 = (int) (mixed >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            decrement(index(h1, h2, i));
+        }
+        return keys.decrementAndGet() == 0;
+    }
+
+    /**
+     * Returns false if a key with this hash was definitely never added or was removed again.
+     *
+     * @param hash the key's hash code
+     * @return true if the key may be in the filter
+     */
+    boolean mightContain(int hash) {
+        long mixed = mix(hash);
+        int h1 = (int) mixed;
+        int h2 = (int) (mixed >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            if ((byte) COUNTERS.getAcquire(counters, index(h1, h2, i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Retires the filter if it is empty, so that no key can be added to it anymore.
+     *
+     * @return true if the filter was retired
+     */
+    boolean retire() {
+        return keys.compareAndSet(0, RETIRED);
+    }
+
+    /**
+     * Returns the number of keys the filter is sized for.
+     *
+     * @return the capacity
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    private int index(int h1, int h2, int i) {
+        int combined = h1 + i * h2;
+        return (combined & Integer.MAX_VALUE) % counters.length;
+    }
+
+    private void increment(int index) {
+        int current;
+        do {
+            current = (byte) COUNTERS.getAcquire(counters, index) & 0xFF;
+            if (current == SATURATED) {
+                return;
+            }
+        } while (!COUNTERS.compareAndSet(counters, index, (byte) current, (byte) (current + 1)));
+    }
+
+    private void decrement(int index) {
+        int current;
+        do {
+            current = (byte) COUNTERS.getAcquire(counters, index) & 0xFF;
+            if (current == SATURATED || current == 0) {
+                return;
+            }
+        } while (!COUNTERS.compareAndSet(counters, index, (byte) current, (byte) (current - 1)));
+    }
+
+    /** Spreads a hash code over 64 bits (the MurmurHash3 finalizer) */
+    private static long mix(int hash) {
+        long h = hash;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
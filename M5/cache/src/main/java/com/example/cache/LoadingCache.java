@@ -0,0 +1,271 @@
+package com.example.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * A cache that computes missing values with a loader function.
+ * Concurrent misses on the same key are coalesced into a single load
+ * (single-flight): the first caller runs the loader while the others
+ * wait for its result instead of recomputing the value themselves.
+ *
+ * <p>Loaded values are stored in the cache. A loader returning null is treated
+ * as "no value": the null is handed back to the callers but nothing is cached. With
+ * {@link CacheBuilder#negativeLookupGuard(int)} such keys are marked absent and later
+ * requests for them return null without calling the loader again.
+ *
+ * <p>With {@link CacheBuilder#refreshAhead(double)}, reading an entry late in its
+ * lifetime schedules a reload on the executor; readers keep the current value until
+ * the reload replaces it, so hot keys do not stall at the expiry boundary.
+ *
+ * @param <K> the type of keys maintained by this cache
+ * @param <V> the type of mapped values
+ *
+ * @author Cache Team
+ * @version 1.0
+ * @since 1.1
+ */
+public class LoadingCache<K, V> extends Cache<K, V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadingCache.class);
+
+    /** Computes the value for a key on a miss */
+    private final Function<? super K, ? extends V> loader;
+
+    /** Executor running the loader for asynchronous requests and refreshes */
+    private final Executor executor;
+
+    /** Loads currently in progress, one per key */
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a loading cache that runs asynchronous loads on the common fork-join pool.
+     *
+     * @param loader function computing the value for a missing key
+     * @throws IllegalArgumentException if loader is null
+     */
+    public LoadingCache(Function<? super K, ? extends V> loader) {
+        this(loader, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a loading cache that runs asynchronous loads on the given executor.
+     *
+     * @param loader   function computing the value for a missing key
+     * @param executor executor used by {@link #getOrLoadAsync(Object)}
+     * @throws IllegalArgumentException if loader or executor is null
+     */
+    public LoadingCache(Function<? super K, ? extends V> loader, Executor executor) {
+        this(Cache.<K, V>builder().executor(executor), loader);
+    }
+
+    /**
+     * Creates a loading cache from the settings of a builder.
+     *
+     * @param builder the builder holding the configuration
+     * @param loader  function computing the value for a missing key
+     * @throws IllegalArgumentException if loader is null
+     */
+    LoadingCache(CacheBuilder<K, V> builder, Function<? super K, ? extends V> loader) {
+        super(builder);
+        if (loader == null) {
+            throw new IllegalArgumentException("Loader cannot be null");
+        }
+        this.loader = loader;
+        this.executor = builder.executor;
+    }
+
+    /**
+     * Returns the value mapped to the key, loading it in the calling thread on a miss.
+     * If another thread is already loading the key, this call waits for that load
+     * instead of starting a second one.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the cached or freshly loaded value, possibly null if the loader returned null
+     * @throws IllegalArgumentException if key is null
+     * @throws RuntimeException         any exception thrown by the loader
+     */
+    public V getOrLoad(K key) {
+        requireKey(key);
+
+        CacheEntry<K, V> entry = lookup(key);
+        if (entry != null) {
+            statsCounter.recordHit();
+            return entry.value;
+        }
+        statsCounter.recordMiss();
+        if (isKnownAbsent(key)) {
+            return null;
+        }
+
+        CompletableFuture<V> pending = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, pending);
+        if (existing != null) {
+            logger.debug("Waiting for in-flight load of key: {}", key);
+            return join(existing);
+        }
+
+        load(key, pending);
+        return join(pending);
+    }
+
+    /**
+     * Returns a future for the value mapped to the key. On a miss the loader runs on the
+     * configured executor; concurrent callers for the same key share the same future.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return a future completed with the value, or exceptionally if the loader failed
+     * @throws IllegalArgumentException if key is null
+     */
+    public CompletableFuture<V> getOrLoadAsync(K key) {
+        requireKey(key);
+
+        CacheEntry<K, V> entry = lookup(key);
+        if (entry != null) {
+            statsCounter.recordHit();
+            return CompletableFuture.completedFuture(entry.value);
+        }
+        statsCounter.recordMiss();
+        if (isKnownAbsent(key)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<V> pending = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, pending);
+        if (existing != null) {
+            logger.debug("Joining in-flight load of key: {}", key);
+            return existing;
+        }
+
+        try {
+            executor.execute(() -> load(key, pending));
+        } catch (RuntimeException e) {
+            inFlight.remove(key, pending);
+            pending.completeExceptionally(e);
+        }
+        return pending;
+    }
+
+    /**
+     * Returns the number of loads currently in progress.
+     *
+     * @return the number of keys being loaded
+     */
+    public int inFlightLoads() {
+        return inFlight.size();
+    }
+
+    /**
+     * Schedules a background reload of an entry that is late in its lifetime.
+     * At most one refresh per entry is in flight; readers are never blocked by it.
+     */
+    @Override
+    void refreshAhead(K key, CacheEntry<K, V> entry) {
+        if (!entry.tryStartRefresh()) {
+            return;
+        }
+        try {
+            executor.execute(() -> refresh(key, entry));
+        } catch (RuntimeException e) {
+            logger.warn("Could not schedule refresh for key: {}", key, e);
+            entry.refreshFailed();
+        }
+    }
+
+    /**
+     * Reloads a value and swaps it in if the entry was not changed in the meantime.
+     */
+    private void refresh(K key, CacheEntry<K, V> entry) {
+        try {
+            logger.debug("Refreshing value for key: {}", key);
+            V value = callLoader(key);
+            if (value != null) {
+                replaceEntry(key, entry, value);
+            } else if (removeEntry(key, entry)) {
+                markAbsent(key);
+            }
+        } catch (Throwable t) {
+            logger.warn("Failed to refresh value for key: {}", key, t);
+            entry.refreshFailed();
+        }
+    }
+
+    /**
+     * Runs the loader for a key owned by the calling thread and completes its future.
+     * The value is stored before the in-flight marker is cleared, so a caller that
+     * registers a new load afterwards always finds it on the re-check.
+     */
+    private void load(K key, CompletableFuture<V> pending) {
+        try {
+            CacheEntry<K, V> entry = lookup(key);
+            if (entry != null) {
+                pending.complete(entry.value);
+                return;
+            }
+
+            logger.debug("Loading value for key: {}", key);
+            V value = callLoader(key);
+            if (value != null) {
+                put(key, value);
+            } else {
+                markAbsent(key);
+            }
+            pending.complete(value);
+        } catch (Throwable t) {
+            logger.error("Failed to load value for key: {}", key, t);
+            pending.completeExceptionally(t);
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    /**
+     * Runs the loader and records exactly one outcome for it, timing the loader alone;
+     * failures in storing the value afterwards are not counted as load failures.
+     */
+    private V callLoader(K key) {
+        long start = System.nanoTime();
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (Throwable t) {
+            statsCounter.recordLoadFailure(System.nanoTime() - start);
+            throw t;
+        }
+        statsCounter.recordLoadSuccess(System.nanoTime() - start);
+        return value;
+    }
+
+    private static void requireKey(Object key) {
+        if (key == null) {
+            logger.error("Attempted to load value with null key");
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+    }
+
+    /**
+     * Waits for a load and rethrows the loader's own exception rather than a wrapper.
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = Objects.requireNonNullElse(e.getCause(), e);
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.cache;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sheds cache entries when the old generation of the heap fills up.
+ *
+ * <p>The monitor watches the heap pools that support usage thresholds, which are the
+ * tenured pools of the HotSpot collectors. It lowers their usage and collection usage
+ * thresholds to the watermark and listens for the resulting notifications as an early
+ * warning, and for garbage collection notifications, which report the occupancy left
+ * after a collection. Every signal is checked against the watermark before acting, since
+ * thresholds are shared by everything in the JVM that sets them. A pool's thresholds are
+ * restored to what they were before the first monitor lowered them once the last monitor
+ * watching the pool is closed.
+ *
+ * <p>At most one shed happens per garbage collection, so a burst of notifications cannot
+ * empty the cache before a collection has shown whether the last shed was enough.
+ *
+ * <p>The cache is held weakly: a cache that is dropped without being closed does not stay
+ * reachable through the JVM's management beans, and the monitor unregisters itself the
+ * next time it is notified.
+ */
+final class MemoryPressureMonitor implements NotificationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemoryPressureMonitor.class);
+
+    /** A pool's usage and collection usage thresholds, zero when not set */
+    private record Thresholds(long usage, long collectionUsage) {
+    }
+
+    /** Thresholds of the pools watched by open monitors, as they were before; guarded by the class */
+    private static final Map<String, Thresholds> originalThresholds = new HashMap<>();
+
+    /** Monitors that watch pools and are not closed; guarded by the class */
+    private static final Set<MemoryPressureMonitor> openMonitors = new HashSet<>();
+
+    private final WeakReference<Cache<?, ?>> cache;
+    private final double watermark;
+    private final double shedFraction;
+    private final List<MemoryPoolMXBean> pools = new ArrayList<>();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+    /** Total collection count when the cache was last shed */
+    private final AtomicLong shedAtCollection = new AtomicLong(-1);
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * Creates a monitor and registers its listeners.
+     *
+     * @param cache        the cache to shed
+     * @param watermark    fraction of a pool's maximum size above which the cache is shed
+     * @param shedFraction fraction of the cache's entries to evict per shed
+     */
+    MemoryPressureMonitor(Cache<?, ?> cache, double watermark, double shedFraction) {
+        this(cache, watermark, shedFraction, true);
+    }
+
+    /**
+     * Creates a monitor that, unless it watches, touches no pool and receives no notification,
+     * so that tests can drive {@link #onUsage} without changing JVM-wide thresholds.
+     *
+     * @param cache        the cache to shed
+     * @param watermark    fraction of a pool's maximum size above which the cache is shed
+     * @param shedFraction fraction of the cache's entries to evict per shed
+     * @param watch        whether to lower the pool thresholds and register the listeners
+     */
+    MemoryPressureMonitor(Cache<?, ?> cache, double watermark, double shedFraction, boolean watch) {
+        this.cache = new WeakReference<>(cache);
+        this.watermark = watermark;
+        this.shedFraction = shedFraction;
+        if (!watch) {
+            return;
+        }
+
+        synchronized (MemoryPressureMonitor.class) {
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                long max = pool.getUsage().getMax();
+                if (pool.getType() != MemoryType.HEAP || !pool.isUsageThresholdSupported() || max <= 0) {
+                    continue;
+                }
+                originalThresholds.computeIfAbsent(pool.getName(), name -> new Thresholds(pool.getUsageThreshold(),
+                    pool.isCollectionUsageThresholdSupported() ? pool.getCollectionUsageThreshold() : 0));
+                lowerThresholds(pool);
+                pools.add(pool);
+            }
+            openMonitors.add(this);
+        }
+
+        if (ManagementFactory.getMemoryMXBean() instanceof NotificationEmitter emitter) {
+            emitters.add(emitter);
+        }
+        for (GarbageCollectorMXBean collector : collectors) {
+            if (collector instanceof NotificationEmitter emitter) {
+                emitters.add(emitter);
+            }
+        }
+        for (NotificationEmitter emitter : emitters) {
+            emitter.addNotificationListener(this, null, null);
+        }
+        logger.debug("Watching {} heap pools for occupancy above {}%", pools.size(), Math.round(watermark * 100));
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        switch (notification.getType()) {
+            case MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED,
+                 MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED -> {
+                MemoryNotificationInfo info = MemoryNotificationInfo.from((CompositeData) notification.getUserData());
+                onUsage(info.getPoolName(), info.getUsage());
+            }
+            case GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION -> {
+                GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                for (MemoryPoolMXBean pool : pools) {
+                    MemoryUsage usage = info.getGcInfo().getMemoryUsageAfterGc().get(pool.getName());
+                    if (usage != null) {
+                        onUsage(pool.getName(), usage);
+                    }
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Unregisters the listeners and gives back the pool thresholds no other open monitor needs.
+     */
+    void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (MemoryPressureMonitor.class) {
+            openMonitors.remove(this);
+            for (MemoryPoolMXBean pool : pools) {
+                restoreThresholds(pool);
+            }
+        }
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(this);
+            } catch (ListenerNotFoundException e) {
+                logger.debug("Memory pressure listener was already removed", e);
+            }
+        }
+    }
+
+    /**
+     * Sheds the cache if a pool's usage is above the watermark and no shed has happened
+     * since the last garbage collection.
+     *
+     * @param poolName the pool the usage was reported for
+     * @param usage    the pool's usage
+     */
+    void onUsage(String poolName, MemoryUsage usage) {
+        if (usage.getMax() <= 0 || usage.getUsed() < usage.getMax() * watermark) {
+            return;
+        }
+        Cache<?, ?> target = cache.get();
+        if (target == null) {
+            close();
+            return;
+        }
+        long collections = collectionCount();
+        long last = shedAtCollection.get();
+        if (collections == last || !shedAtCollection.compareAndSet(last, collections)) {
+            return;
+        }
+        int shed = target.shed(shedFraction);
+        logger.warn("Memory pool {} at {}% of its maximum, shed {} cache entries",
+            poolName, usage.getUsed() * 100 / usage.getMax(), shed);
+    }
+
+    /**
+     * Lowers a pool's thresholds to this monitor's watermark, unless they are lower already.
+     */
+    private void lowerThresholds(MemoryPoolMXBean pool) {
+        long threshold = Math.max(1, (long) (pool.getUsage().getMax() * watermark));
+        if (pool.getUsageThreshold() == 0 || pool.getUsageThreshold() > threshold) {
+            pool.setUsageThreshold(threshold);
+        }
+        if (pool.isCollectionUsageThresholdSupported()
+                && (pool.getCollectionUsageThreshold() == 0 || pool.getCollectionUsageThreshold() > threshold)) {
+            pool.setCollectionUsageThreshold(threshold);
+        }
+    }
+
+    /**
+     * Puts a pool's original thresholds back, then lowers them again for the open monitors
+     * still watching it. Called with the class lock held.
+     */
+    private static void restoreThresholds(MemoryPoolMXBean pool) {
+        Thresholds original = originalThresholds.get(pool.getName());
+        if (original == null) {
+            return;
+        }
+        pool.setUsageThreshold(original.usage());
+        if (pool.isCollectionUsageThresholdSupported()) {
+            pool.setCollectionUsageThreshold(original.collectionUsage());
+        }
+        boolean watched = false;
+        for (MemoryPressureMonitor monitor : openMonitors) {
+            if (monitor.watches(pool.getName())) {
+                monitor.lowerThresholds(pool);
+                watched = true;
+            }
+        }
+        if (!watched) {
+            originalThresholds.remove(pool.getName());
+        }
+    }
+
+    private boolean watches(String poolName) {
+        for (MemoryPoolMXBean pool : pools) {
+            if (pool.getName().equals(poolName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+}
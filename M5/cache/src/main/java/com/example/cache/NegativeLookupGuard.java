@@ -0,0 +1,199 @@
+package com.example.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Answers "is this key definitely not cached?" and "is this key known to have no value?"
+ * without touching the cache's store.
+ *
+ * <p>Present keys are tracked in a chain of {@link CountingBloomFilter} stages. New keys go
+ * to the newest stage; when it is full a stage of twice the size is appended, so the filter
+ * grows with the cache instead of degrading. Every entry remembers the stage it was added
+ * to and is removed from exactly that stage, which keeps removal exact without rescanning
+ * the cache. A stage that empties is retired and dropped from the chain.
+ *
+ * <p>Keys whose lookup in the backing store came back empty are kept in a bounded set of
+ * known-absent keys, which expire with the cache's entry lifetime if it has one.
+ *
+ * @param <K> the type of keys
+ */
+final class NegativeLookupGuard<K> {
+
+    private static final Logger logger = LoggerFactory.getLogger(NegativeLookupGuard.class);
+
+    /** Filter stages, oldest first; the last one receives new keys. Copy-on-write */
+    private volatile CountingBloomFilter[] stages;
+
+    /** Known-absent keys mapped to the ticker time at which they were marked */
+    private final ConcurrentHashMap<K, Long> absentKeys = new ConcurrentHashMap<>();
+
+    private final int maximumAbsentKeys;
+    private final LongSupplier clock;
+    private final long absentLifetimeNanos;
+
+    /**
+     * Creates a guard.
+     *
+     * @param expectedKeys        the number of keys the first filter stage is sized for,
+     *                            also the bound of the known-absent set
+     * @param clock               time source for known-absent expiry
+     * @param absentLifetimeNanos how long a key stays known-absent, or 0 for no limit
+     */
+    NegativeLookupGuard(int expectedKeys, LongSupplier clock, long absentLifetimeNanos) {
+        this.stages = new CountingBloomFilter[] {new CountingBloomFilter(expectedKeys)};
+        this.maximumAbsentKeys = expectedKeys;
+        this.clock = clock;
+        this.absentLifetimeNanos = absentLifetimeNanos;
+    }
+
+    /**
+     * Records a key that is about to be stored. Must be called before the key becomes
+     * visible, so that readers never see a stored key the filter denies.
+     *
+     * @param key the key
+     * @return the stage holding the key, to pass to {@link #remove}
+     */
+    CountingBloomFilter add(K key) {
+        int hash = key.hashCode();
+        while (true) {
+            CountingBloomFilter[] current = stages;
+            CountingBloomFilter newest = current[current.length - 1];
+            if (newest.tryAdd(hash)) {
+                return newest;
+            }
+            grow(current);
+        }
+    }
+
+    /**
+     * Forgets a key that was removed from the store.
+     *
+     * @param key   the key
+     * @param stage the stage returned when the key was added, or null
+     */
+    void remove(K key, CountingBloomFilter stage) {
+        if (stage == null) {
+            return;
+        }
+        if (stage.remove(key.hashCode())) {
+            retire(stage);
+        }
+    }
+
+    /**
+     * Returns false if the key is definitely not stored.
+     *
+     * @param key the key
+     * @return true if the key may be stored
+     */
+    boolean mightContain(K key) {
+        int hash = key.hashCode();
+        CountingBloomFilter[] current = stages;
+        for (int i = current.length - 1; i >= 0; i--) {
+            if (current[i].mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remembers that the backing store has no value for the key.
+     *
+     * @param key the key
+     */
+    void markAbsent(K key) {
+        if (absentKeys.put(key, clock.getAsLong()) == null && absentKeys.size() > maximumAbsentKeys) {
+            Iterator<K> it = absentKeys.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns whether the key was marked absent and has not been stored or expired since.
+     *
+     * @param key the key
+     * @return true if the key is known to have no value
+     */
+    boolean isKnownAbsent(K key) {
+        Long markedAt = absentKeys.get(key);
+        if (markedAt == null) {
+            return false;
+        }
+        if (absentLifetimeNanos != 0 && clock.getAsLong() - markedAt >= absentLifetimeNanos) {
+            absentKeys.remove(key, markedAt);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Drops the known-absent mark of a key that now has a value.
+     *
+     * @param key the key
+     */
+    void forgetAbsent(K key) {
+        if (!absentKeys.isEmpty()) {
+            absentKeys.remove(key);
+        }
+    }
+
+    /**
+     * Drops all known-absent marks.
+     */
+    void clearAbsent() {
+        absentKeys.clear();
+    }
+
+    /**
+     * Returns the number of filter stages in use.
+     *
+     * @return the stage count
+     */
+    int stageCount() {
+        return stages.length;
+    }
+
+    private synchronized void grow(CountingBloomFilter[] seen) {
+        if (stages != seen) {
+            return;
+        }
+        int capacity = (int) Math.min(Integer.MAX_VALUE / 16, 2L * seen[seen.length - 1].capacity());
+        CountingBloomFilter[] grown = new CountingBloomFilter[seen.length + 1];
+        int length = 0;
+        for (CountingBloomFilter s : seen) {
+            if (!s.retire()) {
+                grown[length++] = s;
+            }
+        }
+        grown[length++] = new CountingBloomFilter(capacity);
+        grown = Arrays.copyOf(grown, length);
+        stages = grown;
+        logger.debug("Added negative lookup filter stage for {} keys ({} stages)", capacity, grown.length);
+    }
+
+    private synchronized void retire(CountingBloomFilter stage) {
+        CountingBloomFilter[] current = stages;
+        if (current[current.length - 1] == stage || !stage.retire()) {
+            return;
+        }
+        CountingBloomFilter[] remaining = new CountingBloomFilter[current.length - 1];
+        int i = 0;
+        for (CountingBloomFilter s : current) {
+            if (s != stage) {
+                remaining[i++] = s;
+            }
+        }
+        stages = remaining;
+        logger.debug("Retired empty negative lookup filter stage ({} stages)", remaining.length);
+    }
+}
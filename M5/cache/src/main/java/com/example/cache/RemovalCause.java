@@ -0,0 +1,41 @@
+package com.example.cache;
+
+/**
+ * The reason an entry left a {@link Cache}, as reported to a {@link RemovalListener}.
+ *
+ * @author Cache Team
+ * @version 1.0
+ * @since 1.5
+ */
+public enum RemovalCause {
+
+    /** The entry was removed by {@link Cache#remove(Object)} or {@link Cache#clear()} */
+    EXPLICIT(false),
+
+    /** The entry's value was overwritten by a put or a refresh */
+    REPLACED(false),
+
+    /** The entry outlived {@link CacheBuilder#expireAfterWrite(java.time.Duration)} */
+    EXPIRED(true),
+
+    /** The cache dropped the entry for a reason other than size or expiry, such as memory pressure */
+    EVICTED(true),
+
+    /** The entry was evicted to keep the cache within its maximum size or weight */
+    SIZE(true);
+
+    private final boolean evicted;
+
+    RemovalCause(boolean evicted) {
+        this.evicted = evicted;
+    }
+
+    /**
+     * Returns whether the cache removed the entry on its own rather than a caller.
+     *
+     * @return true for {@link #EXPIRED}, {@link #EVICTED} and {@link #SIZE}
+     */
+    public boolean wasEvicted() {
+        return evicted;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded queue of removal notifications, optionally drained by a dispatcher thread that
+ * hands them to a {@link RemovalListener}. Publishing never blocks: when the queue is full
+ * the notification is dropped and counted, so a slow consumer cannot stall cache writes.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class RemovalEvents<K, V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemovalEvents.class);
+
+    /** Notifications handed to the listener per queue access */
+    private static final int BATCH_SIZE = 256;
+
+    private final ArrayBlockingQueue<RemovalNotification<K, V>> queue;
+    private final RemovalListener<K, V> listener;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread dispatcher;
+    private volatile boolean closed;
+
+    /**
+     * Creates the queue and, if there is a listener, starts its dispatcher thread.
+     *
+     * @param capacity the maximum number of queued notifications
+     * @param listener the listener to dispatch to, or null to leave the events for draining
+     */
+    RemovalEvents(int capacity, RemovalListener<K, V> listener) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.listener = listener;
+        if (listener != null) {
+            dispatcher = new Thread(this::dispatch, "cache-removal-dispatcher");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        } else {
+            dispatcher = null;
+        }
+    }
+
+    /**
+     * Queues a notification, or drops it if the queue is full.
+     */
+    void publish(K key, V value, RemovalCause cause) {
+        if (!queue.offer(new RemovalNotification<>(key, value, cause))) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Moves up to maxEvents queued notifications into the sink.
+     *
+     * @return the number of notifications moved
+     */
+    int drainTo(Collection<? super RemovalNotification<K, V>> sink, int maxEvents) {
+        if (listener != null) {
+            throw new IllegalStateException("Removal events are delivered to a listener");
+        }
+        return queue.drainTo(sink, maxEvents);
+    }
+
+    /**
+     * Returns the number of notifications dropped because the queue was full.
+     */
+    long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops the dispatcher after it has delivered the notifications queued so far.
+     */
+    void close() {
+        closed = true;
+        if (dispatcher != null && dispatcher != Thread.currentThread()) {
+            try {
+                dispatcher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void dispatch() {
+        List<RemovalNotification<K, V>> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            try {
+                RemovalNotification<K, V> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+            } catch (InterruptedException e) {
+                return;
+            }
+            for (RemovalNotification<K, V> notification : batch) {
+                try {
+                    listener.onRemoval(notification);
+                } catch (RuntimeException e) {
+                    logger.warn("Removal listener failed for key: {}", notification.key(), e);
+                }
+            }
+            batch.clear();
+        }
+    }
+}
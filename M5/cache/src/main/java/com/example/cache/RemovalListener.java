@@ -0,0 +1,24 @@
+package com.example.cache;
+
+/**
+ * Receives the entries removed from a cache built with
+ * {@link CacheBuilder#removalListener(RemovalListener)}. Notifications are delivered on a
+ * single background thread, in the order the removals were queued.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ *
+ * @author Cache Team
+ * @version 1.0
+ * @since 1.5
+ */
+@FunctionalInterface
+public interface RemovalListener<K, V> {
+
+    /**
+     * Called after an entry was removed. Exceptions thrown here are logged and ignored.
+     *
+     * @param notification the removed entry and the cause of its removal
+     */
+    void onRemoval(RemovalNotification<K, V> notification);
+}
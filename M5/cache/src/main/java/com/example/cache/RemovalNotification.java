@@ -0,0 +1,18 @@
+package com.example.cache;
+
+/**
+ * An entry that left a {@link Cache}, with the reason it left.
+ *
+ * @param key   the key of the removed entry
+ * @param value the value of the removed entry; null if the value was null or is no longer
+ *              available, as for entries overwritten in the second tier
+ * @param cause the reason the entry was removed
+ * @param <K>   the type of the key
+ * @param <V>   the type of the value
+ *
+ * @author Cache Team
+ * @version 1.0
+ * @since 1.5
+ */
+public record RemovalNotification<K, V>(K key, V value, RemovalCause cause) {
+}
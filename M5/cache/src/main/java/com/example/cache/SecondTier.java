@@ -0,0 +1,273 @@
+package com.example.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The larger, slower tier of a two-tier cache. Values demoted from the on-heap tier are
+ * serialized (and optionally deflate-compressed) into a fixed-size region outside the
+ * Java heap: a direct buffer or a memory-mapped file.
+ *
+ * <p>The region is used as a ring log. Each value is appended at the write head and the
+ * key's index slot points at it; when the head wraps around, the oldest records are
+ * overwritten, which evicts them in first-in, first-out order. Overwritten slots are
+ * detected by position and dropped from the index lazily and once per lap.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class SecondTier<K, V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(SecondTier.class);
+
+    /** A value read back from the tier together with its original write time */
+    record Stored<V>(V value, long writeNanos) {
+    }
+
+    /** Location of a record in the ring, by absolute (never wrapping) position */
+    private record Slot(long position, int length, long writeNanos, CountingBloomFilter filterStage) {
+    }
+
+    private final ByteBuffer region;
+    private final int capacity;
+    private final SnapshotCodec<V> codec;
+    private final boolean compress;
+    private final NegativeLookupGuard<K> guard;
+    private final BiConsumer<K, RemovalCause> onRemoval;
+
+    private final ConcurrentHashMap<K, Slot> index = new ConcurrentHashMap<>();
+
+    /** Readers copy bytes under the read lock; appends overwrite under the write lock */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Absolute position of the next append; guarded by the write lock, read under either lock */
+    private long head;
+
+    /** Head position at the last sweep of overwritten slots */
+    private long sweptAt;
+
+    /**
+     * Creates a second tier.
+     *
+     * @param capacity     size of the region in bytes
+     * @param file         file to map as the region, or null for a direct buffer
+     * @param codec        serializer for values
+     * @param compress     whether to deflate serialized values
+     * @param guard     negative lookup guard tracking the keys of the tier, or null
+     * @param onRemoval called for keys the tier drops itself: overwritten records
+     *                  ({@link RemovalCause#SIZE}) and cleared ones ({@link RemovalCause#EXPLICIT})
+     */
+    SecondTier(int capacity, Path file, SnapshotCodec<V> codec, boolean compress,
+               NegativeLookupGuard<K> guard, BiConsumer<K, RemovalCause> onRemoval) {
+        this.capacity = capacity;
+        this.codec = codec;
+        this.compress = compress;
+        this.guard = guard;
+        this.onRemoval = onRemoval;
+        this.region = file == null ? ByteBuffer.allocateDirect(capacity) : map(file, capacity);
+        logger.info("Created second tier of {} bytes ({}, compression {})", capacity,
+            file == null ? "direct buffer" : file, compress ? "on" : "off");
+    }
+
+    private static ByteBuffer map(Path file, int capacity) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map second-tier file " + file, e);
+        }
+    }
+
+    /**
+     * Serializes a value into the tier, replacing any previous value of the key.
+     *
+     * @param key        the key
+     * @param value      the value, must not be null
+     * @param writeNanos the original write time of the value
+     * @return false if the serialized value does not fit into the tier
+     */
+    boolean put(K key, V value, long writeNanos) {
+        byte[] bytes = compress ? deflate(codec.encode(value)) : codec.encode(value);
+        if (bytes.length > capacity) {
+            remove(key);
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int offset = (int) (head % capacity);
+            if (offset + bytes.length > capacity) {
+                head += capacity - offset;
+                offset = 0;
+            }
+            Slot slot = new Slot(head, bytes.length, writeNanos, guard == null ? null : guard.add(key));
+            head += bytes.length;
+            region.put(offset, bytes);
+            release(key, index.put(key, slot));
+
+            if (head - sweptAt >= capacity) {
+                sweepOverwritten();
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a key from the tier and returns its value.
+     *
+     * @param key the key
+     * @return the value and its write time, or null if the key is not in the tier
+     */
+    Stored<V> take(K key) {
+        Slot slot = index.remove(key);
+        if (slot == null) {
+            return null;
+        }
+        release(key, slot);
+
+        byte[] bytes = new byte[slot.length()];
+        lock.readLock().lock();
+        try {
+            if (isOverwritten(slot)) {
+                onRemoval.accept(key, RemovalCause.SIZE);
+                return null;
+            }
+            region.get((int) (slot.position() % capacity), bytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new Stored<>(codec.decode(ByteBuffer.wrap(compress ? inflate(bytes) : bytes)), slot.writeNanos());
+    }
+
+    /**
+     * Drops a key from the tier.
+     *
+     * @param key the key
+     * @return true if the key was in the tier
+     */
+    boolean remove(K key) {
+        Slot slot = index.remove(key);
+        release(key, slot);
+        return slot != null;
+    }
+
+    /**
+     * Returns whether the index holds the key. A true result may still turn out to be
+     * an overwritten record when the key is taken.
+     *
+     * @param key the key
+     * @return true if the key may be in the tier
+     */
+    boolean contains(K key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * Returns the number of keys in the tier, which may include records overwritten
+     * since the last sweep.
+     *
+     * @return the approximate number of keys
+     */
+    int size() {
+        return index.size();
+    }
+
+    /**
+     * Drops every key from the tier.
+     *
+     * @return the number of keys dropped
+     */
+    int clear() {
+        int cleared = 0;
+        for (Map.Entry<K, Slot> entry : index.entrySet()) {
+            if (index.remove(entry.getKey(), entry.getValue())) {
+                release(entry.getKey(), entry.getValue());
+                onRemoval.accept(entry.getKey(), RemovalCause.EXPLICIT);
+                cleared++;
+            }
+        }
+        return cleared;
+    }
+
+    private void release(K key, Slot slot) {
+        if (guard != null && slot != null) {
+            guard.remove(key, slot.filterStage());
+        }
+    }
+
+    private boolean isOverwritten(Slot slot) {
+        return slot.position() < head - capacity;
+    }
+
+    /**
+     * Drops index slots whose records were overwritten. Called with the write lock held.
+     */
+    private void sweepOverwritten() {
+        int dropped = 0;
+        for (Map.Entry<K, Slot> entry : index.entrySet()) {
+            if (isOverwritten(entry.getValue()) && index.remove(entry.getKey(), entry.getValue())) {
+                release(entry.getKey(), entry.getValue());
+                onRemoval.accept(entry.getKey(), RemovalCause.SIZE);
+                dropped++;
+            }
+        }
+        sweptAt = head;
+        logger.debug("Second tier dropped {} overwritten records", dropped);
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+            out.write(raw.length >>> 24);
+            out.write(raw.length >>> 16);
+            out.write(raw.length >>> 8);
+            out.write(raw.length);
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] stored) {
+        ByteBuffer buffer = ByteBuffer.wrap(stored);
+        byte[] raw = new byte[buffer.getInt()];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored, Integer.BYTES, stored.length - Integer.BYTES);
+            int offset = 0;
+            while (offset < raw.length && !inflater.finished()) {
+                offset += inflater.inflate(raw, offset, raw.length - offset);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed value in second tier", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
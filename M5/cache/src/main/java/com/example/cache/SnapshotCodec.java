@@ -0,0 +1,69 @@
+package com.example.cache;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts keys or values to and from bytes for cache snapshots.
+ * Implementations must be stateless or thread-safe.
+ *
+ * @param <T> the type being encoded
+ *
+ * @author Cache Team
+ * @version 1.0
+ * @since 1.3
+ */
+public interface SnapshotCodec<T> {
+
+    /**
+     * Encodes a non-null object.
+     *
+     * @param value the object to encode
+     * @return the encoded bytes
+     */
+    byte[] encode(T value);
+
+    /**
+     * Decodes an object from the remaining bytes of the buffer. The buffer's limit is
+     * set to the end of the encoded object; implementations may consume or ignore its position.
+     *
+     * @param buffer a read-only view of exactly the encoded bytes
+     * @return the decoded object
+     */
+    T decode(ByteBuffer buffer);
+
+    /**
+     * Returns a codec storing strings as UTF-8.
+     *
+     * @return the string codec
+     */
+    static SnapshotCodec<String> utf8() {
+        return SnapshotCodecs.UTF8;
+    }
+
+    /**
+     * Returns a codec storing integers as 4 big-endian bytes.
+     *
+     * @return the integer codec
+     */
+    static SnapshotCodec<Integer> integers() {
+        return SnapshotCodecs.INTEGER;
+    }
+
+    /**
+     * Returns a codec storing longs as 8 big-endian bytes.
+     *
+     * @return the long codec
+     */
+    static SnapshotCodec<Long> longs() {
+        return SnapshotCodecs.LONG;
+    }
+
+    /**
+     * Returns a codec storing byte arrays as they are.
+     *
+     * @return the byte array codec
+     */
+    static SnapshotCodec<byte[]> bytes() {
+        return SnapshotCodecs.BYTES;
+    }
+}
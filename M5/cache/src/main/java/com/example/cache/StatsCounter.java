@@ -0,0 +1,67 @@
+package com.example.cache;
+
+/**
+ * Records cache statistics as they happen.
+ * A cache holds exactly one counter for its whole life: either {@link #DISABLED},
+ * whose methods do nothing, or a {@link ConcurrentStatsCounter}.
+ */
+interface StatsCounter {
+
+    /** Counter used when statistics are off; every method is a no-op */
+    StatsCounter DISABLED = new StatsCounter() {
+        @Override
+        public void recordHit() {
+        }
+
+        @Override
+        public void recordMiss() {
+        }
+
+        @Override
+        public void recordLoadSuccess(long loadTimeNanos) {
+        }
+
+        @Override
+        public void recordLoadFailure(long loadTimeNanos) {
+        }
+
+        @Override
+        public void recordEviction() {
+        }
+
+        @Override
+        public CacheStats snapshot() {
+            return CacheStats.empty();
+        }
+    };
+
+    /** Records a lookup that found a value */
+    void recordHit();
+
+    /** Records a lookup that found no value */
+    void recordMiss();
+
+    /**
+     * Records a load that produced a value (or a null "no value" result).
+     *
+     * @param loadTimeNanos time spent in the loader
+     */
+    void recordLoadSuccess(long loadTimeNanos);
+
+    /**
+     * Records a load that threw an exception.
+     *
+     * @param loadTimeNanos time spent in the loader
+     */
+    void recordLoadFailure(long loadTimeNanos);
+
+    /** Records an entry removed by an eviction policy */
+    void recordEviction();
+
+    /**
+     * Returns a point-in-time copy of the counters.
+     *
+     * @return the current statistics
+     */
+    CacheStats snapshot();
+}
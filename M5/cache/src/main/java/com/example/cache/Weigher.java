@@ -0,0 +1,56 @@
+package com.example.cache;
+
+/**
+ * Computes the cost of a cache entry for caches bounded by
+ * {@link CacheBuilder#maximumWeight(long)}. Weights are computed once, when an
+ * entry is written, and must not be negative.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ *
+ * @author Cache Team
+ * @version 1.0
+ * @since 1.4
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+
+    /**
+     * Returns the weight of an entry.
+     *
+     * @param key   the key of the entry
+     * @param value the value of the entry, possibly null
+     * @return the weight, zero or positive
+     */
+    int weigh(K key, V value);
+
+    /**
+     * Returns a weigher that gives every entry a weight of 1, bounding the entry count.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     * @return the singleton weigher
+     */
+    static <K, V> Weigher<K, V> singleton() {
+        return (key, value) -> 1;
+    }
+
+    /**
+     * Returns a weigher that estimates the heap footprint of an entry in bytes.
+     * Strings are counted at two bytes per character, byte arrays at their length and
+     * heap byte buffers at their capacity, each plus object headers; other objects
+     * count as a fixed 16 bytes. Every entry also pays a fixed overhead for the cache's
+     * own bookkeeping. The estimate is deliberately conservative, so a byte budget is
+     * an upper bound on real usage for String and byte[] data.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     * @return the byte-estimating weigher
+     */
+    static <K, V> Weigher<K, V> byteEstimate() {
+        return (key, value) -> {
+            long bytes = Weighers.ENTRY_OVERHEAD + Weighers.estimate(key) + Weighers.estimate(value);
+            return (int) Math.min(Integer.MAX_VALUE, bytes);
+        };
+    }
+}
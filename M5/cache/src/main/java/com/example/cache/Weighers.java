@@ -0,0 +1,49 @@
+package com.example.cache;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Size estimates backing {@link Weigher#byteEstimate()}.
+ */
+final class Weighers {
+
+    /** Map node, entry holder and their references */
+    static final int ENTRY_OVERHEAD = 80;
+
+    /** String object plus the header of its backing array */
+    private static final int STRING_OVERHEAD = 40;
+
+    /** Array header */
+    private static final int ARRAY_OVERHEAD = 16;
+
+    /** Buffer object plus the header of its backing array */
+    private static final int BUFFER_OVERHEAD = 64;
+
+    /** Assumed size of any other object */
+    private static final int OBJECT_SIZE = 16;
+
+    private Weighers() {
+    }
+
+    /**
+     * Estimates the heap footprint of a key or value in bytes.
+     *
+     * @param object the object to estimate, possibly null
+     * @return the estimated size in bytes
+     */
+    static long estimate(Object object) {
+        if (object == null) {
+            return 0;
+        }
+        if (object instanceof String) {
+            return STRING_OVERHEAD + 2L * ((String) object).length();
+        }
+        if (object instanceof byte[]) {
+            return ARRAY_OVERHEAD + ((byte[]) object).length;
+        }
+        if (object instanceof ByteBuffer && ((ByteBuffer) object).hasArray()) {
+            return BUFFER_OVERHEAD + ((ByteBuffer) object).capacity();
+        }
+        return OBJECT_SIZE;
+    }
+}
@@ -0,0 +1,440 @@
+package com.example.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+
+/**
+ * Persists cache writes to an append-only log file in the background.
+ *
+ * <p>Writes are queued in a map keyed by cache key, so repeated writes of a key between two
+ * flushes coalesce into one record. A single daemon thread drains the queue at least once
+ * per flush delay, appends the batch and forces it to storage with one {@code force} call
+ * (group commit). Callers only touch memory. After a crash, at most the writes of the last
+ * flush delay plus the batch being written are lost.
+ *
+ * <p>The cache queues each record in the same per-key step that updates its store, so
+ * concurrent writes of a key are queued, and therefore logged, in the order they took
+ * effect in the cache.
+ *
+ * <p>Layout, all integers big-endian; every record is framed and checksummed so that a
+ * write torn by a crash is detected and discarded on recovery:
+ * <pre>
+ * frame:  int payloadLength | int crc32c(payload) | payload
+ * PUT:    byte 1 | long writtenAtMillis | int keyLength | key bytes | int valueLength (-1 for null) | value bytes
+ * REMOVE: byte 2 | int keyLength | key bytes
+ * CLEAR:  byte 3
+ * </pre>
+ * The log is compacted to one record per live key when it is opened and whenever it has
+ * grown to twice its compacted size.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class WriteBehindLog<K, V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindLog.class);
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte CLEAR = 3;
+
+    private static final int FRAME_HEADER = 2 * Integer.BYTES;
+
+    /** Queued writes that wake the flusher before its delay is up */
+    private static final int FLUSH_SIGNAL = 4096;
+
+    /** Size below which the log is never compacted at runtime */
+    private static final long MIN_COMPACT_BYTES = 1024 * 1024;
+
+    /** A queued write: a value or, for a removal, a tombstone */
+    private record Write<V>(V value, boolean removed, long writtenAtMillis) {
+    }
+
+    /** The last value of a key found in the log, still encoded */
+    private record Logged(long writtenAtMillis, byte[] value) {
+    }
+
+    private final Path file;
+    private final SnapshotCodec<K> keyCodec;
+    private final SnapshotCodec<V> valueCodec;
+    private final long flushDelayNanos;
+
+    private final ConcurrentHashMap<K, Write<V>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /** Makes draining the queue and clearing it atomic with respect to each other */
+    private final Object drainLock = new Object();
+
+    /** Set by {@link #clear()} until the flusher has written a CLEAR record; guarded by drainLock */
+    private boolean clearRequested;
+
+    /** Serializes flushes and compaction, which own the channel */
+    private final Object ioLock = new Object();
+
+    private FileChannel channel;
+    private long compactedSize;
+    private Thread flusher;
+    private volatile boolean closed;
+
+    /**
+     * Creates a log; {@link #open(Cache)} must be called before it accepts writes.
+     *
+     * @param file            the log file
+     * @param keyCodec        codec for keys
+     * @param valueCodec      codec for values
+     * @param flushDelayNanos the longest time a write stays queued
+     */
+    WriteBehindLog(Path file, SnapshotCodec<K> keyCodec, SnapshotCodec<V> valueCodec, long flushDelayNanos) {
+        this.file = file;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.flushDelayNanos = flushDelayNanos;
+    }
+
+    /**
+     * Replays an existing log into the cache, compacts it and starts the flusher.
+     * Entries keep the age they had when written, so expired ones are skipped.
+     *
+     * @param cache the cache to load
+     * @return the number of entries loaded
+     * @throws IOException if the log cannot be read or rewritten
+     */
+    int open(Cache<K, V> cache) throws IOException {
+        Map<K, Logged> live = Files.exists(file) ? read() : new LinkedHashMap<>();
+        synchronized (ioLock) {
+            rewrite(live);
+        }
+
+        long nowMillis = System.currentTimeMillis();
+        int loaded = 0;
+        for (Map.Entry<K, Logged> entry : live.entrySet()) {
+            Logged logged = entry.getValue();
+            long ageNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, nowMillis - logged.writtenAtMillis()));
+            V value = logged.value() == null ? null : valueCodec.decode(ByteBuffer.wrap(logged.value()));
+            if (cache.isLiveAtAge(ageNanos) && cache.putLoaded(entry.getKey(), value, ageNanos)) {
+                loaded++;
+            }
+        }
+
+        flusher = new Thread(this::runFlusher, "cache-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+        logger.info("Opened write-behind log {} with {} entries", file, loaded);
+        return loaded;
+    }
+
+    /**
+     * Queues a write of a value.
+     */
+    void put(K key, V value) {
+        enqueue(key, new Write<>(value, false, System.currentTimeMillis()));
+    }
+
+    /**
+     * Queues a removal of a key.
+     */
+    void remove(K key) {
+        enqueue(key, new Write<>(null, true, 0));
+    }
+
+    /**
+     * Drops all queued writes and queues a CLEAR record ahead of any later write.
+     */
+    void clear() {
+        synchronized (drainLock) {
+            clearRequested = true;
+            pending.clear();
+        }
+        LockSupport.unpark(flusher);
+    }
+
+    /**
+     * Writes all queued records and forces them to storage.
+     *
+     * @throws IOException if the records cannot be written; they stay queued
+     */
+    void flush() throws IOException {
+        synchronized (ioLock) {
+            if (channel == null) {
+                return;
+            }
+            boolean clear;
+            List<Map.Entry<K, Write<V>>> batch = new ArrayList<>();
+            synchronized (drainLock) {
+                clear = clearRequested;
+                clearRequested = false;
+                queued.set(0);
+                for (Map.Entry<K, Write<V>> entry : pending.entrySet()) {
+                    if (pending.remove(entry.getKey(), entry.getValue())) {
+                        batch.add(entry);
+                    }
+                }
+            }
+            if (!clear && batch.isEmpty()) {
+                return;
+            }
+
+            long start = channel.position();
+            try {
+                List<ByteBuffer> frames = new ArrayList<>(batch.size() + 1);
+                if (clear) {
+                    frames.add(frame(new byte[] {CLEAR}));
+                }
+                for (Map.Entry<K, Write<V>> entry : batch) {
+                    ByteBuffer frame = encode(entry.getKey(), entry.getValue());
+                    if (frame != null) {
+                        frames.add(frame);
+                    }
+                }
+                ByteBuffer[] buffers = frames.toArray(new ByteBuffer[0]);
+                long remaining = 0;
+                for (ByteBuffer buffer : buffers) {
+                    remaining += buffer.remaining();
+                }
+                while (remaining > 0) {
+                    remaining -= channel.write(buffers);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                requeue(clear, batch);
+                try {
+                    channel.truncate(start);
+                    channel.position(start);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+            logger.debug("Flushed {} write-behind records to {}", batch.size() + (clear ? 1 : 0), file);
+
+            if (channel.position() > Math.max(MIN_COMPACT_BYTES, 2 * compactedSize)) {
+                rewrite(read());
+            }
+        }
+    }
+
+    /**
+     * Stops the flusher, writes the remaining queued records and closes the file.
+     * Writes queued after closing are ignored.
+     *
+     * @throws IOException if the last records cannot be written
+     */
+    void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (ioLock) {
+            try {
+                flush();
+            } finally {
+                channel.close();
+                channel = null;
+            }
+        }
+        logger.info("Closed write-behind log {}", file);
+    }
+
+    private void enqueue(K key, Write<V> write) {
+        if (closed) {
+            logger.debug("Ignoring write-behind record for key {} after close", key);
+            return;
+        }
+        if (pending.put(key, write) == null && queued.incrementAndGet() == FLUSH_SIGNAL) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    private void requeue(boolean clear, List<Map.Entry<K, Write<V>>> batch) {
+        synchronized (drainLock) {
+            if (clear) {
+                clearRequested = true;
+            }
+            for (Map.Entry<K, Write<V>> entry : batch) {
+                pending.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void runFlusher() {
+        while (!closed) {
+            LockSupport.parkNanos(this, flushDelayNanos);
+            if (closed) {
+                return;
+            }
+            try {
+                flush();
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to flush write-behind log {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * Encodes a queued write as a frame, or returns null if the codec rejects it.
+     */
+    private ByteBuffer encode(K key, Write<V> write) {
+        try {
+            byte[] keyBytes = keyCodec.encode(key);
+            if (write.removed()) {
+                return frame(ByteBuffer.allocate(1 + Integer.BYTES + keyBytes.length)
+                    .put(REMOVE).putInt(keyBytes.length).put(keyBytes).array());
+            }
+            byte[] valueBytes = write.value() == null ? null : valueCodec.encode(write.value());
+            return putFrame(keyBytes, write.writtenAtMillis(), valueBytes);
+        } catch (RuntimeException e) {
+            logger.error("Cannot encode write-behind record for key {}, skipping it", key, e);
+            return null;
+        }
+    }
+
+    private static ByteBuffer putFrame(byte[] key, long writtenAtMillis, byte[] value) {
+        int valueLength = value == null ? 0 : value.length;
+        ByteBuffer payload = ByteBuffer.allocate(1 + Long.BYTES + 2 * Integer.BYTES + key.length + valueLength)
+            .put(PUT).putLong(writtenAtMillis).putInt(key.length).put(key)
+            .putInt(value == null ? -1 : value.length);
+        if (value != null) {
+            payload.put(value);
+        }
+        return frame(payload.array());
+    }
+
+    private static ByteBuffer frame(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return ByteBuffer.allocate(FRAME_HEADER + payload.length)
+            .putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+    }
+
+    /**
+     * Reads the log up to the first torn or corrupt frame and returns the last value
+     * of every key that is still present at that point.
+     */
+    private Map<K, Logged> read() throws IOException {
+        Map<K, Logged> live = new LinkedHashMap<>();
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Write-behind log too large: " + file);
+            }
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32C crc = new CRC32C();
+            while (buffer.remaining() >= FRAME_HEADER) {
+                int start = buffer.position();
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length < 1 || length > buffer.remaining()) {
+                    buffer.position(start);
+                    break;
+                }
+                ByteBuffer payload = buffer.slice(buffer.position(), length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum || !apply(payload, live)) {
+                    buffer.position(start);
+                    break;
+                }
+                buffer.position(buffer.position() + length);
+            }
+            if (buffer.position() < size) {
+                logger.warn("Discarding {} bytes of torn or corrupt records at the end of {}",
+                    size - buffer.position(), file);
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Applies one checksummed record to the replayed state.
+     *
+     * @return false if the record is malformed
+     */
+    private boolean apply(ByteBuffer payload, Map<K, Logged> live) {
+        try {
+            byte type = payload.get();
+            if (type == CLEAR) {
+                live.clear();
+                return true;
+            }
+            long writtenAtMillis = type == PUT ? payload.getLong() : 0;
+            int keyLength = payload.getInt();
+            K key = keyCodec.decode(payload.slice(payload.position(), keyLength).asReadOnlyBuffer());
+            payload.position(payload.position() + keyLength);
+            if (type == REMOVE) {
+                live.remove(key);
+                return true;
+            }
+            if (type != PUT) {
+                return false;
+            }
+            int valueLength = payload.getInt();
+            byte[] value = null;
+            if (valueLength >= 0) {
+                value = new byte[valueLength];
+                payload.get(value);
+            }
+            live.remove(key);
+            live.put(key, new Logged(writtenAtMillis, value));
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Replaces the log with one PUT record per live key and reopens it for appending.
+     * Called with the I/O lock held.
+     */
+    private void rewrite(Map<K, Logged> live) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                for (Map.Entry<K, Logged> entry : live.entrySet()) {
+                    ByteBuffer frame = putFrame(keyCodec.encode(entry.getKey()),
+                        entry.getValue().writtenAtMillis(), entry.getValue().value());
+                    while (frame.hasRemaining()) {
+                        out.write(frame);
+                    }
+                }
+                out.force(true);
+            }
+            if (channel != null) {
+                channel.close();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+            if (channel == null || !channel.isOpen()) {
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                channel.position(channel.size());
+            }
+        }
+        compactedSize = channel.size();
+        logger.debug("Compacted write-behind log {} to {} records", file, live.size());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.cache.cluster;
+
+import com.example.cache.Cache;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The share of a partitioned cache held by one node: a local {@link Cache} of encoded
+ * keys and values. Keys are wrapped in heap byte buffers, whose equality is by content.
+ * Bounds, expiry and the other options of the local cache apply per node, so the
+ * capacity of the whole cluster grows with its node count.
+ *
+ * @author Cache Team
+ * @version 1.0
+ * @since 1.5
+ */
+public final class CacheNode {
+
+    private final Cache<ByteBuffer, byte[]> store;
+
+    /**
+     * Creates an unbounded node.
+     */
+    public CacheNode() {
+        this(new Cache<>());
+    }
+
+    /**
+     * Creates a node on top of a configured cache, for example one built with
+     * {@code Cache.<ByteBuffer, byte[]>builder().maximumWeight(bytes)}.
+     *
+     * @param store the local cache holding this node's entries
+     * @throws IllegalArgumentException if store is null
+     */
+    public CacheNode(Cache<ByteBuffer, byte[]> store) {
+        if (store == null) {
+            throw new IllegalArgumentException("Store cannot be null");
+        }
+        this.store = store;
+    }
+
+    /**
+     * Reads an encoded value.
+     *
+     * @param key the encoded key
+     * @return the encoded value, or null if absent
+     */
+    public byte[] get(byte[] key) {
+        return store.getOrNull(ByteBuffer.wrap(key));
+    }
+
+    /**
+     * Stores an encoded value.
+     *
+     * @param key   the encoded key
+     * @param value the encoded value, possibly null
+     */
+    public void put(byte[] key, byte[] value) {
+        store.put(ByteBuffer.wrap(key), value);
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key the encoded key
+     * @return true if the key was present
+     */
+    public boolean remove(byte[] key) {
+        return store.removeKey(ByteBuffer.wrap(key));
+    }
+
+    /**
+     * Returns the number of entries held by this node.
+     *
+     * @return the entry count
+     */
+    public int size() {
+        return store.size();
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.cache.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves a {@link CacheNode} to {@link SocketTransport} clients over TCP. Each connection
+ * is handled by its own thread and carries one request at a time; clients keep a pool of
+ * connections for concurrency.
+ *
+ * @author Cache Team
+ * @version 1.0
+ * @since 1.5
+ */
+public final class CacheServer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheServer.class);
+
+    private final CacheNode node;
+    private final ServerSocket serverSocket;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final ExecutorService handlers;
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    /**
+     * Starts serving a node on the loopback interface.
+     *
+     * @param node the node to serve
+     * @param port the port to listen on, or 0 to pick a free one
+     * @throws IOException if the port cannot be bound
+     */
+    public CacheServer(CacheNode node, int port) throws IOException {
+        this(node, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Starts serving a node.
+     *
+     * @param node    the node to serve
+     * @param address the address to listen on
+     * @throws IOException if the address cannot be bound
+     * @throws IllegalArgumentException if node or address is null
+     */
+    public CacheServer(CacheNode node, InetSocketAddress address) throws IOException {
+        if (node == null || address == null) {
+            throw new IllegalArgumentException("Node and address cannot be null");
+        }
+        this.node = node;
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(address);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.handlers = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "cache-server-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.acceptor = new Thread(this::accept, "cache-server-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        logger.info("Cache server listening on {}", serverSocket.getLocalSocketAddress());
+    }
+
+    /**
+     * Returns the address clients connect to.
+     *
+     * @return the bound address
+     */
+    public InetSocketAddress address() {
+        return (InetSocketAddress) serverSocket.getLocalSocketAddress();
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close server socket", e);
+        }
+        for (Socket socket : connections) {
+            closeQuietly(socket);
+        }
+        handlers.shutdown();
+        logger.info("Cache server stopped");
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                handlers.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.error("Failed to accept connection", e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            while (true) {
+                int op = in.read();
+                if (op < 0) {
+                    return;
+                }
+                byte[] key = WireProtocol.readBytes(in);
+                byte[] value = op == WireProtocol.PUT ? WireProtocol.readBytes(in) : null;
+                respond(out, (byte) op, key, value);
+                out.flush();
+            }
+        } catch (EOFException e) {
+            logger.debug("Client disconnected mid-request: {}", socket.getRemoteSocketAddress());
+        } catch (IOException e) {
+            if (!closed) {
+                logger.warn("Connection from {} failed", socket.getRemoteSocketAddress(), e);
+            }
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    private void respond(DataOutputStream out, byte op, byte[] key, byte[] value) throws IOException {
+        if (key == null) {
+            out.writeByte(WireProtocol.ERROR);
+            out.writeUTF("Key cannot be null");
+            return;
+        }
+        try {
+            switch (op) {
+                case WireProtocol.GET -> {
+                    byte[] stored = node.get(key);
+                    out.writeByte(WireProtocol.OK);
+                    WireProtocol.writeBytes(out, stored);
+                }
+                case WireProtocol.PUT -> {
+                    node.put(key, value);
+                    out.writeByte(WireProtocol.OK);
+                }
+                case WireProtocol.REMOVE -> {
+                    boolean removed = node.remove(key);
+                    out.writeByte(WireProtocol.OK);
+                    out.writeBoolean(removed);
+                }
+                default -> {
+                    out.writeByte(WireProtocol.ERROR);
+                    out.writeUTF("Unknown operation: " + op);
+                }
+            }
+        } catch (RuntimeException e) {
+            // the node failed before anything was written, so the connection stays usable
+            logger.warn("Request {} failed on the local cache", op, e);
+            out.writeByte(WireProtocol.ERROR);
+            out.writeUTF(errorMessage(e));
+        }
+    }
+
+    /**
+     * Describes a failure in a string short enough for writeUTF.
+     */
+    private static String errorMessage(RuntimeException e) {
+        String message = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+        return message.length() > 1024 ? message.substring(0, 1024) : message;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close connection", e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.cache.cluster;
+
+import java.io.IOException;
+
+/**
+ * Carries cache operations to the node that owns a key. Keys and values travel as
+ * bytes; encoding them is left to {@link PartitionedCache}. A null value stands for a
+ * key stored with a null value, or for an absent key in a {@link #get} result.
+ * Implementations must be thread-safe.
+ *
+ * @author Cache Team
+ * @version 1.0
+ * @since 1.5
+ */
+public interface CacheTransport extends AutoCloseable {
+
+    /**
+     * Reads a value from a node.
+     *
+     * @param nodeId the owning node
+     * @param key    the encoded key
+     * @return the encoded value, or null if absent
+     * @throws IOException if the node cannot be reached
+     */
+    byte[] get(String nodeId, byte[] key) throws IOException;
+
+    /**
+     * Stores a value on a node.
+     *
+     * @param nodeId the owning node
+     * @param key    the encoded key
+     * @param value  the encoded value, possibly null
+     * @throws IOException if the node cannot be reached
+     */
+    void put(String nodeId, byte[] key, byte[] value) throws IOException;
+
+    /**
+     * Removes a key from a node.
+     *
+     * @param nodeId the owning node
+     * @param key    the encoded key
+     * @return true if the node held the key
+     * @throws IOException if the node cannot be reached
+     */
+    boolean remove(String nodeId, byte[] key) throws IOException;
+
+    /**
+     * Releases connections held by the transport.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,193 @@
+package com.example.cache.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Maps keys to the nodes that own them. Each node is placed on a 64-bit hash ring at a
+ * number of pseudo-random points (virtual nodes), and a key belongs to the first node
+ * point at or after the key's own hash. Adding or removing one of N nodes therefore
+ * moves only the keys of the ring segments it gains or loses, about 1/N of all keys,
+ * and the virtual nodes keep the segments of every node similar in total length.
+ *
+ * <p>Every membership change advances an epoch, and each ring point remembers the epoch
+ * in which it last took over keys: when it was added, or when the point before it was
+ * removed and its segment merged in. Data stored before that epoch under a key of the
+ * point may predate writes made on another owner, which {@link PartitionedCache} uses
+ * to ignore such copies.
+ *
+ * <p>Lookups read an immutable snapshot of the ring and never block; membership changes
+ * copy the ring and are serialized.
+ *
+ * @author Cache Team
+ * @version 1.0
+ * @since 1.5
+ */
+public final class ConsistentHashRing {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsistentHashRing.class);
+
+    private final int virtualNodes;
+    private volatile State state = new State(Collections.emptyNavigableMap(), 0);
+
+    /**
+     * Creates an empty ring.
+     *
+     * @param virtualNodes the number of ring points per node, typically 100 to 200
+     * @throws IllegalArgumentException if virtualNodes is not positive
+     */
+    public ConsistentHashRing(int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual node count must be positive");
+        }
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * Adds a node to the ring. Adding a node that is already present has no effect.
+     *
+     * @param nodeId the node identifier
+     * @throws IllegalArgumentException if nodeId is null
+     */
+    public synchronized void addNode(String nodeId) {
+        if (nodeId == null) {
+            throw new IllegalArgumentException("Node id cannot be null");
+        }
+        if (nodes().contains(nodeId)) {
+            return;
+        }
+        long epoch = state.epoch() + 1;
+        Point point = new Point(nodeId, epoch);
+        TreeMap<Long, Point> updated = new TreeMap<>(state.points());
+        for (int i = 0; i < virtualNodes; i++) {
+            // on the rare collision the earlier point wins, keeping lookups deterministic
+            updated.putIfAbsent(hash((nodeId + '#' + i).getBytes(StandardCharsets.UTF_8)), point);
+        }
+        state = new State(Collections.unmodifiableNavigableMap(updated), epoch);
+        logger.info("Added node {} to the hash ring", nodeId);
+    }
+
+    /**
+     * Removes a node and all of its ring points.
+     *
+     * @param nodeId the node identifier
+     * @return true if the node was present
+     */
+    public synchronized boolean removeNode(String nodeId) {
+        long epoch = state.epoch() + 1;
+        TreeMap<Long, Point> updated = new TreeMap<>(state.points());
+        List<Long> removed = new ArrayList<>();
+        updated.forEach((position, point) -> {
+            if (point.nodeId().equals(nodeId)) {
+                removed.add(position);
+            }
+        });
+        if (removed.isEmpty()) {
+            return false;
+        }
+        updated.keySet().removeAll(removed);
+        // each removed segment merges into the next surviving point, which takes over its keys
+        for (long position : removed) {
+            Map.Entry<Long, Point> heir = updated.ceilingEntry(position);
+            if (heir == null) {
+                heir = updated.firstEntry();
+            }
+            if (heir != null) {
+                updated.put(heir.getKey(), new Point(heir.getValue().nodeId(), epoch));
+            }
+        }
+        state = new State(Collections.unmodifiableNavigableMap(updated), epoch);
+        logger.info("Removed node {} from the hash ring", nodeId);
+        return true;
+    }
+
+    /**
+     * Returns the node owning a key.
+     *
+     * @param key the encoded key
+     * @return the owner's identifier
+     * @throws IllegalStateException if the ring has no nodes
+     */
+    public String nodeFor(byte[] key) {
+        return route(key).nodeId();
+    }
+
+    /**
+     * Returns the nodes on the ring.
+     *
+     * @return a sorted copy of the node identifiers
+     */
+    public Set<String> nodes() {
+        Set<String> nodes = new TreeSet<>();
+        for (Point point : state.points().values()) {
+            nodes.add(point.nodeId());
+        }
+        return nodes;
+    }
+
+    /**
+     * Returns the owner of a key together with the epochs needed to judge stored copies,
+     * all read from the same version of the ring.
+     *
+     * @param key the encoded key
+     * @return the route of the key
+     * @throws IllegalStateException if the ring has no nodes
+     */
+    Route route(byte[] key) {
+        State current = state;
+        NavigableMap<Long, Point> points = current.points();
+        if (points.isEmpty()) {
+            throw new IllegalStateException("Hash ring has no nodes");
+        }
+        Map.Entry<Long, Point> owner = points.ceilingEntry(hash(key));
+        Point point = owner != null ? owner.getValue() : points.firstEntry().getValue();
+        return new Route(point.nodeId(), point.since(), current.epoch());
+    }
+
+    /**
+     * Hashes bytes with 64-bit FNV-1a, finished with the MurmurHash3 mixer so that
+     * similar inputs such as "node#1" and "node#2" land far apart on the ring.
+     */
+    static long hash(byte[] bytes) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * The owner of a key as seen by one version of the ring.
+     *
+     * @param nodeId the owning node
+     * @param since  the epoch in which the owning point last took over keys; copies
+     *               written before it may be stale
+     * @param epoch  the epoch of the ring version, to tag writes made through this route
+     */
+    record Route(String nodeId, long since, long epoch) {
+    }
+
+    /** A ring point: the node it belongs to and the epoch in which it last took over keys */
+    private record Point(String nodeId, long since) {
+    }
+
+    /** An immutable version of the ring */
+    private record State(NavigableMap<Long, Point> points, long epoch) {
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.cache.cluster;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Transport to nodes living in the same JVM, for tests and single-process setups.
+ * Values are copied on the way in and out, as they would be over a network, so callers
+ * cannot change stored bytes through an array they still hold.
+ *
+ * @author Cache Team
+ * @version 1.0
+ * @since 1.5
+ */
+public final class LoopbackTransport implements CacheTransport {
+
+    private final ConcurrentHashMap<String, CacheNode> nodes = new ConcurrentHashMap<>();
+
+    /**
+     * Makes a node reachable under an identifier.
+     *
+     * @param nodeId the node identifier
+     * @param node   the node
+     * @throws IllegalArgumentException if nodeId or node is null
+     */
+    public void addNode(String nodeId, CacheNode node) {
+        if (nodeId == null || node == null) {
+            throw new IllegalArgumentException("Node id and node cannot be null");
+        }
+        nodes.put(nodeId, node);
+    }
+
+    /**
+     * Makes a node unreachable, as if it had gone down.
+     *
+     * @param nodeId the node identifier
+     * @return the node, or null if none was registered
+     */
+    public CacheNode removeNode(String nodeId) {
+        return nodes.remove(nodeId);
+    }
+
+    @Override
+    public byte[] get(String nodeId, byte[] key) throws IOException {
+        byte[] value = node(nodeId).get(key.clone());
+        return value == null ? null : value.clone();
+    }
+
+    @Override
+    public void put(String nodeId, byte[] key, byte[] value) throws IOException {
+        node(nodeId).put(key.clone(), value == null ? null : value.clone());
+    }
+
+    @Override
+    public boolean remove(String nodeId, byte[] key) throws IOException {
+        return node(nodeId).remove(key.clone());
+    }
+
+    @Override
+    public void close() {
+        nodes.clear();
+    }
+
+    private CacheNode node(String nodeId) throws IOException {
+        CacheNode node = nodes.get(nodeId);
+        if (node == null) {
+            throw new IOException("Unknown node: " + nodeId);
+        }
+        return node;
+    }
+}
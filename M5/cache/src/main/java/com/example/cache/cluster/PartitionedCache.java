@@ -0,0 +1,167 @@
+package com.example.cache.cluster;
+
+import com.example.cache.SnapshotCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A cache spread over several nodes. Every key has exactly one owner, chosen by a
+ * {@link ConsistentHashRing}, so each node holds a different share of the keys and the
+ * capacity of the cache grows with the number of nodes instead of every node caching
+ * the same hot keys.
+ *
+ * <p>Membership changes on the ring move about 1/N of the keys to a new owner. Entries
+ * are not migrated: a moved key misses on its new owner until it is written there again.
+ * Each stored value is tagged with the ring epoch it was written in, and a copy written
+ * before its owner last took over keys is treated as absent, since the key may have been
+ * updated or removed on another node meanwhile. A key that moves away and back therefore
+ * misses instead of serving a stale or deleted value; the old copy stays on the node
+ * until it is overwritten or evicted under that node's bounds.
+ *
+ * <p>Operations go through a {@link CacheTransport}; a node that cannot be reached
+ * surfaces as an {@link UncheckedIOException}.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ *
+ * @author Cache Team
+ * @version 1.0
+ * @since 1.5
+ */
+public class PartitionedCache<K, V> implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedCache.class);
+
+    /** Bytes before the encoded value: the write epoch and a flag telling null values apart */
+    private static final int HEADER_LENGTH = Long.BYTES + 1;
+
+    private final ConsistentHashRing ring;
+    private final CacheTransport transport;
+    private final SnapshotCodec<K> keyCodec;
+    private final SnapshotCodec<V> valueCodec;
+
+    /**
+     * Creates a partitioned cache. The ring and the transport must know the same nodes.
+     *
+     * @param ring       the ring choosing the owner of each key
+     * @param transport  the transport reaching the nodes
+     * @param keyCodec   codec encoding keys
+     * @param valueCodec codec encoding values
+     * @throws IllegalArgumentException if any argument is null
+     */
+    public PartitionedCache(ConsistentHashRing ring, CacheTransport transport,
+                            SnapshotCodec<K> keyCodec, SnapshotCodec<V> valueCodec) {
+        if (ring == null || transport == null || keyCodec == null || valueCodec == null) {
+            throw new IllegalArgumentException("Ring, transport and codecs cannot be null");
+        }
+        this.ring = ring;
+        this.transport = transport;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+    }
+
+    /**
+     * Retrieves a value from the node owning the key.
+     *
+     * @param key the key
+     * @return the value, or null if absent
+     * @throws IllegalArgumentException if key is null
+     * @throws UncheckedIOException     if the owner cannot be reached
+     */
+    public V getOrNull(K key) {
+        byte[] encodedKey = encodeKey(key, "get");
+        ConsistentHashRing.Route route = ring.route(encodedKey);
+        byte[] stored;
+        try {
+            stored = transport.get(route.nodeId(), encodedKey);
+        } catch (IOException e) {
+            throw unreachable(route.nodeId(), e);
+        }
+        if (stored == null || stored.length < HEADER_LENGTH) {
+            return null;
+        }
+        ByteBuffer frame = ByteBuffer.wrap(stored);
+        if (frame.getLong() < route.since() || frame.get() == 0) {
+            // written before the owner took the key over, or a stored null
+            return null;
+        }
+        return valueCodec.decode(frame.slice().asReadOnlyBuffer());
+    }
+
+    /**
+     * Stores a value on the node owning the key.
+     *
+     * @param key   the key
+     * @param value the value, possibly null
+     * @throws IllegalArgumentException if key is null
+     * @throws UncheckedIOException     if the owner cannot be reached
+     */
+    public void put(K key, V value) {
+        byte[] encodedKey = encodeKey(key, "put");
+        ConsistentHashRing.Route route = ring.route(encodedKey);
+        byte[] encodedValue = value == null ? new byte[0] : valueCodec.encode(value);
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_LENGTH + encodedValue.length)
+            .putLong(route.epoch())
+            .put((byte) (value == null ? 0 : 1))
+            .put(encodedValue);
+        try {
+            transport.put(route.nodeId(), encodedKey, frame.array());
+        } catch (IOException e) {
+            throw unreachable(route.nodeId(), e);
+        }
+    }
+
+    /**
+     * Removes a key from the node owning it.
+     *
+     * @param key the key
+     * @return true if the owner held the key, including a copy that is too old to be read
+     * @throws IllegalArgumentException if key is null
+     * @throws UncheckedIOException     if the owner cannot be reached
+     */
+    public boolean remove(K key) {
+        byte[] encodedKey = encodeKey(key, "remove");
+        String owner = ring.nodeFor(encodedKey);
+        try {
+            return transport.remove(owner, encodedKey);
+        } catch (IOException e) {
+            throw unreachable(owner, e);
+        }
+    }
+
+    /**
+     * Returns the node that owns a key.
+     *
+     * @param key the key
+     * @return the owner's identifier
+     * @throws IllegalArgumentException if key is null
+     */
+    public String ownerOf(K key) {
+        return ring.nodeFor(encodeKey(key, "ownerOf"));
+    }
+
+    /**
+     * Closes the transport.
+     */
+    @Override
+    public void close() {
+        transport.close();
+    }
+
+    private byte[] encodeKey(K key, String operation) {
+        if (key == null) {
+            logger.error("Attempted {} with null key on partitioned cache", operation);
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        return keyCodec.encode(key);
+    }
+
+    private static UncheckedIOException unreachable(String owner, IOException e) {
+        logger.error("Cache node {} is unreachable", owner, e);
+        return new UncheckedIOException("Cache node " + owner + " is unreachable", e);
+    }
+}
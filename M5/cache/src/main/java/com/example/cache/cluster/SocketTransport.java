@@ -0,0 +1,213 @@
+package com.example.cache.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Transport to {@link CacheServer} nodes over TCP. Connections are opened on demand and
+ * kept in a per-node pool of idle connections, so concurrent callers each get their own
+ * and a steady load reuses them. A connection that fails is closed rather than returned.
+ *
+ * @author Cache Team
+ * @version 1.0
+ * @since 1.5
+ */
+public final class SocketTransport implements CacheTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(SocketTransport.class);
+
+    private final ConcurrentHashMap<String, InetSocketAddress> addresses = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Queue<Connection>> idle = new ConcurrentHashMap<>();
+    private final int timeoutMillis;
+    private volatile boolean closed;
+
+    /**
+     * Creates a transport with a 2 second connect and read timeout.
+     */
+    public SocketTransport() {
+        this(Duration.ofSeconds(2));
+    }
+
+    /**
+     * Creates a transport.
+     *
+     * @param timeout the connect and read timeout
+     * @throws IllegalArgumentException if timeout is null or not positive
+     */
+    public SocketTransport(Duration timeout) {
+        if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+        this.timeoutMillis = (int) Math.min(Integer.MAX_VALUE, timeout.toMillis());
+    }
+
+    /**
+     * Registers the address of a node.
+     *
+     * @param nodeId  the node identifier
+     * @param address the address its server listens on
+     * @throws IllegalArgumentException if nodeId or address is null
+     */
+    public void addNode(String nodeId, InetSocketAddress address) {
+        if (nodeId == null || address == null) {
+            throw new IllegalArgumentException("Node id and address cannot be null");
+        }
+        addresses.put(nodeId, address);
+    }
+
+    /**
+     * Forgets a node and closes its idle connections.
+     *
+     * @param nodeId the node identifier
+     * @return true if the node was registered
+     */
+    public boolean removeNode(String nodeId) {
+        boolean removed = addresses.remove(nodeId) != null;
+        Queue<Connection> pool = idle.remove(nodeId);
+        if (pool != null) {
+            pool.forEach(Connection::close);
+        }
+        return removed;
+    }
+
+    @Override
+    public byte[] get(String nodeId, byte[] key) throws IOException {
+        Connection connection = borrow(nodeId);
+        try {
+            connection.out.writeByte(WireProtocol.GET);
+            WireProtocol.writeBytes(connection.out, key);
+            connection.send();
+            byte[] value = WireProtocol.readBytes(connection.in);
+            release(nodeId, connection);
+            return value;
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void put(String nodeId, byte[] key, byte[] value) throws IOException {
+        Connection connection = borrow(nodeId);
+        try {
+            connection.out.writeByte(WireProtocol.PUT);
+            WireProtocol.writeBytes(connection.out, key);
+            WireProtocol.writeBytes(connection.out, value);
+            connection.send();
+            release(nodeId, connection);
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean remove(String nodeId, byte[] key) throws IOException {
+        Connection connection = borrow(nodeId);
+        try {
+            connection.out.writeByte(WireProtocol.REMOVE);
+            WireProtocol.writeBytes(connection.out, key);
+            connection.send();
+            boolean removed = connection.in.readBoolean();
+            release(nodeId, connection);
+            return removed;
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes all idle connections. Connections in use are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Queue<Connection> pool : idle.values()) {
+            pool.forEach(Connection::close);
+            pool.clear();
+        }
+    }
+
+    private Connection borrow(String nodeId) throws IOException {
+        if (closed) {
+            throw new IOException("Transport is closed");
+        }
+        Queue<Connection> pool = idle.get(nodeId);
+        Connection connection = pool == null ? null : pool.poll();
+        if (connection != null) {
+            return connection;
+        }
+        InetSocketAddress address = addresses.get(nodeId);
+        if (address == null) {
+            throw new IOException("Unknown node: " + nodeId);
+        }
+        Socket socket = new Socket();
+        try {
+            socket.connect(address, timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            socket.setTcpNoDelay(true);
+            logger.debug("Opened connection to node {} at {}", nodeId, address);
+            return new Connection(socket);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private void release(String nodeId, Connection connection) {
+        if (closed || !addresses.containsKey(nodeId)) {
+            connection.close();
+            return;
+        }
+        idle.computeIfAbsent(nodeId, id -> new ConcurrentLinkedQueue<>()).add(connection);
+    }
+
+    /**
+     * One client socket with its buffered streams.
+     */
+    private static final class Connection {
+
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        /**
+         * Flushes the request and reads the status byte of the response.
+         *
+         * @throws IOException if the server reported an error
+         */
+        void send() throws IOException {
+            out.flush();
+            if (in.readByte() != WireProtocol.OK) {
+                throw new IOException("Server error: " + in.readUTF());
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close connection", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.cache.cluster;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Frames exchanged between {@link SocketTransport} and {@link CacheServer}.
+ *
+ * <p>A request is an operation byte followed by the key and, for PUT, the value. A
+ * response is a status byte followed, on success, by the value for GET or a presence
+ * byte for REMOVE, and on failure by a message. Byte arrays are sent as an int length
+ * and the bytes; a length of -1 stands for null.
+ */
+final class WireProtocol {
+
+    static final byte GET = 1;
+    static final byte PUT = 2;
+    static final byte REMOVE = 3;
+
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+
+    /** Longest byte array accepted, to fail fast on a corrupt or foreign stream */
+    static final int MAX_LENGTH = 64 * 1024 * 1024;
+
+    private WireProtocol() {
+    }
+
+    static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > MAX_LENGTH) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
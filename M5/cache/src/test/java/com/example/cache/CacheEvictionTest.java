@@ -0,0 +1,206 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for size- and weight-bounded caches.
+ */
+@DisplayName("Cache Eviction Tests")
+class CacheEvictionTest {
+
+    @Test
+    @DisplayName("Should keep the entry count at the maximum size")
+    void testMaximumSize() {
+        // Given
+        Cache<String, Integer> cache = Cache.<String, Integer>builder()
+            .maximumSize(100)
+            .recordStats()
+            .build();
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            cache.put("key" + i, i);
+        }
+
+        // Then
+        assertEquals(100, cache.size());
+        assertEquals(100, cache.weightedSize());
+        assertEquals(900, cache.stats().evictionCount());
+        assertEquals(999, cache.getOrNull("key999"));
+        assertNull(cache.getOrNull("key0"));
+    }
+
+    @Test
+    @DisplayName("Should give recently read entries a second chance")
+    void testRecentlyReadEntrySurvives() {
+        // Given
+        Cache<String, Integer> cache = Cache.<String, Integer>builder().maximumSize(3).build();
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+
+        // When - "a" is the oldest but was just read
+        cache.getOrNull("a");
+        cache.put("d", 4);
+
+        // Then - "b" is evicted instead
+        assertTrue(cache.containsKey("a"));
+        assertFalse(cache.containsKey("b"));
+        assertTrue(cache.containsKey("c"));
+        assertTrue(cache.containsKey("d"));
+    }
+
+    @Test
+    @DisplayName("Should keep the total weight under budget with a custom weigher")
+    void testMaximumWeightWithWeigher() {
+        // Given
+        Cache<String, byte[]> cache = Cache.<String, byte[]>builder()
+            .maximumWeight(10_000)
+            .weigher((String key, byte[] value) -> value.length)
+            .build();
+
+        // When - values between 50 bytes and 5 KB
+        for (int i = 0; i < 200; i++) {
+            cache.put("key" + i, new byte[i % 2 == 0 ? 50 : 5_000]);
+            assertTrue(cache.weightedSize() <= 10_000);
+        }
+
+        // Then
+        long expected = 0;
+        for (int i = 0; i < 200; i++) {
+            byte[] value = cache.getOrNull("key" + i);
+            if (value != null) {
+                expected += value.length;
+            }
+        }
+        assertEquals(expected, cache.weightedSize());
+    }
+
+    @Test
+    @DisplayName("Should estimate String and byte[] sizes when no weigher is given")
+    void testDefaultByteEstimate() {
+        Weigher<String, Object> weigher = Weigher.byteEstimate();
+        int small = weigher.weigh("k", new byte[10]);
+        int large = weigher.weigh("k", new byte[10_000]);
+        int text = weigher.weigh("k", "x".repeat(1_000));
+
+        assertTrue(large - small == 9_990);
+        assertTrue(text >= 2_000);
+
+        Cache<String, String> cache = Cache.<String, String>builder().maximumWeight(100_000).build();
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, "v".repeat(5_000));
+        }
+        assertTrue(cache.weightedSize() <= 100_000);
+        assertTrue(cache.size() < 10);
+    }
+
+    @Test
+    @DisplayName("Should evict an entry heavier than the whole budget immediately")
+    void testOversizedEntry() {
+        Cache<String, byte[]> cache = Cache.<String, byte[]>builder()
+            .maximumWeight(100)
+            .weigher((String key, byte[] value) -> value.length)
+            .build();
+        cache.put("small", new byte[10]);
+
+        cache.put("huge", new byte[1_000]);
+
+        assertFalse(cache.containsKey("huge"));
+        assertTrue(cache.containsKey("small"));
+        assertEquals(10, cache.weightedSize());
+    }
+
+    @Test
+    @DisplayName("Should track weight through replacement, removal and clear")
+    void testWeightAccounting() {
+        Cache<String, byte[]> cache = Cache.<String, byte[]>builder()
+            .maximumWeight(1_000)
+            .weigher((String key, byte[] value) -> value.length)
+            .build();
+
+        cache.put("a", new byte[100]);
+        cache.put("b", new byte[200]);
+        cache.put("a", new byte[50]);
+        assertEquals(250, cache.weightedSize());
+
+        cache.remove("b");
+        assertEquals(50, cache.weightedSize());
+
+        cache.clear();
+        assertEquals(0, cache.weightedSize());
+        assertTrue(cache.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should stay bounded when one key is rewritten many times")
+    void testRepeatedUpdates() {
+        Cache<String, Integer> cache = Cache.<String, Integer>builder().maximumSize(10).build();
+        for (int i = 0; i < 100_000; i++) {
+            cache.put("same", i);
+        }
+        for (int i = 0; i < 10; i++) {
+            cache.put("other" + i, i);
+        }
+
+        assertEquals(10, cache.size());
+        assertEquals(10, cache.weightedSize());
+    }
+
+    @Test
+    @DisplayName("Should respect the bound under concurrent writers")
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testConcurrentWriters() throws Exception {
+        // Given
+        Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder().maximumSize(500).build();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            // When
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int offset = t * 10_000;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        cache.put(offset + i, i);
+                        cache.getOrNull(offset + i / 2);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            // Then
+            assertEquals(500, cache.size());
+            assertEquals(500, cache.weightedSize());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject invalid bounds and negative weights")
+    void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> Cache.builder().maximumSize(-1));
+        assertThrows(IllegalStateException.class, () -> Cache.builder().maximumSize(10).maximumWeight(10));
+        assertThrows(IllegalStateException.class,
+            () -> Cache.<String, Integer>builder().weigher((k, v) -> 1).build());
+
+        Cache<String, Integer> cache = Cache.<String, Integer>builder()
+            .maximumWeight(10)
+            .weigher((k, v) -> -1)
+            .build();
+        assertThrows(IllegalArgumentException.class, () -> cache.put("key", 1));
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for expiry and refresh-ahead.
+ * Time is driven by a manual ticker so that no test has to sleep.
+ */
+@DisplayName("Cache Expiry Tests")
+class CacheExpiryTest {
+
+    private static final Duration TTL = Duration.ofSeconds(10);
+
+    private AtomicLong time;
+
+    @BeforeEach
+    void setUp() {
+        time = new AtomicLong();
+    }
+
+    private void advance(Duration duration) {
+        time.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    @DisplayName("Should treat entries as missing once they expire")
+    void testExpireAfterWrite() {
+        // Given
+        Cache<String, Integer> cache = Cache.<String, Integer>builder()
+            .expireAfterWrite(TTL)
+            .recordStats()
+            .ticker(time::get)
+            .build();
+        cache.put("key", 1);
+
+        // When & Then
+        advance(Duration.ofSeconds(9));
+        assertEquals(1, cache.getOrNull("key"));
+        assertTrue(cache.containsKey("key"));
+
+        advance(Duration.ofSeconds(1));
+        assertNull(cache.getOrNull("key"));
+        assertFalse(cache.containsKey("key"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.stats().evictionCount());
+    }
+
+    @Test
+    @DisplayName("Should restart the lifetime when a key is written again")
+    void testRewriteResetsLifetime() {
+        Cache<String, Integer> cache = Cache.<String, Integer>builder()
+            .expireAfterWrite(TTL)
+            .ticker(time::get)
+            .build();
+        cache.put("key", 1);
+
+        advance(Duration.ofSeconds(8));
+        cache.put("key", 2);
+        advance(Duration.ofSeconds(8));
+
+        assertEquals(2, cache.getOrNull("key"));
+    }
+
+    @Test
+    @DisplayName("Should sweep expired entries on cleanUp")
+    void testCleanUp() {
+        // Given
+        Cache<String, Integer> cache = Cache.<String, Integer>builder()
+            .expireAfterWrite(TTL)
+            .ticker(time::get)
+            .build();
+        cache.put("old1", 1);
+        cache.put("old2", 2);
+        advance(Duration.ofSeconds(6));
+        cache.put("fresh", 3);
+        advance(Duration.ofSeconds(5));
+
+        // When
+        int removed = cache.cleanUp();
+
+        // Then
+        assertEquals(2, removed);
+        assertEquals(1, cache.size());
+        assertNull(cache.remove("old1"));
+        assertEquals(3, cache.remove("fresh"));
+    }
+
+    @Test
+    @DisplayName("Should refresh hot entries before they expire without blocking readers")
+    void testRefreshAheadKeepsHotKeyWarm() {
+        // Given - refreshes run inline so that the test is deterministic
+        AtomicInteger loads = new AtomicInteger();
+        LoadingCache<String, Integer> cache = Cache.<String, Integer>builder()
+            .expireAfterWrite(TTL)
+            .refreshAhead(0.8)
+            .recordStats()
+            .executor(Runnable::run)
+            .ticker(time::get)
+            .build(key -> loads.incrementAndGet());
+
+        assertEquals(1, cache.getOrLoad("hot"));
+
+        // When - read the key every second across several lifetimes
+        for (int second = 1; second <= 50; second++) {
+            advance(Duration.ofSeconds(1));
+            assertNotNull(cache.getOrLoad("hot"));
+        }
+
+        // Then - the key never expired: only the initial read missed
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.missCount());
+        assertEquals(0, stats.evictionCount());
+        assertTrue(loads.get() >= 6, "expected a refresh roughly every 8 seconds");
+    }
+
+    @Test
+    @DisplayName("Should keep serving the current value while a refresh is pending")
+    void testStaleValueServedDuringRefresh() {
+        // Given - an executor that queues the refresh instead of running it
+        AtomicInteger loads = new AtomicInteger();
+        List<Runnable> queued = new ArrayList<>();
+        LoadingCache<String, Integer> cache = Cache.<String, Integer>builder()
+            .expireAfterWrite(TTL)
+            .refreshAhead(0.5)
+            .executor(queued::add)
+            .ticker(time::get)
+            .build(key -> loads.incrementAndGet());
+        cache.put("key", 100);
+
+        // When
+        advance(Duration.ofSeconds(6));
+        Integer first = cache.getOrNull("key");
+        Integer second = cache.getOrNull("key");
+
+        // Then - one refresh queued, readers see the old value until it runs
+        assertEquals(100, first);
+        assertEquals(100, second);
+        assertEquals(1, queued.size());
+        assertEquals(0, loads.get());
+
+        queued.get(0).run();
+        assertEquals(1, cache.getOrNull("key"));
+    }
+
+    @Test
+    @DisplayName("Should reject invalid expiry and refresh settings")
+    void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class,
+            () -> Cache.builder().expireAfterWrite(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class,
+            () -> Cache.builder().refreshAhead(1.0));
+        assertThrows(IllegalStateException.class,
+            () -> Cache.<String, Integer>builder().expireAfterWrite(TTL).refreshAhead(0.5).build());
+        assertThrows(IllegalStateException.class,
+            () -> Cache.<String, Integer>builder().refreshAhead(0.5).build(String::length));
+    }
+}
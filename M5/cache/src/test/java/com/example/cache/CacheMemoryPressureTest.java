@@ -0,0 +1,198 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Test cases for shedding entries under memory pressure.
+ */
+@DisplayName("Cache Memory Pressure Tests")
+class CacheMemoryPressureTest {
+
+    @Test
+    @DisplayName("Should shed the requested fraction of entries as evictions")
+    void testShed() {
+        // Given
+        Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+            .recordStats()
+            .removalEventQueue(1_000)
+            .build();
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(i, i);
+        }
+
+        // When
+        int shed = cache.shed(0.25);
+
+        // Then
+        assertEquals(250, shed);
+        assertEquals(750, cache.size());
+        assertEquals(250, cache.stats().evictionCount());
+        List<RemovalNotification<Integer, Integer>> events = new ArrayList<>();
+        cache.drainRemovalEvents(events, 1_000);
+        assertEquals(250, events.size());
+        for (RemovalNotification<Integer, Integer> event : events) {
+            assertEquals(RemovalCause.EVICTED, event.cause());
+            assertFalse(cache.containsKey(event.key()));
+        }
+    }
+
+    @Test
+    @DisplayName("Should shed the oldest entries of a bounded cache")
+    void testShedOldestFirst() {
+        // Given
+        Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder().maximumSize(100).build();
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i);
+        }
+
+        // When
+        cache.shed(0.5);
+
+        // Then
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i >= 50, cache.containsKey(i), "key " + i);
+        }
+        cache.put(100, 100);
+        assertEquals(51, cache.size());
+    }
+
+    @Test
+    @DisplayName("Should keep second-tier entries when shedding")
+    void testShedKeepsSecondTier() {
+        // Given
+        Cache<String, String> cache = Cache.<String, String>builder()
+            .maximumSize(10)
+            .secondTier(1024 * 1024, SnapshotCodec.utf8())
+            .build();
+        for (int i = 0; i < 30; i++) {
+            cache.put("key" + i, "value" + i);
+        }
+
+        // When
+        int shed = cache.shed(1.0);
+
+        // Then
+        assertEquals(10, shed);
+        assertEquals(20, cache.size());
+        assertEquals("value0", cache.getOrNull("key0"));
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    @DisplayName("Should shed when a collection leaves the old generation above the watermark")
+    void testShedOnCollection() throws InterruptedException {
+        // Needs a pool that reports occupancy after collections, and collections on request
+        assumeTrue(ManagementFactory.getMemoryPoolMXBeans().stream()
+                .anyMatch(pool -> pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()),
+            "no heap pool supports collection usage thresholds");
+        assumeFalse(ManagementFactory.getRuntimeMXBean().getInputArguments().contains("-XX:+DisableExplicitGC"),
+            "System.gc is disabled");
+
+        // Given - a watermark any live heap exceeds
+        Cache<Integer, byte[]> cache = Cache.<Integer, byte[]>builder()
+            .shedOnMemoryPressure(0.0001, 0.5)
+            .build();
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, new byte[1024]);
+        }
+
+        // When
+        while (cache.size() == 100) {
+            System.gc();
+            Thread.sleep(50);
+        }
+
+        // Then
+        assertTrue(cache.size() <= 50, "size " + cache.size());
+        cache.close();
+        int size = cache.size();
+        System.gc();
+        Thread.sleep(200);
+        assertEquals(size, cache.size());
+    }
+
+    @Test
+    @DisplayName("Should shed only when a pool's usage reaches the watermark")
+    void testShedOnUsage() {
+        // Given
+        Cache<Integer, Integer> cache = new Cache<>();
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i);
+        }
+        MemoryPressureMonitor monitor = new MemoryPressureMonitor(cache, 0.5, 0.5, false);
+
+        try {
+            // When - below the watermark, or a pool without a maximum
+            monitor.onUsage("test", new MemoryUsage(0, 40, 100, 100));
+            monitor.onUsage("test", new MemoryUsage(0, 60, 100, -1));
+
+            // Then
+            assertEquals(100, cache.size());
+
+            // When - at the watermark
+            monitor.onUsage("test", new MemoryUsage(0, 50, 100, 100));
+
+            // Then
+            assertEquals(50, cache.size());
+        } finally {
+            monitor.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should give back pool thresholds once no open monitor needs them")
+    void testCloseRestoresThresholds() {
+        // Given
+        List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()
+                && pool.getUsage().getMax() > 0)
+            .toList();
+        assumeFalse(pools.isEmpty(), "no heap pool supports usage thresholds");
+        List<Long> before = pools.stream().map(MemoryPoolMXBean::getUsageThreshold).toList();
+        Cache<Integer, Integer> cache = new Cache<>();
+
+        // When
+        MemoryPressureMonitor high = new MemoryPressureMonitor(cache, 0.9, 0.5);
+        MemoryPressureMonitor low = new MemoryPressureMonitor(cache, 0.8, 0.5);
+        List<Long> lowered = pools.stream().map(MemoryPoolMXBean::getUsageThreshold).toList();
+        low.close();
+
+        // Then - the remaining monitor keeps its own threshold, the last one restores the original
+        for (int i = 0; i < pools.size(); i++) {
+            MemoryPoolMXBean pool = pools.get(i);
+            long max = pool.getUsage().getMax();
+            assertTrue(lowered.get(i) <= (long) (max * 0.8), pool.getName());
+            long expected = before.get(i) != 0 && before.get(i) < (long) (max * 0.9) ? before.get(i) : (long) (max * 0.9);
+            assertEquals(expected, pool.getUsageThreshold(), pool.getName());
+        }
+        high.close();
+        assertEquals(before, pools.stream().map(MemoryPoolMXBean::getUsageThreshold).toList());
+    }
+
+    @Test
+    @DisplayName("Should reject invalid memory pressure settings")
+    void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> Cache.builder().shedOnMemoryPressure(0, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> Cache.builder().shedOnMemoryPressure(1, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> Cache.builder().shedOnMemoryPressure(0.8, 0));
+        assertThrows(IllegalArgumentException.class, () -> Cache.builder().shedOnMemoryPressure(0.8, 1.5));
+        Cache<String, Integer> cache = new Cache<>();
+        assertThrows(IllegalArgumentException.class, () -> cache.shed(0));
+        assertThrows(IllegalArgumentException.class, () -> cache.shed(Double.NaN));
+        assertEquals(0, cache.shed(1.0));
+    }
+}
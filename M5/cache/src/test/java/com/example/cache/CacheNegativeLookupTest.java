@@ -0,0 +1,285 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the negative lookup guard.
+ */
+@DisplayName("Cache Negative Lookup Tests")
+class CacheNegativeLookupTest {
+
+    @Test
+    @DisplayName("Should find every stored key and miss absent ones")
+    void testNoFalseNegatives() {
+        // Given - far more keys than the filter is first sized for
+        Cache<String, Integer> cache = Cache.<String, Integer>builder()
+            .negativeLookupGuard(64)
+            .recordStats()
+            .build();
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            cache.put("key" + i, i);
+        }
+
+        // Then
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, cache.getOrNull("key" + i));
+        }
+        for (int i = 0; i < 1_000; i++) {
+            assertNull(cache.getOrNull("absent" + i));
+        }
+        assertEquals(10_000, cache.stats().hitCount());
+        assertEquals(1_000, cache.stats().missCount());
+    }
+
+    @Test
+    @DisplayName("Should miss removed keys and find them again after a new put")
+    void testRemoveAndPutAgain() {
+        // Given
+        Cache<String, Integer> cache = Cache.<String, Integer>builder().negativeLookupGuard(100).build();
+        cache.put("key", 1);
+
+        // When
+        cache.remove("key");
+
+        // Then
+        assertFalse(cache.containsKey("key"));
+        cache.put("key", 2);
+        assertEquals(2, cache.getOrNull("key"));
+    }
+
+    @Test
+    @DisplayName("Should remember known-absent keys until they are put")
+    void testKnownAbsent() {
+        // Given
+        Cache<String, Integer> cache = Cache.<String, Integer>builder().negativeLookupGuard(100).build();
+
+        // When
+        cache.markAbsent("missing");
+
+        // Then
+        assertTrue(cache.isKnownAbsent("missing"));
+        assertFalse(cache.isKnownAbsent("other"));
+        cache.put("missing", 1);
+        assertFalse(cache.isKnownAbsent("missing"));
+        cache.markAbsent("gone");
+        cache.clear();
+        assertFalse(cache.isKnownAbsent("gone"));
+    }
+
+    @Test
+    @DisplayName("Should expire known-absent keys with the entry lifetime")
+    void testKnownAbsentExpires() {
+        // Given
+        AtomicLong time = new AtomicLong();
+        Cache<String, Integer> cache = Cache.<String, Integer>builder()
+            .negativeLookupGuard(100)
+            .expireAfterWrite(Duration.ofSeconds(10))
+            .ticker(time::get)
+            .build();
+        cache.markAbsent("missing");
+
+        // When
+        time.addAndGet(TimeUnit.SECONDS.toNanos(11));
+
+        // Then
+        assertFalse(cache.isKnownAbsent("missing"));
+    }
+
+    @Test
+    @DisplayName("Should bound the number of known-absent keys")
+    void testKnownAbsentBounded() {
+        // Given
+        Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder().negativeLookupGuard(50).build();
+
+        // When
+        for (int i = 0; i < 500; i++) {
+            cache.markAbsent(i);
+        }
+
+        // Then
+        int known = 0;
+        for (int i = 0; i < 500; i++) {
+            if (cache.isKnownAbsent(i)) {
+                known++;
+            }
+        }
+        assertTrue(known <= 50, "known-absent keys: " + known);
+        assertTrue(cache.isKnownAbsent(499));
+    }
+
+    @Test
+    @DisplayName("Should ignore absent marks without a guard")
+    void testWithoutGuard() {
+        // Given
+        Cache<String, Integer> cache = new Cache<>();
+
+        // When
+        cache.markAbsent("missing");
+
+        // Then
+        assertFalse(cache.isKnownAbsent("missing"));
+        assertThrows(IllegalArgumentException.class, () -> cache.markAbsent(null));
+        assertThrows(IllegalArgumentException.class, () -> cache.isKnownAbsent(null));
+        assertThrows(IllegalArgumentException.class, () -> Cache.builder().negativeLookupGuard(0));
+    }
+
+    @Test
+    @DisplayName("Should not call the loader again for a known-absent key")
+    void testLoaderSkipsKnownAbsent() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        LoadingCache<String, String> cache = Cache.<String, String>builder()
+            .negativeLookupGuard(100)
+            .build(key -> {
+                loads.incrementAndGet();
+                return key.startsWith("missing") ? null : key.toUpperCase();
+            });
+
+        // When
+        assertNull(cache.getOrLoad("missing"));
+        assertNull(cache.getOrLoad("missing"));
+        assertNull(cache.getOrLoadAsync("missing").join());
+
+        // Then
+        assertEquals(1, loads.get());
+        assertTrue(cache.isKnownAbsent("missing"));
+        assertEquals("FOUND", cache.getOrLoad("found"));
+    }
+
+    @Test
+    @DisplayName("Should find demoted keys through the guard")
+    void testWithSecondTier() {
+        // Given
+        Cache<String, String> cache = Cache.<String, String>builder()
+            .maximumSize(10)
+            .secondTier(1024 * 1024, SnapshotCodec.utf8())
+            .negativeLookupGuard(16)
+            .build();
+
+        // When
+        for (int i = 0; i < 200; i++) {
+            cache.put("key" + i, "value" + i);
+        }
+
+        // Then
+        for (int i = 0; i < 200; i++) {
+            assertEquals("value" + i, cache.getOrNull("key" + i));
+        }
+        assertNull(cache.getOrNull("absent"));
+    }
+
+    @Test
+    @DisplayName("Should add filter stages as keys grow and retire them as keys leave")
+    void testStagesGrowAndRetire() {
+        // Given
+        NegativeLookupGuard<Integer> guard = new NegativeLookupGuard<>(100, () -> 0, 0);
+        List<CountingBloomFilter> stages = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            stages.add(guard.add(i));
+        }
+
+        // Then
+        assertTrue(guard.stageCount() > 1);
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(guard.mightContain(i));
+        }
+        for (int i = 0; i < 1_000; i++) {
+            guard.remove(i, stages.get(i));
+        }
+        assertEquals(1, guard.stageCount());
+    }
+
+    @Test
+    @DisplayName("Should saturate counters instead of wrapping around")
+    void testCounterSaturation() {
+        // Given
+        CountingBloomFilter filter = new CountingBloomFilter(1_000);
+
+        // When - the same hash added more often than a counter can count
+        for (int i = 0; i < 300; i++) {
+            assertTrue(filter.tryAdd(42));
+        }
+        for (int i = 0; i < 299; i++) {
+            filter.remove(42);
+        }
+
+        // Then
+        assertTrue(filter.mightContain(42));
+    }
+
+    @Test
+    @DisplayName("Should refuse keys beyond capacity and after retirement")
+    void testFilterCapacityAndRetirement() {
+        // Given
+        CountingBloomFilter filter = new CountingBloomFilter(2);
+
+        // When
+        assertTrue(filter.tryAdd(1));
+        assertTrue(filter.tryAdd(2));
+
+        // Then
+        assertFalse(filter.tryAdd(3));
+        assertFalse(filter.retire());
+        filter.remove(1);
+        assertTrue(filter.remove(2));
+        assertFalse(filter.mightContain(1));
+        assertTrue(filter.retire());
+        assertFalse(filter.tryAdd(4));
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    @DisplayName("Should never deny a key its own thread just stored")
+    void testConcurrentUpdates() throws Exception {
+        // Given
+        Cache<String, Integer> cache = Cache.<String, Integer>builder().negativeLookupGuard(32).build();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When - each thread owns its keys, while all of them grow and shrink the filter
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    String key = thread + ":" + (i % 2_000);
+                    cache.put(key, i);
+                    assertEquals(i, cache.getOrNull(key));
+                    if (i % 3 == 0) {
+                        cache.remove(key);
+                        assertNull(cache.getOrNull(key));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        for (int t = 0; t < 8; t++) {
+            for (int i = 18_000; i < 20_000; i++) {
+                String key = t + ":" + (i % 2_000);
+                assertEquals(i % 3 == 0 ? null : Integer.valueOf(i), cache.getOrNull(key));
+            }
+        }
+    }
+}
@@ -198,4 +198,23 @@ class CacheNegativeTest {
         assertEquals(3, cache.get("c").orElse(-1));
         assertEquals(4, cache.get("d").orElse(-1));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should throw IllegalArgumentException for null keys in allocation-free accessors")
+    void testAllocationFreeAccessorsNullKey() {
+        assertThrows(IllegalArgumentException.class, () -> cache.getOrNull(null));
+        assertThrows(IllegalArgumentException.class, () -> cache.getOrDefault(null, 1));
+        assertThrows(IllegalArgumentException.class,
+            () -> cache.getAll(new String[] {"a", null}, new Integer[2]));
+    }
+
+    @Test
+    @DisplayName("Should reject a values array shorter than the keys array")
+    void testGetAllShortValuesArray() {
+        IllegalArgumentException exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> cache.getAll(new String[] {"a", "b"}, new Integer[1])
+        );
+        assertEquals("Values array must be at least as long as keys array", exception.getMessage());
+    }
+}
@@ -189,4 +189,48 @@ class CachePositiveTest {
         Optional<Integer> result = stringIntegerCache.get(key);
         assertFalse(result.isPresent()); // Optional should be empty for null values
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should return values or null from getOrNull")
+    void testGetOrNull() {
+        // Given
+        stringIntegerCache.put("present", 5);
+
+        // When & Then
+        assertEquals(5, stringIntegerCache.getOrNull("present"));
+        assertNull(stringIntegerCache.getOrNull("absent"));
+    }
+
+    @Test
+    @DisplayName("Should fall back to the default value for missing and null-valued keys")
+    void testGetOrDefault() {
+        // Given
+        stringIntegerCache.put("present", 5);
+        stringIntegerCache.put("nullValue", null);
+
+        // When & Then
+        assertEquals(5, stringIntegerCache.getOrDefault("present", -1));
+        assertEquals(-1, stringIntegerCache.getOrDefault("absent", -1));
+        assertEquals(-1, stringIntegerCache.getOrDefault("nullValue", -1));
+    }
+
+    @Test
+    @DisplayName("Should fill the caller-provided array in bulk lookups")
+    void testGetAll() {
+        // Given
+        stringIntegerCache.put("a", 1);
+        stringIntegerCache.put("c", 3);
+        String[] keys = {"a", "b", "c"};
+        Integer[] values = {99, 99, 99, 99};
+
+        // When
+        int hits = stringIntegerCache.getAll(keys, values);
+
+        // Then
+        assertEquals(2, hits);
+        assertEquals(1, values[0]);
+        assertNull(values[1]);
+        assertEquals(3, values[2]);
+        assertEquals(99, values[3]); // Slots beyond the keys are untouched
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for removal listeners and the removal event queue.
+ */
+@DisplayName("Cache Removal Listener Tests")
+class CacheRemovalListenerTest {
+
+    private static Cache<String, Integer> queued() {
+        return Cache.<String, Integer>builder().removalEventQueue(100).build();
+    }
+
+    private static List<RemovalNotification<String, Integer>> drain(Cache<String, Integer> cache) {
+        List<RemovalNotification<String, Integer>> events = new ArrayList<>();
+        cache.drainRemovalEvents(events, Integer.MAX_VALUE);
+        return events;
+    }
+
+    @Test
+    @DisplayName("Should report explicit removals, replacements and clears")
+    void testExplicitCauses() {
+        // Given
+        Cache<String, Integer> cache = queued();
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        // When
+        cache.put("a", 10);
+        cache.remove("b");
+        cache.clear();
+
+        // Then
+        assertEquals(List.of(
+            new RemovalNotification<>("a", 1, RemovalCause.REPLACED),
+            new RemovalNotification<>("b", 2, RemovalCause.EXPLICIT),
+            new RemovalNotification<>("a", 10, RemovalCause.EXPLICIT)), drain(cache));
+        assertTrue(drain(cache).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should report expired entries")
+    void testExpired() {
+        // Given
+        AtomicLong time = new AtomicLong();
+        Cache<String, Integer> cache = Cache.<String, Integer>builder()
+            .expireAfterWrite(Duration.ofSeconds(10))
+            .ticker(time::get)
+            .removalEventQueue(100)
+            .recordStats()
+            .build();
+        cache.put("a", 1);
+        cache.put("b", 2);
+        time.addAndGet(TimeUnit.SECONDS.toNanos(11));
+
+        // When
+        assertNull(cache.getOrNull("a"));
+        cache.cleanUp();
+
+        // Then
+        assertEquals(List.of(
+            new RemovalNotification<>("a", 1, RemovalCause.EXPIRED),
+            new RemovalNotification<>("b", 2, RemovalCause.EXPIRED)), drain(cache));
+        assertEquals(2, cache.stats().evictionCount());
+        assertTrue(RemovalCause.EXPIRED.wasEvicted());
+        assertFalse(RemovalCause.EXPLICIT.wasEvicted());
+    }
+
+    @Test
+    @DisplayName("Should report an expired entry overwritten by a put as expired")
+    void testPutOverExpired() {
+        // Given
+        AtomicLong time = new AtomicLong();
+        Cache<String, Integer> cache = Cache.<String, Integer>builder()
+            .expireAfterWrite(Duration.ofSeconds(10))
+            .ticker(time::get)
+            .removalEventQueue(100)
+            .build();
+        cache.put("a", 1);
+        cache.put("a", 2);
+        time.addAndGet(TimeUnit.SECONDS.toNanos(11));
+
+        // When
+        cache.put("a", 3);
+
+        // Then
+        assertEquals(List.of(
+            new RemovalNotification<>("a", 1, RemovalCause.REPLACED),
+            new RemovalNotification<>("a", 2, RemovalCause.EXPIRED)), drain(cache));
+        assertEquals(3, cache.getOrNull("a"));
+    }
+
+    @Test
+    @DisplayName("Should report entries evicted by the size bound")
+    void testSizeEviction() {
+        // Given
+        Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+            .maximumSize(10)
+            .removalEventQueue(100)
+            .build();
+
+        // When
+        for (int i = 0; i < 30; i++) {
+            cache.put(i, i);
+        }
+
+        // Then
+        List<RemovalNotification<Integer, Integer>> events = new ArrayList<>();
+        cache.drainRemovalEvents(events, 100);
+        assertEquals(20, events.size());
+        for (RemovalNotification<Integer, Integer> event : events) {
+            assertEquals(RemovalCause.SIZE, event.cause());
+            assertEquals(event.key(), event.value());
+            assertFalse(cache.containsKey(event.key()));
+        }
+    }
+
+    @Test
+    @DisplayName("Should not report demotion to the second tier, only removal from it")
+    void testSecondTier() {
+        // Given
+        Cache<String, String> cache = Cache.<String, String>builder()
+            .maximumSize(2)
+            .secondTier(1024 * 1024, SnapshotCodec.utf8())
+            .removalEventQueue(100)
+            .build();
+        for (int i = 0; i < 10; i++) {
+            cache.put("key" + i, "value" + i);
+        }
+        List<RemovalNotification<String, String>> events = new ArrayList<>();
+        cache.drainRemovalEvents(events, 100);
+        assertTrue(events.isEmpty());
+
+        // When
+        cache.remove("key0");
+        cache.clear();
+
+        // Then - values still on heap are reported, the cleared second tier has none
+        cache.drainRemovalEvents(events, 100);
+        assertEquals(new RemovalNotification<>("key0", "value0", RemovalCause.EXPLICIT), events.get(0));
+        assertEquals(10, events.size());
+        for (RemovalNotification<String, String> event : events) {
+            assertEquals(RemovalCause.EXPLICIT, event.cause());
+        }
+    }
+
+    @Test
+    @DisplayName("Should report a second-tier value replaced by a put")
+    void testReplaceInSecondTier() {
+        // Given - key0 is demoted to the second tier
+        Cache<String, String> cache = Cache.<String, String>builder()
+            .maximumSize(2)
+            .secondTier(1024 * 1024, SnapshotCodec.utf8())
+            .removalEventQueue(100)
+            .build();
+        for (int i = 0; i < 3; i++) {
+            cache.put("key" + i, "value" + i);
+        }
+
+        // When
+        cache.put("key0", "updated");
+
+        // Then
+        List<RemovalNotification<String, String>> events = new ArrayList<>();
+        cache.drainRemovalEvents(events, 100);
+        assertTrue(events.contains(new RemovalNotification<>("key0", "value0", RemovalCause.REPLACED)), events.toString());
+        assertEquals("updated", cache.get("key0").orElseThrow());
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    @DisplayName("Should deliver notifications to the listener off the writing thread")
+    void testListener() throws InterruptedException {
+        // Given
+        ConcurrentLinkedQueue<String> threads = new ConcurrentLinkedQueue<>();
+        CountDownLatch delivered = new CountDownLatch(2);
+        Cache<String, Integer> cache = Cache.<String, Integer>builder()
+            .removalListener(notification -> {
+                threads.add(Thread.currentThread().getName());
+                if (notification.key().equals("fail")) {
+                    throw new IllegalStateException("listener failure");
+                }
+                delivered.countDown();
+            })
+            .build();
+
+        // When
+        cache.put("fail", 0);
+        cache.remove("fail");
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.remove("a");
+        cache.remove("b");
+        cache.put("c", 3);
+        cache.close();
+
+        // Then - the failing notification did not stop the ones after it
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertFalse(threads.contains(Thread.currentThread().getName()));
+        assertThrows(IllegalStateException.class, () -> cache.drainRemovalEvents(new ArrayList<>(), 1));
+    }
+
+    @Test
+    @DisplayName("Should drop and count notifications when the queue is full")
+    void testDropped() {
+        // Given
+        Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder().removalEventQueue(5).build();
+
+        // When
+        for (int i = 0; i < 8; i++) {
+            cache.put(i, i);
+            cache.remove(i);
+        }
+
+        // Then
+        List<RemovalNotification<Integer, Integer>> events = new ArrayList<>();
+        assertEquals(5, cache.drainRemovalEvents(events, 100));
+        assertEquals(0, events.get(0).key());
+        assertEquals(3, cache.droppedRemovalEvents());
+    }
+
+    @Test
+    @DisplayName("Should reject invalid removal settings")
+    void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> Cache.<String, Integer>builder().removalListener(null));
+        assertThrows(IllegalArgumentException.class, () -> Cache.<String, Integer>builder().removalEventQueue(0));
+        Cache<String, Integer> cache = new Cache<>();
+        assertThrows(IllegalStateException.class, () -> cache.drainRemovalEvents(new ArrayList<>(), 1));
+        assertThrows(IllegalArgumentException.class, () -> queued().drainRemovalEvents(null, 1));
+        assertEquals(0, cache.droppedRemovalEvents());
+    }
+}
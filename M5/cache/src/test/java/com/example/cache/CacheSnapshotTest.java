@@ -0,0 +1,158 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for writing cache snapshots and warm-starting from them.
+ */
+@DisplayName("Cache Snapshot Tests")
+class CacheSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should restore all entries into a new cache")
+    void testWriteAndLoad() throws IOException {
+        // Given
+        Path file = tempDir.resolve("cache.snapshot");
+        Cache<String, Integer> source = new Cache<>();
+        for (int i = 0; i < 1000; i++) {
+            source.put("key" + i, i);
+        }
+
+        // When
+        int written = source.writeSnapshot(file, SnapshotCodec.utf8(), SnapshotCodec.integers());
+        Cache<String, Integer> restored = new Cache<>();
+        int loaded = restored.loadSnapshot(file, SnapshotCodec.utf8(), SnapshotCodec.integers());
+
+        // Then
+        assertEquals(1000, written);
+        assertEquals(1000, loaded);
+        assertEquals(1000, restored.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, restored.getOrNull("key" + i));
+        }
+    }
+
+    @Test
+    @DisplayName("Should round-trip byte arrays, longs and non-ASCII strings")
+    void testBuiltInCodecs() throws IOException {
+        Path file = tempDir.resolve("bytes.snapshot");
+        Cache<Long, byte[]> source = new Cache<>();
+        source.put(1L, new byte[] {1, 2, 3});
+        source.put(2L, new byte[0]);
+        source.writeSnapshot(file, SnapshotCodec.longs(), SnapshotCodec.bytes());
+
+        Cache<Long, byte[]> restored = new Cache<>();
+        restored.loadSnapshot(file, SnapshotCodec.longs(), SnapshotCodec.bytes());
+
+        assertArrayEquals(new byte[] {1, 2, 3}, restored.getOrNull(1L));
+        assertArrayEquals(new byte[0], restored.getOrNull(2L));
+
+        Path stringFile = tempDir.resolve("strings.snapshot");
+        Cache<String, String> strings = new Cache<>();
+        strings.put("grüße", "héllo wörld");
+        strings.writeSnapshot(stringFile, SnapshotCodec.utf8(), SnapshotCodec.utf8());
+        Cache<String, String> restoredStrings = new Cache<>();
+        restoredStrings.loadSnapshot(stringFile, SnapshotCodec.utf8(), SnapshotCodec.utf8());
+        assertEquals("héllo wörld", restoredStrings.getOrNull("grüße"));
+    }
+
+    @Test
+    @DisplayName("Should skip null values and keep existing keys on load")
+    void testNullValuesAndExistingKeys() throws IOException {
+        // Given
+        Path file = tempDir.resolve("cache.snapshot");
+        Cache<String, Integer> source = new Cache<>();
+        source.put("a", 1);
+        source.put("b", 2);
+        source.put("nullValue", null);
+        source.writeSnapshot(file, SnapshotCodec.utf8(), SnapshotCodec.integers());
+
+        Cache<String, Integer> target = new Cache<>();
+        target.put("a", 100);
+
+        // When
+        int loaded = target.loadSnapshot(file, SnapshotCodec.utf8(), SnapshotCodec.integers());
+
+        // Then
+        assertEquals(1, loaded);
+        assertEquals(100, target.getOrNull("a"));
+        assertEquals(2, target.getOrNull("b"));
+        assertFalse(target.containsKey("nullValue"));
+    }
+
+    @Test
+    @DisplayName("Should preserve the remaining lifetime of expiring entries")
+    void testRemainingLifetimePreserved() throws IOException {
+        // Given
+        AtomicLong time = new AtomicLong();
+        Path file = tempDir.resolve("ttl.snapshot");
+        Cache<String, Integer> source = Cache.<String, Integer>builder()
+            .expireAfterWrite(Duration.ofSeconds(10))
+            .ticker(time::get)
+            .build();
+        source.put("old", 1);
+        time.addAndGet(Duration.ofSeconds(8).toNanos());
+        source.put("young", 2);
+        source.writeSnapshot(file, SnapshotCodec.utf8(), SnapshotCodec.integers());
+
+        // When
+        Cache<String, Integer> restored = Cache.<String, Integer>builder()
+            .expireAfterWrite(Duration.ofSeconds(10))
+            .ticker(time::get)
+            .build();
+        restored.loadSnapshot(file, SnapshotCodec.utf8(), SnapshotCodec.integers());
+        time.addAndGet(Duration.ofSeconds(3).toNanos());
+
+        // Then - "old" is 11 seconds old now, "young" only 3
+        assertNull(restored.getOrNull("old"));
+        assertEquals(2, restored.getOrNull("young"));
+    }
+
+    @Test
+    @DisplayName("Should reject files that are not snapshots")
+    void testInvalidFile() throws IOException {
+        Path file = tempDir.resolve("garbage.snapshot");
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13});
+        Cache<String, Integer> cache = new Cache<>();
+
+        assertThrows(IOException.class,
+            () -> cache.loadSnapshot(file, SnapshotCodec.utf8(), SnapshotCodec.integers()));
+        assertThrows(IOException.class,
+            () -> cache.loadSnapshot(tempDir.resolve("missing"), SnapshotCodec.utf8(), SnapshotCodec.integers()));
+        assertThrows(IllegalArgumentException.class,
+            () -> cache.writeSnapshot(null, SnapshotCodec.utf8(), SnapshotCodec.integers()));
+    }
+
+    @Test
+    @DisplayName("Should detect a truncated snapshot")
+    void testTruncatedFile() throws IOException {
+        // Given
+        Path file = tempDir.resolve("cache.snapshot");
+        Cache<String, Integer> source = new Cache<>();
+        source.put("a", 1);
+        source.put("b", 2);
+        source.writeSnapshot(file, SnapshotCodec.utf8(), SnapshotCodec.integers());
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        // When & Then
+        Cache<String, Integer> cache = new Cache<>();
+        IOException exception = assertThrows(IOException.class,
+            () -> cache.loadSnapshot(file, SnapshotCodec.utf8(), SnapshotCodec.integers()));
+        assertTrue(exception.getMessage().startsWith("Truncated cache snapshot"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for cache statistics.
+ * These tests verify that hits, misses and loads are counted only when statistics are enabled.
+ */
+@DisplayName("Cache Statistics Tests")
+class CacheStatsTest {
+
+    @Test
+    @DisplayName("Should count hits and misses across read methods")
+    void testHitAndMissCounts() {
+        // Given
+        Cache<String, Integer> cache = Cache.<String, Integer>builder().recordStats().build();
+        cache.put("a", 1);
+
+        // When
+        cache.get("a");
+        cache.getOrNull("a");
+        cache.getOrDefault("missing", 0);
+        cache.getAll(new String[] {"a", "b"}, new Integer[2]);
+
+        // Then
+        CacheStats stats = cache.stats();
+        assertEquals(3, stats.hitCount());
+        assertEquals(2, stats.missCount());
+        assertEquals(5, stats.requestCount());
+        assertEquals(0.6, stats.hitRate(), 1e-9);
+        assertEquals(0.4, stats.missRate(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should count loads, failures and load time in a loading cache")
+    void testLoadCounts() {
+        // Given
+        LoadingCache<String, Integer> cache = Cache.<String, Integer>builder()
+            .recordStats()
+            .build(key -> {
+                if (key.isEmpty()) {
+                    throw new IllegalArgumentException("empty key");
+                }
+                return key.length();
+            });
+
+        // When
+        cache.getOrLoad("abc");
+        cache.getOrLoad("abc");
+        assertThrows(IllegalArgumentException.class, () -> cache.getOrLoad(""));
+
+        // Then
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(2, stats.missCount());
+        assertEquals(1, stats.loadSuccessCount());
+        assertEquals(1, stats.loadFailureCount());
+        assertEquals(2, stats.loadCount());
+        assertTrue(stats.totalLoadTimeNanos() > 0);
+        assertTrue(stats.averageLoadPenaltyNanos() > 0);
+    }
+
+    @Test
+    @DisplayName("Should count a load once when storing its value fails")
+    void testLoadCountedOnceWhenStoreFails() {
+        // Given - the weigher rejects every value the loader returns
+        LoadingCache<String, Integer> cache = Cache.<String, Integer>builder()
+            .recordStats()
+            .maximumWeight(100)
+            .weigher((key, value) -> {
+                throw new IllegalStateException("weigher failure");
+            })
+            .build(String::length);
+
+        // When
+        assertThrows(IllegalStateException.class, () -> cache.getOrLoad("abc"));
+
+        // Then
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.loadSuccessCount());
+        assertEquals(0, stats.loadFailureCount());
+    }
+
+    @Test
+    @DisplayName("Should report empty statistics when recording is disabled")
+    void testDisabledStats() {
+        // Given
+        Cache<String, Integer> cache = new Cache<>();
+        cache.put("a", 1);
+
+        // When
+        cache.get("a");
+        cache.get("b");
+
+        // Then
+        assertEquals(CacheStats.empty(), cache.stats());
+        assertEquals(1.0, cache.stats().hitRate());
+        assertEquals(0.0, cache.stats().averageLoadPenaltyNanos());
+    }
+}
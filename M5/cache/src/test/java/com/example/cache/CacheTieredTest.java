@@ -0,0 +1,255 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for caches with an off-heap second tier.
+ */
+@DisplayName("Cache Tiered Tests")
+class CacheTieredTest {
+
+    private static Cache<String, String> tieredCache(int maximumSize, long capacityBytes) {
+        return Cache.<String, String>builder()
+            .maximumSize(maximumSize)
+            .secondTier(capacityBytes, SnapshotCodec.utf8())
+            .recordStats()
+            .build();
+    }
+
+    @Test
+    @DisplayName("Should demote evicted entries and keep them readable")
+    void testDemotedEntriesStayReadable() {
+        // Given
+        Cache<String, String> cache = tieredCache(10, 1024 * 1024);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, "value" + i);
+        }
+
+        // Then
+        assertEquals(100, cache.size());
+        assertEquals(10, cache.weightedSize());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("value" + i, cache.getOrNull("key" + i));
+        }
+        assertEquals(0, cache.stats().evictionCount());
+        assertEquals(100, cache.stats().hitCount());
+    }
+
+    @Test
+    @DisplayName("Should promote a second-tier hit back on-heap")
+    void testPromotion() {
+        // Given
+        Cache<String, String> cache = tieredCache(2, 1024 * 1024);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+
+        // When - "a" was demoted and is read again
+        Optional<String> value = cache.get("a");
+
+        // Then - it is on-heap again and the on-heap bound still holds
+        assertEquals(Optional.of("1"), value);
+        assertEquals(2, cache.weightedSize());
+        assertEquals(3, cache.size());
+        assertEquals("2", cache.getOrNull("b"));
+        assertEquals("3", cache.getOrNull("c"));
+    }
+
+    @Test
+    @DisplayName("Should overwrite and remove demoted values in both tiers")
+    void testPutAndRemoveCoverSecondTier() {
+        // Given
+        Cache<String, String> cache = tieredCache(1, 1024 * 1024);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+
+        // When
+        cache.put("a", "updated");
+        String removed = cache.remove("b");
+
+        // Then
+        assertEquals("updated", cache.getOrNull("a"));
+        assertEquals("2", removed);
+        assertFalse(cache.containsKey("b"));
+        assertEquals("3", cache.getOrNull("c"));
+    }
+
+    @Test
+    @DisplayName("Should clear both tiers")
+    void testClear() {
+        // Given
+        Cache<String, String> cache = tieredCache(2, 1024 * 1024);
+        for (int i = 0; i < 10; i++) {
+            cache.put("key" + i, "value" + i);
+        }
+
+        // When
+        cache.clear();
+
+        // Then
+        assertTrue(cache.isEmpty());
+        assertEquals(0, cache.size());
+        assertNull(cache.getOrNull("key0"));
+    }
+
+    @Test
+    @DisplayName("Should evict the oldest demoted entries when the second tier wraps")
+    void testSecondTierWraps() {
+        // Given - room for about ten 10-byte values in the second tier
+        Cache<String, String> cache = tieredCache(5, 100);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, String.format("value%05d", i));
+        }
+
+        // Then
+        assertNull(cache.getOrNull("key0"));
+        assertEquals("value00099", cache.getOrNull("key99"));
+        assertEquals("value00090", cache.getOrNull("key90"));
+        assertTrue(cache.stats().evictionCount() >= 70);
+    }
+
+    @Test
+    @DisplayName("Should round-trip values through a compressed second tier")
+    void testCompressedSecondTier() {
+        // Given
+        Cache<String, String> cache = Cache.<String, String>builder()
+            .maximumSize(1)
+            .secondTier(64 * 1024, SnapshotCodec.utf8())
+            .compressSecondTier()
+            .build();
+        String large = "abcdefgh".repeat(4096);
+
+        // When - 32 KB values that only fit the 64 KB tier compressed
+        for (int i = 0; i < 20; i++) {
+            cache.put("key" + i, i + large);
+        }
+
+        // Then
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i + large, cache.getOrNull("key" + i));
+        }
+    }
+
+    @Test
+    @DisplayName("Should back the second tier with a mapped file")
+    void testMappedFileSecondTier(@TempDir Path dir) throws Exception {
+        // Given
+        Path file = dir.resolve("tier.bin");
+        Cache<String, String> cache = Cache.<String, String>builder()
+            .maximumSize(2)
+            .secondTier(4096, SnapshotCodec.utf8())
+            .secondTierFile(file)
+            .build();
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            cache.put("key" + i, "value" + i);
+        }
+
+        // Then
+        assertEquals(4096, Files.size(file));
+        assertEquals("value0", cache.getOrNull("key0"));
+        assertEquals("value19", cache.getOrNull("key19"));
+    }
+
+    @Test
+    @DisplayName("Should keep the write time of demoted entries for expiry")
+    void testExpiryAcrossTiers() {
+        // Given
+        AtomicLong time = new AtomicLong();
+        Cache<String, String> cache = Cache.<String, String>builder()
+            .maximumSize(1)
+            .secondTier(4096, SnapshotCodec.utf8())
+            .expireAfterWrite(Duration.ofSeconds(10))
+            .ticker(time::get)
+            .build();
+        cache.put("a", "1");
+        time.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        cache.put("b", "2");
+
+        // When - "a" is demoted and its lifetime ends
+        time.addAndGet(TimeUnit.SECONDS.toNanos(5));
+
+        // Then
+        assertNull(cache.getOrNull("a"));
+        assertEquals("2", cache.getOrNull("b"));
+    }
+
+    @Test
+    @DisplayName("Should reject invalid second-tier settings")
+    void testInvalidSettings() {
+        assertThrows(IllegalStateException.class, () -> Cache.<String, String>builder()
+            .secondTier(1024, SnapshotCodec.utf8())
+            .build());
+        assertThrows(IllegalStateException.class, () -> Cache.<String, String>builder()
+            .maximumSize(10)
+            .compressSecondTier()
+            .build());
+        assertThrows(IllegalArgumentException.class, () -> Cache.<String, String>builder()
+            .secondTier(0, SnapshotCodec.utf8()));
+        assertThrows(IllegalArgumentException.class, () -> Cache.<String, String>builder()
+            .secondTier(1024, null));
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    @DisplayName("Should never return another key's value under concurrent access")
+    void testConcurrentAccess() throws Exception {
+        // Given
+        Cache<Integer, String> cache = Cache.<Integer, String>builder()
+            .maximumSize(50)
+            .secondTier(16 * 1024, SnapshotCodec.utf8())
+            .build();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 20_000; i++) {
+                    int key = random.nextInt(500);
+                    int op = random.nextInt(10);
+                    if (op < 6) {
+                        String value = cache.getOrNull(key);
+                        assertTrue(value == null || value.startsWith(key + ":"), value);
+                    } else if (op < 9) {
+                        cache.put(key, key + ":" + i);
+                    } else {
+                        cache.remove(key);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        assertTrue(cache.weightedSize() <= 50);
+    }
+}
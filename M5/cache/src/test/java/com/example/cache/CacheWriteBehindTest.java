@@ -0,0 +1,372 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for write-behind persistence.
+ */
+@DisplayName("Cache Write-Behind Tests")
+class CacheWriteBehindTest {
+
+    @TempDir
+    Path dir;
+
+    private Cache<String, Integer> open(Path file) {
+        return Cache.<String, Integer>builder()
+            .writeBehind(file, SnapshotCodec.utf8(), SnapshotCodec.integers())
+            .writeBehindDelay(Duration.ofSeconds(30))
+            .build();
+    }
+
+    @Test
+    @DisplayName("Should restore puts, removals and clears after reopening")
+    void testReplay() {
+        // Given
+        Path file = dir.resolve("cache.log");
+        try (Cache<String, Integer> cache = open(file)) {
+            cache.put("stale", 0);
+            cache.clear();
+            cache.put("a", 1);
+            cache.put("b", 2);
+            cache.put("c", 3);
+            cache.remove("b");
+            cache.put("nothing", null);
+        }
+
+        // When
+        Cache<String, Integer> reopened = open(file);
+
+        // Then
+        assertEquals(3, reopened.size());
+        assertEquals(1, reopened.getOrNull("a"));
+        assertNull(reopened.getOrNull("b"));
+        assertEquals(3, reopened.getOrNull("c"));
+        assertTrue(reopened.containsKey("nothing"));
+        assertFalse(reopened.containsKey("stale"));
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Should keep writes across flushes in order")
+    void testClearBetweenFlushes() throws IOException {
+        // Given
+        Path file = dir.resolve("cache.log");
+        try (Cache<String, Integer> cache = open(file)) {
+            cache.put("a", 1);
+            cache.flush();
+            cache.clear();
+            cache.put("b", 2);
+            cache.flush();
+            cache.put("b", 3);
+        }
+
+        // When
+        Cache<String, Integer> reopened = open(file);
+
+        // Then
+        assertNull(reopened.getOrNull("a"));
+        assertEquals(3, reopened.getOrNull("b"));
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Should coalesce repeated writes of a key into one record")
+    void testCoalescing() throws IOException {
+        // Given
+        Path file = dir.resolve("cache.log");
+        Cache<String, Integer> cache = open(file);
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            cache.put("key", i);
+        }
+        cache.close();
+
+        // Then - a single PUT record: 8 bytes of framing and 24 of payload
+        assertEquals(32, Files.size(file));
+        Cache<String, Integer> reopened = open(file);
+        assertEquals(9_999, reopened.getOrNull("key"));
+        reopened.close();
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    @DisplayName("Should log concurrent writes of a key in the order they reached the cache")
+    void testConcurrentWritesKeepOrder() throws Exception {
+        Path file = dir.resolve("cache.log");
+        for (int round = 0; round < 20; round++) {
+            // Given
+            Cache<String, Integer> cache = open(file);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<Future<?>> futures = new ArrayList<>();
+
+            // When - four threads overwrite and remove the same keys, flushing as they go
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        cache.put("key" + (i % 8), thread * 1_000 + i);
+                        if (i % 7 == thread) {
+                            cache.remove("key" + (i % 8));
+                        }
+                        if (i % 100 == 0) {
+                            cache.flush();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+            Map<String, Integer> expected = new HashMap<>();
+            for (int k = 0; k < 8; k++) {
+                expected.put("key" + k, cache.getOrNull("key" + k));
+            }
+            cache.close();
+
+            // Then
+            Cache<String, Integer> reopened = open(file);
+            for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+                assertEquals(entry.getValue(), reopened.getOrNull(entry.getKey()), entry.getKey());
+            }
+            reopened.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should log no tombstone for keys that are not present")
+    void testRemoveAbsentKey() throws IOException {
+        // Given
+        Path file = dir.resolve("cache.log");
+        Cache<String, Integer> cache = open(file);
+        cache.put("a", 1);
+        cache.flush();
+        long size = Files.size(file);
+
+        // When
+        cache.remove("missing");
+        cache.flush();
+
+        // Then
+        assertEquals(size, Files.size(file));
+        cache.close();
+    }
+
+    @Test
+    @DisplayName("Should log evictions, so removed keys are not restored after being evicted")
+    void testEvictedKeysStayRemoved() {
+        // Given - a bounded cache that evicts "a", which is then removed while absent
+        Path file = dir.resolve("cache.log");
+        try (Cache<String, Integer> cache = Cache.<String, Integer>builder()
+                .maximumSize(2)
+                .writeBehind(file, SnapshotCodec.utf8(), SnapshotCodec.integers())
+                .build()) {
+            cache.put("a", 1);
+            cache.put("b", 2);
+            cache.put("c", 3);
+            assertNull(cache.getOrNull("a"));
+            cache.remove("a");
+        }
+
+        // When
+        Cache<String, Integer> reopened = open(file);
+
+        // Then
+        assertNull(reopened.getOrNull("a"));
+        assertEquals(2, reopened.getOrNull("b"));
+        assertEquals(3, reopened.getOrNull("c"));
+        reopened.close();
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    @DisplayName("Should restore what the cache holds after puts that race a clear")
+    void testConcurrentPutsAndClears() throws Exception {
+        // Given
+        Path file = dir.resolve("cache.log");
+        Cache<String, Integer> cache = open(file);
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        Map<String, Integer> expected = new HashMap<>();
+
+        // When
+        try {
+            Future<?> puts = writer.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    cache.put("key" + (i % 100), i);
+                }
+            });
+            while (!puts.isDone()) {
+                cache.clear();
+            }
+            puts.get();
+        } finally {
+            writer.shutdown();
+        }
+        for (int i = 0; i < 100; i++) {
+            Integer value = cache.getOrNull("key" + i);
+            if (value != null) {
+                expected.put("key" + i, value);
+            }
+        }
+        cache.close();
+
+        // Then
+        Cache<String, Integer> reopened = open(file);
+        assertEquals(expected.size(), reopened.size());
+        expected.forEach((key, value) -> assertEquals(value, reopened.getOrNull(key), key));
+        reopened.close();
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    @DisplayName("Should flush in the background within the delay")
+    void testBackgroundFlush() throws Exception {
+        // Given
+        Path file = dir.resolve("cache.log");
+        Cache<String, Integer> cache = Cache.<String, Integer>builder()
+            .writeBehind(file, SnapshotCodec.utf8(), SnapshotCodec.integers())
+            .writeBehindDelay(Duration.ofMillis(20))
+            .build();
+
+        // When
+        cache.put("key", 42);
+
+        // Then - the record shows up without closing the cache
+        while (Files.size(file) == 0) {
+            Thread.sleep(10);
+        }
+        Path copy = dir.resolve("copy.log");
+        Files.copy(file, copy);
+        Cache<String, Integer> recovered = open(copy);
+        assertEquals(42, recovered.getOrNull("key"));
+        recovered.close();
+        cache.close();
+    }
+
+    @Test
+    @DisplayName("Should drop a torn record at the end of the log")
+    void testTornTail() throws IOException {
+        // Given
+        Path file = dir.resolve("cache.log");
+        try (Cache<String, Integer> cache = open(file)) {
+            cache.put("a", 1);
+            cache.flush();
+            cache.put("b", 2);
+        }
+        long size = Files.size(file);
+        Files.write(file, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        // When
+        Cache<String, Integer> reopened = open(file);
+
+        // Then
+        assertEquals(1, reopened.getOrNull("a"));
+        assertEquals(2, reopened.getOrNull("b"));
+        assertEquals(size, Files.size(file));
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Should stop replaying at a record with a bad checksum")
+    void testCorruptRecord() throws IOException {
+        // Given
+        Path file = dir.resolve("cache.log");
+        try (Cache<String, Integer> cache = open(file)) {
+            cache.put("a", 1);
+            cache.flush();
+            cache.put("b", 2);
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 0x7F;
+        Files.write(file, bytes);
+
+        // When
+        Cache<String, Integer> reopened = open(file);
+
+        // Then
+        assertEquals(1, reopened.getOrNull("a"));
+        assertFalse(reopened.containsKey("b"));
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Should compact the log once it has grown")
+    void testCompaction() throws IOException {
+        // Given
+        Path file = dir.resolve("cache.log");
+        Cache<String, byte[]> cache = Cache.<String, byte[]>builder()
+            .writeBehind(file, SnapshotCodec.utf8(), SnapshotCodec.bytes())
+            .writeBehindDelay(Duration.ofSeconds(30))
+            .build();
+
+        // When - 2 MB of rewrites of the same ten keys
+        for (int round = 0; round < 200; round++) {
+            for (int i = 0; i < 10; i++) {
+                cache.put("key" + i, new byte[1024]);
+            }
+            cache.flush();
+        }
+        cache.put("key0", new byte[] {7});
+        cache.close();
+
+        // Then
+        assertTrue(Files.size(file) < 1024 * 1024, "log size " + Files.size(file));
+        Cache<String, byte[]> reopened = Cache.<String, byte[]>builder()
+            .writeBehind(file, SnapshotCodec.utf8(), SnapshotCodec.bytes())
+            .build();
+        assertEquals(10, reopened.size());
+        assertArrayEquals(new byte[] {7}, reopened.getOrNull("key0"));
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Should keep working in memory after close without persisting")
+    void testWritesAfterClose() {
+        // Given
+        Path file = dir.resolve("cache.log");
+        Cache<String, Integer> cache = open(file);
+        cache.put("a", 1);
+        cache.close();
+
+        // When
+        cache.put("b", 2);
+        cache.close();
+
+        // Then
+        assertEquals(2, cache.getOrNull("b"));
+        Cache<String, Integer> reopened = open(file);
+        assertTrue(reopened.containsKey("a"));
+        assertFalse(reopened.containsKey("b"));
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Should reject invalid write-behind settings")
+    void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> Cache.<String, Integer>builder()
+            .writeBehind(null, SnapshotCodec.utf8(), SnapshotCodec.integers()));
+        assertThrows(IllegalArgumentException.class, () -> Cache.<String, Integer>builder()
+            .writeBehindDelay(Duration.ZERO));
+    }
+}
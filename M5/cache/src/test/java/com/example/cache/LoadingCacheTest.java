@@ -0,0 +1,184 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the LoadingCache class.
+ * These tests verify loading on a miss and single-flight coalescing of concurrent misses.
+ */
+@DisplayName("Loading Cache Tests")
+class LoadingCacheTest {
+
+    @Test
+    @DisplayName("Should load a missing value once and serve it from the cache afterwards")
+    void testLoadOnMiss() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        LoadingCache<String, Integer> cache = new LoadingCache<>(key -> {
+            loads.incrementAndGet();
+            return key.length();
+        });
+
+        // When
+        Integer first = cache.getOrLoad("hello");
+        Integer second = cache.getOrLoad("hello");
+
+        // Then
+        assertEquals(5, first);
+        assertEquals(5, second);
+        assertEquals(1, loads.get());
+        assertEquals(5, cache.get("hello").orElse(-1));
+    }
+
+    @Test
+    @DisplayName("Should not call the loader for a value that was put directly")
+    void testExistingValueSkipsLoader() {
+        LoadingCache<String, Integer> cache = new LoadingCache<>(key -> {
+            throw new AssertionError("Loader must not be called");
+        });
+        cache.put("key", 7);
+
+        assertEquals(7, cache.getOrLoad("key"));
+    }
+
+    @Test
+    @DisplayName("Should coalesce concurrent synchronous misses into a single load")
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testConcurrentMissesLoadOnce() throws Exception {
+        // Given
+        int threads = 32;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderEntered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LoadingCache<String, Integer> cache = new LoadingCache<>(key -> {
+            loads.incrementAndGet();
+            loaderEntered.countDown();
+            await(release);
+            return 42;
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            // When
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    await(start);
+                    return cache.getOrLoad("hot");
+                }));
+            }
+            start.countDown();
+            assertTrue(loaderEntered.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            release.countDown();
+
+            // Then
+            for (Future<Integer> result : results) {
+                assertEquals(42, result.get());
+            }
+            assertEquals(1, loads.get());
+            assertEquals(0, cache.inFlightLoads());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should share one future between concurrent asynchronous misses")
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testAsyncMissesShareFuture() throws Exception {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            LoadingCache<String, String> cache = new LoadingCache<>(key -> {
+                loads.incrementAndGet();
+                await(release);
+                return key.toUpperCase();
+            }, executor);
+
+            // When
+            CompletableFuture<String> first = cache.getOrLoadAsync("abc");
+            CompletableFuture<String> second = cache.getOrLoadAsync("abc");
+            release.countDown();
+
+            // Then
+            assertSame(first, second);
+            assertEquals("ABC", first.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+            assertEquals("ABC", cache.getOrLoadAsync("abc").getNow(null));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should propagate loader failures and allow a later retry")
+    void testLoaderFailure() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+        LoadingCache<String, Integer> cache = new LoadingCache<>(key -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("backend down");
+            }
+            return 1;
+        });
+
+        // When & Then
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+            () -> cache.getOrLoad("key"));
+        assertEquals("backend down", exception.getMessage());
+        assertFalse(cache.containsKey("key"));
+        assertEquals(1, cache.getOrLoad("key"));
+    }
+
+    @Test
+    @DisplayName("Should return but not cache a null loader result")
+    void testNullLoaderResult() {
+        AtomicInteger loads = new AtomicInteger();
+        LoadingCache<String, Integer> cache = new LoadingCache<>(key -> {
+            loads.incrementAndGet();
+            return null;
+        });
+
+        assertNull(cache.getOrLoad("missing"));
+        assertNull(cache.getOrLoad("missing"));
+        assertFalse(cache.containsKey("missing"));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should reject null keys and null loaders")
+    void testNullArguments() {
+        LoadingCache<String, Integer> cache = new LoadingCache<>(String::length);
+
+        assertThrows(IllegalArgumentException.class, () -> cache.getOrLoad(null));
+        assertThrows(IllegalArgumentException.class, () -> cache.getOrLoadAsync(null));
+        assertThrows(IllegalArgumentException.class, () -> new LoadingCache<String, Integer>(null));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.example.cache.cluster;
+
+import com.example.cache.Cache;
+import com.example.cache.SnapshotCodec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the consistent-hash partitioned cache.
+ */
+@DisplayName("Partitioned Cache Tests")
+class PartitionedCacheTest {
+
+    private static byte[] key(int i) {
+        return ("key" + i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ConsistentHashRing ring(int nodes) {
+        ConsistentHashRing ring = new ConsistentHashRing(160);
+        for (int n = 0; n < nodes; n++) {
+            ring.addNode("node" + n);
+        }
+        return ring;
+    }
+
+    @Test
+    @DisplayName("Should spread keys evenly over the nodes")
+    void testBalance() {
+        // Given
+        ConsistentHashRing ring = ring(8);
+
+        // When
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 80_000; i++) {
+            counts.merge(ring.nodeFor(key(i)), 1, Integer::sum);
+        }
+
+        // Then - within 25% of the 10,000 fair share
+        assertEquals(8, counts.size());
+        counts.forEach((node, count) -> assertTrue(count > 7_500 && count < 12_500, node + " owns " + count));
+    }
+
+    @Test
+    @DisplayName("Should remap about 1/N of the keys when a node joins or leaves")
+    void testMembershipChange() {
+        // Given
+        ConsistentHashRing ring = ring(10);
+        String[] before = new String[100_000];
+        for (int i = 0; i < before.length; i++) {
+            before[i] = ring.nodeFor(key(i));
+        }
+
+        // When
+        ring.addNode("node10");
+
+        // Then - keys only move to the new node, about 1/11 of them
+        int moved = 0;
+        for (int i = 0; i < before.length; i++) {
+            String owner = ring.nodeFor(key(i));
+            if (!owner.equals(before[i])) {
+                assertEquals("node10", owner);
+                moved++;
+            }
+        }
+        assertTrue(moved > 6_000 && moved < 12_500, "moved " + moved);
+
+        // And removing it again restores every previous owner
+        assertTrue(ring.removeNode("node10"));
+        for (int i = 0; i < before.length; i++) {
+            assertEquals(before[i], ring.nodeFor(key(i)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should route operations to the owning node over the loopback transport")
+    void testLoopback() {
+        // Given
+        ConsistentHashRing ring = ring(4);
+        LoopbackTransport transport = new LoopbackTransport();
+        Map<String, CacheNode> nodes = new HashMap<>();
+        for (String id : ring.nodes()) {
+            nodes.put(id, new CacheNode());
+            transport.addNode(id, nodes.get(id));
+        }
+        PartitionedCache<String, Integer> cache =
+            new PartitionedCache<>(ring, transport, SnapshotCodec.utf8(), SnapshotCodec.integers());
+
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            cache.put("key" + i, i);
+        }
+
+        // Then
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(i, cache.getOrNull("key" + i));
+            byte[] encoded = SnapshotCodec.utf8().encode("key" + i);
+            assertNotNull(nodes.get(cache.ownerOf("key" + i)).get(encoded));
+        }
+        assertEquals(1_000, nodes.values().stream().mapToInt(CacheNode::size).sum());
+        assertTrue(cache.remove("key0"));
+        assertFalse(cache.remove("key0"));
+        assertNull(cache.getOrNull("key0"));
+    }
+
+    @Test
+    @DisplayName("Should not serve copies left behind when keys move away and back")
+    void testStaleCopiesAfterMembershipChange() {
+        // Given - keys written while node0..node3 own them
+        ConsistentHashRing ring = ring(4);
+        LoopbackTransport transport = new LoopbackTransport();
+        for (String id : ring.nodes()) {
+            transport.addNode(id, new CacheNode());
+        }
+        PartitionedCache<String, Integer> cache =
+            new PartitionedCache<>(ring, transport, SnapshotCodec.utf8(), SnapshotCodec.integers());
+        for (int i = 0; i < 1_000; i++) {
+            cache.put("key" + i, i);
+        }
+
+        // When - node4 joins, takes over some keys that are updated or removed there, then leaves
+        transport.addNode("node4", new CacheNode());
+        ring.addNode("node4");
+        List<Integer> moved = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            if (cache.ownerOf("key" + i).equals("node4")) {
+                moved.add(i);
+                if (i % 2 == 0) {
+                    cache.put("key" + i, -i);
+                } else {
+                    assertFalse(cache.remove("key" + i));
+                }
+            }
+        }
+        assertTrue(ring.removeNode("node4"));
+
+        // Then - the moved keys route back to their old owners, which must not serve their old copies
+        assertFalse(moved.isEmpty());
+        for (int i : moved) {
+            assertNull(cache.getOrNull("key" + i), "key" + i);
+        }
+        int hits = 0;
+        for (int i = 0; i < 1_000; i++) {
+            Integer value = cache.getOrNull("key" + i);
+            if (value != null) {
+                assertEquals(i, value);
+                hits++;
+            }
+        }
+        assertTrue(hits > 500, "hits " + hits);
+
+        // And a key written after the change is served again
+        int first = moved.get(0);
+        cache.put("key" + first, 7);
+        assertEquals(7, cache.getOrNull("key" + first));
+    }
+
+    @Test
+    @DisplayName("Should report each removal of a key to exactly one of concurrent removers")
+    void testConcurrentRemove() throws Exception {
+        // Given
+        CacheNode node = new CacheNode();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // When - four threads race to remove each of 2,000 keys, one holding a null value
+        node.put(key(-1), null);
+        for (int i = 0; i < 2_000; i++) {
+            node.put(key(i), new byte[] {1});
+        }
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(executor.submit(() -> {
+                int removed = 0;
+                for (int i = -1; i < 2_000; i++) {
+                    if (node.remove(key(i))) {
+                        removed++;
+                    }
+                }
+                return removed;
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> future : futures) {
+            total += future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(2_001, total);
+        assertEquals(0, node.size());
+        assertFalse(node.remove(key(-1)));
+    }
+
+    @Test
+    @DisplayName("Should bound each node by its own local cache")
+    void testCapacityScalesWithNodes() {
+        // Given - four nodes of 100 entries each
+        ConsistentHashRing ring = ring(4);
+        LoopbackTransport transport = new LoopbackTransport();
+        List<CacheNode> nodes = new ArrayList<>();
+        for (String id : ring.nodes()) {
+            CacheNode node = new CacheNode(Cache.<ByteBuffer, byte[]>builder().maximumSize(100).build());
+            nodes.add(node);
+            transport.addNode(id, node);
+        }
+        PartitionedCache<String, Integer> cache =
+            new PartitionedCache<>(ring, transport, SnapshotCodec.utf8(), SnapshotCodec.integers());
+
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            cache.put("key" + i, i);
+        }
+
+        // Then
+        int total = nodes.stream().mapToInt(CacheNode::size).sum();
+        assertTrue(total > 300 && total <= 400, "total " + total);
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    @DisplayName("Should serve concurrent clients over the socket transport")
+    void testSocketTransport() throws Exception {
+        // Given
+        ConsistentHashRing ring = ring(3);
+        SocketTransport transport = new SocketTransport();
+        List<CacheServer> servers = new ArrayList<>();
+        for (String id : ring.nodes()) {
+            CacheServer server = new CacheServer(new CacheNode(), 0);
+            servers.add(server);
+            transport.addNode(id, server.address());
+        }
+        PartitionedCache<String, String> cache =
+            new PartitionedCache<>(ring, transport, SnapshotCodec.utf8(), SnapshotCodec.utf8());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    String key = thread + ":" + i;
+                    cache.put(key, "value" + i);
+                    assertEquals("value" + i, cache.getOrNull(key));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        cache.put("nothing", null);
+        assertNull(cache.getOrNull("nothing"));
+        assertTrue(cache.remove("nothing"));
+        assertTrue(cache.remove("0:0"));
+        assertNull(cache.getOrNull("0:0"));
+        assertEquals("value1", cache.getOrNull("3:1"));
+
+        servers.forEach(CacheServer::close);
+        assertThrows(UncheckedIOException.class, () -> cache.getOrNull("3:1"));
+        cache.close();
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    @DisplayName("Should report local cache failures to the client and keep serving")
+    void testServerReportsCacheFailures() throws Exception {
+        // Given - a node whose weigher rejects large values
+        Cache<ByteBuffer, byte[]> store = Cache.<ByteBuffer, byte[]>builder()
+            .maximumWeight(1_000)
+            .weigher((ByteBuffer k, byte[] v) -> {
+                if (v.length > 100) {
+                    throw new IllegalStateException("value too large");
+                }
+                return v.length;
+            })
+            .build();
+        try (CacheServer server = new CacheServer(new CacheNode(store), 0)) {
+            SocketTransport transport = new SocketTransport();
+            transport.addNode("node0", server.address());
+
+            // When
+            IOException e = assertThrows(IOException.class, () -> transport.put("node0", key(1), new byte[200]));
+
+            // Then - the error comes back as a response, not a dropped connection
+            assertTrue(e.getMessage().contains("value too large"), e.getMessage());
+            transport.put("node0", key(2), new byte[10]);
+            assertArrayEquals(new byte[10], transport.get("node0", key(2)));
+            transport.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should report unreachable nodes and reject invalid arguments")
+    void testErrors() {
+        // Given
+        ConsistentHashRing ring = ring(2);
+        LoopbackTransport transport = new LoopbackTransport();
+        transport.addNode("node0", new CacheNode());
+        PartitionedCache<Integer, Integer> cache =
+            new PartitionedCache<>(ring, transport, SnapshotCodec.integers(), SnapshotCodec.integers());
+
+        // When
+        int missing = 0;
+        while (!cache.ownerOf(missing).equals("node1")) {
+            missing++;
+        }
+        int found = missing;
+
+        // Then
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> cache.put(found, 1));
+        assertInstanceOf(IOException.class, e.getCause());
+        assertThrows(IllegalArgumentException.class, () -> cache.put(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(0));
+        assertThrows(IllegalStateException.class, () -> new ConsistentHashRing(10).nodeFor(key(1)));
+        assertThrows(IllegalArgumentException.class,
+            () -> new PartitionedCache<>(ring, null, SnapshotCodec.integers(), SnapshotCodec.integers()));
+    }
+}
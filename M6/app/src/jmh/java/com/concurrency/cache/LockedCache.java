@@ -0,0 +1,31 @@
+package com.concurrency.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Baseline for ThreadSafeCacheBenchmark: the previous ThreadSafeCache, which took a global
+ * ReentrantLock around every put. Its per-operation INFO logging is left out, so that the
+ * benchmark measures the lock rather than log output.
+ */
+class LockedCache {
+
+    private final ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    void put(String key, String value) {
+        if (key == null || value == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            cache.put(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    String get(String key) {
+        return key == null ? null : cache.get(key);
+    }
+}
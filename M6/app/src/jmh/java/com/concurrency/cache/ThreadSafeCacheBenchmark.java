@@ -0,0 +1,87 @@
+package com.concurrency.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-writer throughput of ThreadSafeCache against the previous globally locked version.
+ * Every thread writes to the shared cache; the locked baseline serializes all of them.
+ * Change the thread count with -t, e.g. -t 1 for the uncontended cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class ThreadSafeCacheBenchmark {
+
+    private static final int KEYS = 4096;
+    private static final int MASK = KEYS - 1;
+
+    /** locked: previous version; lockFree: unbounded; bounded: lock-free with maxSize */
+    @Param({"locked", "lockFree", "bounded"})
+    public String implementation;
+
+    private LockedCache locked;
+    private ThreadSafeCache<String, String> cache;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "key" + i;
+        }
+        locked = new LockedCache();
+        cache = implementation.equals("bounded") ? new ThreadSafeCache<>(KEYS / 2) : new ThreadSafeCache<>();
+    }
+
+    /** Per-thread position in the key array */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index = (int) Thread.currentThread().getId() * 997;
+    }
+
+    @Benchmark
+    public void put(Cursor cursor) {
+        String key = keys[cursor.index++ & MASK];
+        if (implementation.equals("locked")) {
+            locked.put(key, key);
+        } else {
+            cache.put(key, key);
+        }
+    }
+
+    @Benchmark
+    public String readMostly(Cursor cursor) {
+        int i = cursor.index++;
+        String key = keys[i & MASK];
+        boolean write = (i & 7) == 0;
+        if (implementation.equals("locked")) {
+            if (write) {
+                locked.put(key, key);
+                return key;
+            }
+            return locked.get(key);
+        }
+        if (write) {
+            cache.put(key, key);
+            return key;
+        }
+        return cache.get(key);
+    }
+}
@@ -0,0 +1,106 @@
+package com.concurrency.file;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Blocking reads (FileTask on a thread per file in flight) against asynchronous reads
+ * (AsyncFileTask with completion handlers) over 2,000 files of 64 KB, with up to 512 files
+ * in flight.
+ *
+ * Each iteration is a single pass over all files. With coldCache=true the page cache is
+ * dropped before every pass, so each read goes to the device; this needs root (it writes
+ * /proc/sys/vm/drop_caches), and the cold runs fail rather than measure a warm cache
+ * without it:
+ * <pre>
+ * sudo mvn -Pjmh test-compile exec:exec -Djmh.args="FileReadModeBenchmark"
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="FileReadModeBenchmark -p coldCache=false"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FileReadModeBenchmark {
+
+    private static final int FILES = 2_000;
+    private static final int MAX_IN_FLIGHT = 512;
+
+    /** BLOCKING: processFiles; ASYNC: processFilesAsync */
+    @Param({"BLOCKING", "ASYNC"})
+    public String mode;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public ExecutionStrategy strategy;
+
+    @Param({"true", "false"})
+    public boolean coldCache;
+
+    private Path dir;
+    private List<String> files;
+    private ParallelFileProcessor processor;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("read-mode-benchmark");
+        String content = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcde\n".repeat(1024);
+        files = new ArrayList<>(FILES);
+        for (int i = 0; i < FILES; i++) {
+            files.add(Files.writeString(dir.resolve("file" + i + ".txt"), content).toString());
+        }
+        processor = new ParallelFileProcessor(strategy, MAX_IN_FLIGHT);
+    }
+
+    @Setup(Level.Iteration)
+    public void dropPageCache() throws IOException, InterruptedException {
+        if (!coldCache) {
+            return;
+        }
+        Process drop = new ProcessBuilder("sh", "-c", "sync && echo 3 > /proc/sys/vm/drop_caches")
+                .redirectErrorStream(true).start();
+        String output = new String(drop.getInputStream().readAllBytes()).trim();
+        if (drop.waitFor() != 0) {
+            throw new IllegalStateException("Could not drop the page cache (needs root on Linux), "
+                    + "run with -p coldCache=false for warm numbers only: " + output);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<FileResult> readAllFiles() throws Exception {
+        if (mode.equals("ASYNC")) {
+            return processor.processFilesAsync(files, ContentProcessor::lineCounter);
+        }
+        return processor.processFiles(files, ContentProcessor::lineCounter);
+    }
+}
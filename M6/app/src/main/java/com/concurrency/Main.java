@@ -1,10 +1,15 @@
 package com.concurrency;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import com.concurrency.async.AsyncOrderService;
 import com.concurrency.cache.ThreadSafeCache;
 import com.concurrency.file.ParallelFileProcessor;
+import com.concurrency.ingest.DirectoryIngestionService;
+import com.concurrency.metrics.MetricsReporter;
 import com.concurrency.notification.NotificationTask;
 import com.concurrency.logging.AppLogger;
 import org.slf4j.Logger;
@@ -15,29 +20,40 @@ import org.slf4j.Logger;
  * - Thread-safe caching
  * - Async order processing
  * - Runnable tasks
+ * - Executor metrics, logged every second
+ *
+ * Run with "watch &lt;dir&gt;" to keep processing files as they land in a directory instead.
  */
 public class Main {
     
     private static final Logger logger = AppLogger.getLogger(Main.class); 
     
     public static void main(String[] args) {
-        try {
+        if (args.length == 2 && args[0].equals("watch")) {
+            watch(Path.of(args[1]));
+            return;
+        }
+        try (MetricsReporter reporter = new MetricsReporter(Duration.ofSeconds(1))) {
             logger.info("Starting concurrency application");
+            reporter.start();
             
             // 1. Parallel File Processing
             List<String> files = Arrays.asList("file1.txt", "file2.txt", "file3.txt");
             ParallelFileProcessor processor = new ParallelFileProcessor();
+            reporter.register(processor.executorMetrics());
             processor.processFiles(files);
             
             // 2. Thread-safe Cache
-            ThreadSafeCache cache = new ThreadSafeCache();
+            ThreadSafeCache<String, String> cache = new ThreadSafeCache<>();
             cache.put("user1", "Pradeep");
             cache.put("user2", "Kumar");
             logger.info("Cache value: {}", cache.get("user1"));
             
             // 3. Async Order Processing
-            AsyncOrderService orderService = new AsyncOrderService();
-            orderService.processOrder();
+            try (AsyncOrderService orderService = new AsyncOrderService()) {
+                reporter.register(orderService.executorMetrics());
+                orderService.processOrder();
+            }
             
             // 4. Runnable Task
             Thread notificationThread = new Thread(new NotificationTask("Order completed"));
@@ -50,4 +66,36 @@ public class Main {
             logger.error("Application failed: {}", e.getMessage(), e);
         }
     }
+
+    /**
+     * Processes files landing in a directory until the JVM is stopped
+     * @param directory the directory to watch; its ledger is kept in .ingest-ledger inside it
+     */
+    private static void watch(Path directory) {
+        CountDownLatch stopped = new CountDownLatch(1);
+        try {
+            ParallelFileProcessor processor = new ParallelFileProcessor();
+            DirectoryIngestionService service = new DirectoryIngestionService(directory,
+                    directory.resolve(".ingest-ledger"), processor);
+            MetricsReporter reporter = new MetricsReporter(Duration.ofSeconds(30));
+            reporter.register(processor.executorMetrics());
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    service.close();
+                    reporter.close();
+                } catch (Exception e) {
+                    logger.error("Failed to stop ingestion: {}", e.getMessage(), e);
+                } finally {
+                    stopped.countDown();
+                }
+            }));
+            service.start();
+            reporter.start();
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Ingestion failed: {}", e.getMessage(), e);
+        }
+    }
 }
@@ -1,8 +1,13 @@
 package com.concurrency.async;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.concurrency.logging.AppLogger;
+import com.concurrency.metrics.ExecutorMetrics;
+import com.concurrency.metrics.InstrumentedExecutorService;
 import org.slf4j.Logger;
 
 /**
@@ -10,11 +15,52 @@ import org.slf4j.Logger;
  * - Payment service
  * - Inventory service
  * - Notification service
+ *
+ * The service calls run on an instrumented executor rather than the common pool, so their
+ * queueing and run times can be watched and the pool sized to match. Closing the service
+ * shuts down the pool it created; an executor passed in is left to its owner.
  */
-public class AsyncOrderService {
+public class AsyncOrderService implements AutoCloseable {
 
     private static final Logger logger = AppLogger.getLogger(AsyncOrderService.class);
 
+    /** Default pool size: one thread per service called concurrently for an order */
+    static final int DEFAULT_THREADS = 2;
+
+    private final InstrumentedExecutorService executor;
+    private final boolean ownsExecutor;
+
+    /**
+     * Creates a service calling on its own pool of daemon threads, shut down by close
+     */
+    public AsyncOrderService() {
+        this(newDaemonPool(DEFAULT_THREADS), true);
+    }
+
+    /**
+     * Creates a service calling on the given executor
+     * @param executor runs the service calls; the caller keeps ownership of it
+     */
+    public AsyncOrderService(ExecutorService executor) {
+        this(executor, false);
+    }
+
+    private AsyncOrderService(ExecutorService executor, boolean ownsExecutor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        this.executor = new InstrumentedExecutorService(executor, new ExecutorMetrics("order-service"));
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Returns the metrics of the executor running the service calls
+     * @return the metrics
+     */
+    public ExecutorMetrics executorMetrics() {
+        return executor.metrics();
+    }
+
     /**
      * Processes an order by calling payment and inventory services asynchronously
      */
@@ -26,14 +72,14 @@ public class AsyncOrderService {
                     sleep();
                     logger.info("Payment completed");
                     return "PAYMENT_OK";
-                });
+                }, executor);
 
         CompletableFuture<String> inventoryService =
                 CompletableFuture.supplyAsync(() -> {
                     sleep();
                     logger.info("Inventory updated");
                     return "INVENTORY_OK";
-                });
+                }, executor);
 
         // Combine both services
         CompletableFuture<Void> finalResult =
@@ -46,6 +92,26 @@ public class AsyncOrderService {
         finalResult.join();
     }
 
+    /**
+     * Shuts down the pool the service created, letting calls already submitted finish.
+     * An executor passed to the constructor is not shut down.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    private static ExecutorService newDaemonPool(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "order-service-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     /**
      * Simulates processing delay
      */
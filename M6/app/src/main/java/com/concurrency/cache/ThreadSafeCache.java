@@ -1,42 +1,82 @@
 package com.concurrency.cache;
 
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import com.concurrency.logging.AppLogger;
 import org.slf4j.Logger;
 
 /**
- * Thread-safe cache implementation demonstrating:
- * - ConcurrentHashMap
- * - ReentrantLock
- * - Thread-safe operations
+ * Thread-safe, lock-free cache demonstrating:
+ * - ConcurrentHashMap with atomic per-key compute and merge
+ * - Lock-free bounding with a FIFO queue of inserted keys
+ * - No locks and no logging on the read and write paths
+ * - Versioned entries for optimistic compare-and-set updates
+ *
+ * Null keys and null values are ignored by put, and get returns null for a null key.
+ * Update functions returning null remove the key, as in ConcurrentHashMap.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
  */
-public class ThreadSafeCache {
+public class ThreadSafeCache<K, V> {
 
     private static final Logger logger = AppLogger.getLogger(ThreadSafeCache.class);
 
-    private final ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<>();
-    private final ReentrantLock lock = new ReentrantLock();
+    private final ConcurrentHashMap<K, Node<K, V>> cache = new ConcurrentHashMap<>();
+
+    /** Maximum number of entries, or 0 if unbounded */
+    private final int maxSize;
+
+    /** Insertion tokens of keys in insertion order, used to pick eviction victims when bounded */
+    private final ConcurrentLinkedQueue<Insertion<K>> writeOrder;
+    private final AtomicInteger queuedNodes;
+
+    /** Source of the high half of versions, advanced only when a key is inserted */
+    private final AtomicLong insertEpoch = new AtomicLong();
+
+    /**
+     * Creates an unbounded cache
+     */
+    public ThreadSafeCache() {
+        this.maxSize = 0;
+        this.writeOrder = null;
+        this.queuedNodes = null;
+    }
+
+    /**
+     * Creates a cache holding at most about maxSize entries. When an insert takes the cache
+     * over the bound, the least recently inserted entries are evicted. Concurrent writers
+     * may briefly overshoot the bound before their evictions complete.
+     * @param maxSize the maximum number of entries
+     * @throws IllegalArgumentException if maxSize is not positive
+     */
+    public ThreadSafeCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.writeOrder = new ConcurrentLinkedQueue<>();
+        this.queuedNodes = new AtomicInteger();
+    }
 
     /**
      * Stores a key-value pair in the cache
      * @param key the cache key
      * @param value the value to store
      */
-    public void put(String key, String value) {
+    public void put(K key, V value) {
         if (key == null || value == null) {
             logger.warn("Null key or value provided to cache");
             return;
         }
-        
-        lock.lock();
-        try {
-            logger.info("Putting into cache: {} = {}", key, value);
-            cache.put(key, value);
-        } finally {
-            lock.unlock();
-        }
+        Node<K, V> node = cache.compute(key, (k, current) -> newNode(k, value, current));
+        afterWrite(node);
     }
 
     /**
@@ -44,13 +84,260 @@ public class ThreadSafeCache {
      * @param key the cache key
      * @return the cached value or null if not found
      */
-    public String get(String key) {
+    public V get(K key) {
         if (key == null) {
             logger.warn("Null key provided to cache get");
             return null;
         }
-        
-        logger.info("Getting from cache: {}", key);
-        return cache.get(key);
+        Node<K, V> node = cache.get(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Removes a key from the cache
+     * @param key the cache key
+     * @return the removed value or null if not found
+     */
+    public V remove(K key) {
+        if (key == null) {
+            return null;
+        }
+        Node<K, V> node = cache.remove(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Returns the value of a key, computing and storing it first if absent. The function
+     * runs at most once per absent key, even when many threads ask for it at once.
+     * @param key the cache key
+     * @param mappingFunction computes the value, or returns null to store nothing
+     * @return the current or computed value, or null
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (key == null || mappingFunction == null) {
+            throw new IllegalArgumentException("Key and mapping function cannot be null");
+        }
+        Node<K, V> existing = cache.get(key);
+        if (existing != null) {
+            return existing.value;
+        }
+        boolean[] created = new boolean[1];
+        Node<K, V> node = cache.computeIfAbsent(key, k -> {
+            V value = mappingFunction.apply(k);
+            created[0] = value != null;
+            return value == null ? null : newNode(k, value, null);
+        });
+        if (node == null) {
+            return null;
+        }
+        if (created[0]) {
+            afterWrite(node);
+        }
+        return node.value;
+    }
+
+    /**
+     * Atomically replaces the value of a key with a function of its current value
+     * @param key the cache key
+     * @param remappingFunction receives the key and the current value or null, and returns
+     *                          the new value or null to remove the key
+     * @return the new value, or null if the key is now absent
+     */
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (key == null || remappingFunction == null) {
+            throw new IllegalArgumentException("Key and remapping function cannot be null");
+        }
+        Node<K, V> node = cache.compute(key, (k, current) -> {
+            V value = remappingFunction.apply(k, current == null ? null : current.value);
+            return value == null ? null : newNode(k, value, current);
+        });
+        if (node == null) {
+            return null;
+        }
+        afterWrite(node);
+        return node.value;
+    }
+
+    /**
+     * Atomically stores a value if the key is absent, or combines it with the current one
+     * @param key the cache key
+     * @param value the value to store or combine
+     * @param remappingFunction combines the current and the given value, or returns null
+     *                          to remove the key
+     * @return the new value, or null if the key is now absent
+     */
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (key == null || value == null || remappingFunction == null) {
+            throw new IllegalArgumentException("Key, value and remapping function cannot be null");
+        }
+        Node<K, V> node = cache.compute(key, (k, current) -> {
+            V merged = current == null ? value : remappingFunction.apply(current.value, value);
+            return merged == null ? null : newNode(k, merged, current);
+        });
+        if (node == null) {
+            return null;
+        }
+        afterWrite(node);
+        return node.value;
+    }
+
+    /**
+     * Retrieves a value together with its version
+     * @param key the cache key
+     * @return the value and its version, or null if not found
+     */
+    public Versioned<V> getWithVersion(K key) {
+        if (key == null) {
+            return null;
+        }
+        Node<K, V> node = cache.get(key);
+        return node == null ? null : new Versioned<>(node.value, node.version);
+    }
+
+    /**
+     * Stores a value only if the key still has the expected version, so that a
+     * read-modify-write cycle fails instead of overwriting a concurrent update.
+     * Pass {@link Versioned#ABSENT} to store the value only if the key is absent.
+     * @param key the cache key
+     * @param expectedVersion the version read with getWithVersion, or Versioned.ABSENT
+     * @param newValue the value to store
+     * @return true if the value was stored, false if the key changed meanwhile
+     */
+    public boolean compareAndSet(K key, long expectedVersion, V newValue) {
+        if (key == null || newValue == null) {
+            throw new IllegalArgumentException("Key and value cannot be null");
+        }
+        boolean[] swapped = new boolean[1];
+        Node<K, V> node = cache.compute(key, (k, current) -> {
+            long version = current == null ? Versioned.ABSENT : current.version;
+            if (version != expectedVersion) {
+                return current;
+            }
+            swapped[0] = true;
+            return newNode(k, newValue, current);
+        });
+        if (swapped[0]) {
+            afterWrite(node);
+        }
+        return swapped[0];
+    }
+
+    /**
+     * Atomically replaces the value of a present key if it satisfies a condition
+     * @param key the cache key
+     * @param condition tested against the current value while the key is held
+     * @param newValue the value to store
+     * @return true if the value was replaced
+     */
+    public boolean replaceIf(K key, Predicate<? super V> condition, V newValue) {
+        if (key == null || condition == null || newValue == null) {
+            throw new IllegalArgumentException("Key, condition and value cannot be null");
+        }
+        boolean[] replaced = new boolean[1];
+        cache.computeIfPresent(key, (k, current) -> {
+            if (!condition.test(current.value)) {
+                return current;
+            }
+            replaced[0] = true;
+            return newNode(k, newValue, current);
+        });
+        return replaced[0];
+    }
+
+    /**
+     * Returns the number of entries
+     * @return the entry count
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Removes all entries
+     */
+    public void clear() {
+        // Queued nodes are left in place: they are now stale and will be skipped or
+        // purged, while clearing the queue could drop a node written concurrently
+        cache.clear();
+    }
+
+    /**
+     * Queues the insertion token of a newly inserted key and evicts while the cache is over
+     * its bound. Later writes of the key share the queued token, so the queue grows only
+     * with inserts. Tokens of keys removed since are skipped when they reach the head of
+     * the queue, and purged in bulk once they outnumber the live entries.
+     */
+    private void afterWrite(Node<K, V> node) {
+        if (maxSize == 0 || !node.insert) {
+            return;
+        }
+        writeOrder.add(node.insertion);
+        int queued = queuedNodes.incrementAndGet();
+        while (cache.mappingCount() > maxSize) {
+            Insertion<K> eldest = writeOrder.poll();
+            if (eldest == null) {
+                return;
+            }
+            queuedNodes.decrementAndGet();
+            cache.computeIfPresent(eldest.key, (k, current) -> current.insertion == eldest ? null : current);
+        }
+        if (queued > 2 * maxSize + 1024) {
+            writeOrder.removeIf(insertion -> {
+                Node<K, V> current = cache.get(insertion.key);
+                return current == null || current.insertion != insertion;
+            });
+            queuedNodes.set(writeOrder.size());
+        }
+    }
+
+    /**
+     * Creates the node for a write. A replacement takes the next version of the node it
+     * replaces; an insert starts from a new epoch in the high 32 bits, so a key that is
+     * removed and inserted again never repeats a version a reader may still hold. Only
+     * inserts touch the shared epoch counter, and an update that would overflow the low
+     * 32 bits moves on to a new epoch the same way.
+     */
+    private Node<K, V> newNode(K key, V value, Node<K, V> previous) {
+        long version;
+        if (previous != null && (previous.version & 0xFFFFFFFFL) != 0xFFFFFFFFL) {
+            version = previous.version + 1;
+        } else {
+            version = insertEpoch.incrementAndGet() << 32;
+        }
+        Insertion<K> insertion = maxSize == 0 ? null
+                : previous == null ? new Insertion<>(key) : previous.insertion;
+        return new Node<>(value, version, insertion, previous == null);
+    }
+
+    /**
+     * Immutable holder of a value and its version
+     */
+    private static final class Node<K, V> {
+        final V value;
+        final long version;
+        /** Token of the insert this node descends from, or null if the cache is unbounded */
+        final Insertion<K> insertion;
+        /** Whether this node inserted the key rather than replaced a value */
+        final boolean insert;
+
+        Node(V value, long version, Insertion<K> insertion, boolean insert) {
+            this.value = value;
+            this.version = version;
+            this.insertion = insertion;
+            this.insert = insert;
+        }
+    }
+
+    /**
+     * Marker queued when a key is inserted and shared by the key's later nodes, so that a
+     * queued insert can be told apart from a later insert of the same key by identity.
+     * It holds only the key, so replaced values are not kept alive by the queue.
+     */
+    private static final class Insertion<K> {
+        final K key;
+
+        Insertion(K key) {
+            this.key = key;
+        }
     }
 }
@@ -0,0 +1,13 @@
+package com.concurrency.cache;
+
+/**
+ * A cached value together with the version it was written at
+ * @param value the cached value
+ * @param version the version, which changes with every write of the key
+ * @param <V> the type of the value
+ */
+public record Versioned<V>(V value, long version) {
+
+    /** Expected version meaning "the key is absent", for compareAndSet inserts */
+    public static final long ABSENT = 0;
+}
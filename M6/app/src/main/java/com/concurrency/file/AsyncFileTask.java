@@ -0,0 +1,177 @@
+package com.concurrency.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import com.concurrency.enums.FileStatus;
+import com.concurrency.exception.FileProcessingException;
+import com.concurrency.logging.AppLogger;
+import org.slf4j.Logger;
+
+/**
+ * Reads a file through an AsynchronousFileChannel instead of blocking a thread per file.
+ * Each read is issued with a CompletionHandler that processes the chunk and issues the
+ * next read, so no thread waits between reads and many files can be in progress on a
+ * small I/O pool. Results and errors follow FileTask: a blank name or a missing file
+ * gives FAILED, and any other I/O error completes the future with a FileProcessingException.
+ * The channel is closed and the buffer returned before the future completes, on every path.
+ *
+ * How asynchronous the reads really are depends on the platform: Windows uses overlapped
+ * I/O, while Linux and macOS run each read as a blocking pread on the channel's executor.
+ * There the gain over FileTask is fewer threads, not fewer blocked ones.
+ */
+public class AsyncFileTask {
+
+    private static final Logger logger = AppLogger.getLogger(AsyncFileTask.class);
+
+    private final String fileName;
+    private final Supplier<? extends ContentProcessor> processorFactory;
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a new asynchronous file task
+     * @param fileName name of the file to process
+     * @param processorFactory creates the processor run over the file's bytes
+     */
+    public AsyncFileTask(String fileName, Supplier<? extends ContentProcessor> processorFactory) {
+        if (processorFactory == null) {
+            throw new IllegalArgumentException("Processor factory cannot be null");
+        }
+        this.fileName = fileName;
+        this.processorFactory = processorFactory;
+    }
+
+    /**
+     * Opens the file and issues the first read; returns without waiting for it
+     * @param ioExecutor runs the completion handlers, and on some platforms the reads
+     * @return the result, completed once the last chunk has been processed
+     */
+    public CompletableFuture<FileResult> start(ExecutorService ioExecutor) {
+        long start = System.nanoTime();
+        if (fileName == null || fileName.trim().isEmpty()) {
+            logger.error("Invalid file name provided");
+            return CompletableFuture.completedFuture(FileResult.failed(fileName, 0));
+        }
+
+        CompletableFuture<FileResult> result = new CompletableFuture<>();
+        AsynchronousFileChannel channel;
+        try {
+            channel = AsynchronousFileChannel.open(Path.of(fileName), Set.of(StandardOpenOption.READ), ioExecutor);
+        } catch (NoSuchFileException e) {
+            logger.warn("File not found: {}", fileName);
+            return CompletableFuture.completedFuture(FileResult.failed(fileName, System.nanoTime() - start));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new FileProcessingException("Failed to read file: " + fileName, e));
+        }
+
+        ContentProcessor processor;
+        try {
+            processor = processorFactory.get();
+        } catch (RuntimeException e) {
+            closeQuietly(channel);
+            return CompletableFuture.failedFuture(e);
+        }
+        new ChunkReader(channel, processor, result, start).readNext();
+        return result;
+    }
+
+    /**
+     * Stops the task after its current read. Its future then completes with a
+     * CancellationException, once the channel is closed and the buffer returned.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private void closeQuietly(AsynchronousFileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close file: {}", fileName, e);
+        }
+    }
+
+    /**
+     * Reads the file one chunk at a time; each completed read issues the next one, so at
+     * most one read per file is outstanding and the buffer is never shared
+     */
+    private final class ChunkReader implements CompletionHandler<Integer, Void> {
+        private final AsynchronousFileChannel channel;
+        private final ContentProcessor processor;
+        private final CompletableFuture<FileResult> result;
+        private final long start;
+        private final ByteBuffer buffer = FileTask.BUFFERS.acquire();
+        private final AtomicBoolean released = new AtomicBoolean();
+        private long position;
+
+        ChunkReader(AsynchronousFileChannel channel, ContentProcessor processor,
+                    CompletableFuture<FileResult> result, long start) {
+            this.channel = channel;
+            this.processor = processor;
+            this.result = result;
+            this.start = start;
+        }
+
+        void readNext() {
+            if (cancelled) {
+                release();
+                result.completeExceptionally(new CancellationException("Cancelled reading file: " + fileName));
+                return;
+            }
+            try {
+                channel.read(buffer, position, null, this);
+            } catch (RuntimeException e) {
+                failed(e, null);
+            }
+        }
+
+        @Override
+        public void completed(Integer read, Void attachment) {
+            try {
+                if (read == -1) {
+                    processor.finish();
+                    long elapsed = System.nanoTime() - start;
+                    FileResult fileResult = new FileResult(fileName, FileStatus.COMPLETED, position,
+                            processor.records(), processor.checksum(), elapsed);
+                    release();
+                    logger.debug("Completed file: {} ({} bytes, {} records)", fileName, position, fileResult.records());
+                    result.complete(fileResult);
+                    return;
+                }
+                position += read;
+                buffer.flip();
+                processor.process(buffer);
+                buffer.clear();
+            } catch (RuntimeException e) {
+                release();
+                result.completeExceptionally(e);
+                return;
+            }
+            readNext();
+        }
+
+        @Override
+        public void failed(Throwable e, Void attachment) {
+            release();
+            result.completeExceptionally(new FileProcessingException("Failed to read file: " + fileName, e));
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                closeQuietly(channel);
+                FileTask.BUFFERS.release(buffer);
+            }
+        }
+    }
+}
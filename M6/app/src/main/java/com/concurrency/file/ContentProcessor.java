@@ -0,0 +1,72 @@
+package com.concurrency.file;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Processes the bytes of one file as they are read.
+ * A processor instance is used for a single file, or a single range of a file, by a single
+ * thread, so implementations may keep per-file state without synchronization.
+ * Processors that implement SplittableProcessor may be run over several ranges of a large
+ * file in parallel.
+ */
+public interface ContentProcessor {
+
+    /**
+     * Processes the next chunk of the file. The chunk is only valid during the call;
+     * its contents are overwritten by the next read.
+     * @param chunk the bytes between position and limit
+     */
+    void process(ByteBuffer chunk);
+
+    /**
+     * Called after the last chunk, to account for a trailing record without a delimiter
+     */
+    default void finish() {
+    }
+
+    /**
+     * Returns the number of records processed
+     * @return the record count, or 0 if the processor does not split records
+     */
+    long records();
+
+    /**
+     * Returns the checksum of the processed bytes
+     * @return the checksum, or 0 if the processor computes none
+     */
+    default long checksum() {
+        return 0;
+    }
+
+    /**
+     * Creates a processor counting lines; a last line without a trailing newline counts too.
+     * Large files are counted in parallel ranges.
+     * @return a new line counter
+     */
+    static SplittableProcessor lineCounter() {
+        return new LineCounter();
+    }
+
+    /**
+     * Creates a processor computing the CRC32C checksum of the file
+     * @return a new checksum processor
+     */
+    static ContentProcessor crc32c() {
+        return new Crc32cProcessor();
+    }
+
+    /**
+     * Creates a processor splitting the file into records at a delimiter byte. Records
+     * spanning chunk boundaries are reassembled before they are handed over.
+     * @param delimiter the byte ending each record, such as '\n'
+     * @param handler receives each record without its delimiter; the buffer is only valid during the call
+     * @return a new record parser
+     */
+    static ContentProcessor delimitedRecords(byte delimiter, Consumer<ByteBuffer> handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Record handler cannot be null");
+        }
+        return new DelimitedRecordParser(delimiter, handler);
+    }
+}
@@ -0,0 +1,27 @@
+package com.concurrency.file;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+/**
+ * Computes the CRC32C checksum of the file, which uses hardware instructions where available
+ */
+final class Crc32cProcessor implements ContentProcessor {
+
+    private final CRC32C crc = new CRC32C();
+
+    @Override
+    public void process(ByteBuffer chunk) {
+        crc.update(chunk);
+    }
+
+    @Override
+    public long records() {
+        return 0;
+    }
+
+    @Override
+    public long checksum() {
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,11 @@
+package com.concurrency.file;
+
+/**
+ * A file that still failed after every attempt its RetryPolicy allowed
+ * @param fileName the file
+ * @param attempts number of attempts made
+ * @param lastFailure cause of the last failure: a FileProcessingException, or a
+ *                    TimeoutException if the attempt ran out of time
+ */
+public record DeadLetter(String fileName, int attempts, Throwable lastFailure) {
+}
@@ -0,0 +1,75 @@
+package com.concurrency.file;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Splits the file into records ending with a delimiter byte. Records that lie within a
+ * chunk are handed over as a view of the chunk without copying; only a record crossing a
+ * chunk boundary is copied into a carry-over buffer.
+ */
+final class DelimitedRecordParser implements ContentProcessor {
+
+    private final byte delimiter;
+    private final Consumer<ByteBuffer> handler;
+    private byte[] carry = new byte[256];
+    private int carried;
+    private long records;
+
+    DelimitedRecordParser(byte delimiter, Consumer<ByteBuffer> handler) {
+        this.delimiter = delimiter;
+        this.handler = handler;
+    }
+
+    @Override
+    public void process(ByteBuffer chunk) {
+        int start = chunk.position();
+        int limit = chunk.limit();
+        for (int i = start; i < limit; i++) {
+            if (chunk.get(i) != delimiter) {
+                continue;
+            }
+            if (carried > 0) {
+                append(chunk, start, i);
+                emit(ByteBuffer.wrap(carry, 0, carried));
+                carried = 0;
+            } else {
+                emit(chunk.duplicate().position(start).limit(i));
+            }
+            start = i + 1;
+        }
+        append(chunk, start, limit);
+        chunk.position(limit);
+    }
+
+    @Override
+    public void finish() {
+        if (carried > 0) {
+            emit(ByteBuffer.wrap(carry, 0, carried));
+            carried = 0;
+        }
+    }
+
+    @Override
+    public long records() {
+        return records;
+    }
+
+    private void emit(ByteBuffer record) {
+        records++;
+        handler.accept(record.asReadOnlyBuffer());
+    }
+
+    private void append(ByteBuffer chunk, int from, int to) {
+        int length = to - from;
+        if (length == 0) {
+            return;
+        }
+        if (carried + length > carry.length) {
+            carry = Arrays.copyOf(carry, Math.max(carry.length * 2, carried + length));
+        }
+        chunk.get(from, carry, carried, length);
+        carried += length;
+    }
+}
@@ -0,0 +1,65 @@
+package com.concurrency.file;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free pool of direct read buffers shared by all file tasks. Unlike a buffer per
+ * thread, the number of buffers follows the number of reads in flight, which keeps
+ * direct memory bounded when every task runs on its own (virtual) thread.
+ */
+final class DirectBufferPool {
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ConcurrentLinkedQueue<ByteBuffer> pool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+
+    /**
+     * Creates an empty pool
+     * @param bufferSize size of each buffer in bytes
+     * @param maxPooled number of idle buffers kept for reuse; more are left to the garbage collector
+     */
+    DirectBufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Takes an idle buffer, or allocates one if none is idle
+     * @return a cleared buffer
+     */
+    ByteBuffer acquire() {
+        inUse.incrementAndGet();
+        ByteBuffer buffer = pool.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooled.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer for reuse
+     * @param buffer a buffer taken from this pool
+     */
+    void release(ByteBuffer buffer) {
+        inUse.decrementAndGet();
+        if (pooled.incrementAndGet() <= maxPooled) {
+            pool.offer(buffer);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of buffers acquired and not released yet
+     * @return the buffers in use
+     */
+    int inUse() {
+        return inUse.get();
+    }
+}
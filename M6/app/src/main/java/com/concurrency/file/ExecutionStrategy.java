@@ -0,0 +1,90 @@
+package com.concurrency.file;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.concurrency.logging.AppLogger;
+import org.slf4j.Logger;
+
+/**
+ * How ParallelFileProcessor runs its file tasks
+ */
+public enum ExecutionStrategy {
+
+    /** Fixed pool of platform threads, one per available processor */
+    PLATFORM {
+        @Override
+        public ExecutorService newExecutor() {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    },
+
+    /**
+     * One virtual thread per task, so blocking reads never hold back other files.
+     * Needs Java 21; on older runtimes it falls back to PLATFORM with a warning.
+     */
+    VIRTUAL {
+        @Override
+        public ExecutorService newExecutor() {
+            if (VIRTUAL_EXECUTOR == null) {
+                if (!FALLBACK_WARNED.getAndSet(true)) {
+                    logger.warn("Virtual threads need Java 21, running on {}; using platform threads",
+                            Runtime.version());
+                }
+                return PLATFORM.newExecutor();
+            }
+            try {
+                return (ExecutorService) VIRTUAL_EXECUTOR.invokeExact();
+            } catch (Throwable e) {
+                throw new IllegalStateException("Failed to create virtual thread executor", e);
+            }
+        }
+    },
+
+    /** Dedicated work-stealing ForkJoinPool, one worker per available processor */
+    FORK_JOIN {
+        @Override
+        public ExecutorService newExecutor() {
+            return new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+    };
+
+    private static final Logger logger = AppLogger.getLogger(ExecutionStrategy.class);
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor, looked up reflectively so the code still
+     * compiles and runs on Java 17; null if the runtime has no virtual threads
+     */
+    private static final MethodHandle VIRTUAL_EXECUTOR = findVirtualExecutor();
+
+    /** The fallback is logged once per JVM rather than on every run */
+    private static final AtomicBoolean FALLBACK_WARNED = new AtomicBoolean();
+
+    /**
+     * Creates the executor for one run; the caller shuts it down
+     * @return a new executor service
+     */
+    public abstract ExecutorService newExecutor();
+
+    /**
+     * Returns whether this strategy runs as described on the current runtime
+     * @return false for VIRTUAL on runtimes without virtual threads
+     */
+    public boolean isSupported() {
+        return this != VIRTUAL || VIRTUAL_EXECUTOR != null;
+    }
+
+    private static MethodHandle findVirtualExecutor() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class,
+                    "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
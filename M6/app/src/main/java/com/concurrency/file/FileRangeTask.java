@@ -0,0 +1,130 @@
+package com.concurrency.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Processes a byte range of a large file, splitting it in halves until each range is
+ * at most splitSize bytes. The halves are cut just after a record delimiter, so no record
+ * spans two ranges, and idle workers of the ForkJoinPool steal the forked halves.
+ * Ranges read through positional reads, which are safe on a channel shared by all ranges.
+ */
+final class FileRangeTask extends RecursiveTask<SplittableProcessor> {
+
+    /** Size of the reads used to find a record boundary */
+    private static final int SCAN_SIZE = 8 * 1024;
+
+    private final FileChannel channel;
+    private final Supplier<? extends ContentProcessor> processorFactory;
+    private final byte delimiter;
+    private final long start;
+    private final long end;
+    private final long splitSize;
+
+    /** Bytes read by this range and its subranges, set once the task has completed */
+    private long bytesRead;
+
+    /**
+     * Creates a task for a range of a file
+     * @param channel the open file, shared by all ranges
+     * @param processorFactory creates the processor of each range; must create SplittableProcessors
+     * @param delimiter the record delimiter ranges are split after
+     * @param start first byte of the range
+     * @param end end of the range, exclusive
+     * @param splitSize ranges longer than this are split
+     */
+    FileRangeTask(FileChannel channel, Supplier<? extends ContentProcessor> processorFactory, byte delimiter,
+                  long start, long end, long splitSize) {
+        this.channel = channel;
+        this.processorFactory = processorFactory;
+        this.delimiter = delimiter;
+        this.start = start;
+        this.end = end;
+        this.splitSize = splitSize;
+    }
+
+    /**
+     * Returns the number of bytes read by the whole range
+     * @return bytes read, valid after the task has completed
+     */
+    long bytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    protected SplittableProcessor compute() {
+        try {
+            if (end - start > splitSize) {
+                long boundary = boundaryAfter(start + (end - start) / 2);
+                if (boundary < end) {
+                    FileRangeTask left = new FileRangeTask(channel, processorFactory, delimiter, start, boundary, splitSize);
+                    FileRangeTask right = new FileRangeTask(channel, processorFactory, delimiter, boundary, end, splitSize);
+                    left.fork();
+                    SplittableProcessor rightResult = right.compute();
+                    SplittableProcessor result = left.join();
+                    result.merge(rightResult);
+                    bytesRead = left.bytesRead + right.bytesRead;
+                    return result;
+                }
+            }
+            return processRange();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the range sequentially through one processor
+     */
+    private SplittableProcessor processRange() throws IOException {
+        SplittableProcessor processor = (SplittableProcessor) processorFactory.get();
+        ByteBuffer buffer = FileTask.BUFFERS.acquire();
+        long position = start;
+        try {
+            while (position < end) {
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                int read = channel.read(buffer, position);
+                if (read == -1) {
+                    break;
+                }
+                position += read;
+                buffer.flip();
+                processor.process(buffer);
+                buffer.clear();
+            }
+            processor.finish();
+        } finally {
+            FileTask.BUFFERS.release(buffer);
+        }
+        bytesRead = position - start;
+        return processor;
+    }
+
+    /**
+     * Finds the first position after a delimiter at or past from - 1, so that the range
+     * before it ends with a complete record
+     * @return the boundary, or end if the rest of the range holds no delimiter
+     */
+    private long boundaryAfter(long from) throws IOException {
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_SIZE);
+        long position = from - 1;
+        while (position < end) {
+            scan.clear().limit((int) Math.min(SCAN_SIZE, end - position));
+            int read = channel.read(scan, position);
+            if (read == -1) {
+                return end;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == delimiter) {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return end;
+    }
+}
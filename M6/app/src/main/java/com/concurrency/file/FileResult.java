@@ -0,0 +1,44 @@
+package com.concurrency.file;
+
+import com.concurrency.enums.FileStatus;
+
+/**
+ * Outcome of processing one file
+ * @param fileName the processed file
+ * @param status COMPLETED, or FAILED if the file could not be read
+ * @param bytesRead number of bytes read from the file
+ * @param records number of records the processor found, such as lines
+ * @param checksum checksum computed by the processor, or 0 if it computes none
+ * @param elapsedNanos time spent reading and processing the file
+ */
+public record FileResult(String fileName, FileStatus status, long bytesRead, long records,
+                         long checksum, long elapsedNanos) {
+
+    /**
+     * Creates the result of a file that could not be processed
+     * @param fileName the file
+     * @param elapsedNanos time spent before the failure
+     * @return a FAILED result with no bytes read
+     */
+    public static FileResult failed(String fileName, long elapsedNanos) {
+        return new FileResult(fileName, FileStatus.FAILED, 0, 0, 0, elapsedNanos);
+    }
+
+    /**
+     * Returns the read throughput for this file
+     * @return megabytes (10^6 bytes) per second, or 0 if no time was measured
+     */
+    public double megabytesPerSecond() {
+        return throughput(bytesRead, elapsedNanos);
+    }
+
+    /**
+     * Computes a throughput in megabytes (10^6 bytes) per second
+     * @param bytes number of bytes
+     * @param nanos elapsed time in nanoseconds
+     * @return the throughput, or 0 if no time was measured
+     */
+    static double throughput(long bytes, long nanos) {
+        return nanos <= 0 ? 0 : bytes * 1_000.0 / nanos;
+    }
+}
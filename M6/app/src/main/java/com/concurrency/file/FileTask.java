@@ -1,53 +1,149 @@
 package com.concurrency.file;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
 
 import com.concurrency.enums.FileStatus;
+import com.concurrency.exception.FileProcessingException;
 import com.concurrency.logging.AppLogger;
 import org.slf4j.Logger;
 
 /**
  * Represents a file processing task that can be executed in parallel.
  * Uses Callable interface to return processing results.
+ * Reads the file through a FileChannel into a pooled direct buffer, and runs a
+ * ContentProcessor over the bytes. Large files with a SplittableProcessor are split
+ * into byte ranges processed in parallel by a ForkJoinPool.
  */
-public class FileTask implements Callable<FileStatus> {
+public class FileTask implements Callable<FileResult> {
 
     private static final Logger logger = AppLogger.getLogger(FileTask.class);
 
+    /** Read buffer size; large enough to amortize each read system call */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Files larger than this are processed in parallel ranges when the processor is splittable */
+    static final long DEFAULT_SPLIT_SIZE = 32L * 1024 * 1024;
+
+    /** Reusable direct buffers, so that reads need neither allocation nor a heap copy */
+    static final DirectBufferPool BUFFERS = new DirectBufferPool(BUFFER_SIZE, 256);
+
     private final String fileName;
+    private final Supplier<? extends ContentProcessor> processorFactory;
+    private final long splitSize;
 
     /**
-     * Creates a new file processing task
+     * Creates a new file processing task that counts lines
      * @param fileName name of the file to process
      */
     public FileTask(String fileName) {
+        this(fileName, ContentProcessor::lineCounter);
+    }
+
+    /**
+     * Creates a new file processing task
+     * @param fileName name of the file to process
+     * @param processorFactory creates the processor run over the file's bytes
+     */
+    public FileTask(String fileName, Supplier<? extends ContentProcessor> processorFactory) {
+        this(fileName, processorFactory, DEFAULT_SPLIT_SIZE);
+    }
+
+    /**
+     * Creates a new file processing task that splits files larger than splitSize into
+     * ranges processed in parallel, if the processor is a SplittableProcessor. The ranges
+     * run in the ForkJoinPool the task runs in, or in the common pool otherwise.
+     * @param fileName name of the file to process
+     * @param processorFactory creates the processor run over the file's bytes
+     * @param splitSize size above which a file is split
+     */
+    public FileTask(String fileName, Supplier<? extends ContentProcessor> processorFactory, long splitSize) {
+        if (processorFactory == null) {
+            throw new IllegalArgumentException("Processor factory cannot be null");
+        }
+        if (splitSize <= 0) {
+            throw new IllegalArgumentException("Split size must be positive");
+        }
         this.fileName = fileName;
+        this.processorFactory = processorFactory;
+        this.splitSize = splitSize;
     }
 
     /**
-     * Processes the file and returns the status
-     * @return FileStatus indicating processing result
-     * @throws Exception if processing fails
+     * Processes the file and returns the result
+     * @return FileResult with COMPLETED status, or FAILED if the name is invalid, the file
+     *         does not exist or the task was interrupted
+     * @throws FileProcessingException if the file exists but cannot be read
      */
     @Override
-    public FileStatus call() throws Exception {
+    public FileResult call() {
+        long start = System.nanoTime();
         if (fileName == null || fileName.trim().isEmpty()) {
             logger.error("Invalid file name provided");
-            return FileStatus.FAILED;
+            return FileResult.failed(fileName, 0);
         }
 
-        logger.info("Processing file: {}", fileName);
+        logger.debug("Processing file: {}", fileName);
+        ContentProcessor processor = processorFactory.get();
+        ByteBuffer buffer = BUFFERS.acquire();
+        long bytesRead = 0;
 
-        try {
-            // Simulate file processing time
-            Thread.sleep(1000);
-            logger.info("Completed file: {}", fileName);
-            return FileStatus.COMPLETED;
-            
-        } catch (InterruptedException e) {
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (processor instanceof SplittableProcessor splittable && size > splitSize) {
+                FileRangeTask ranges = new FileRangeTask(channel, processorFactory, splittable.delimiter(),
+                        0, size, splitSize);
+                processor = ForkJoinTask.inForkJoinPool() ? ranges.invoke() : ForkJoinPool.commonPool().invoke(ranges);
+                bytesRead = ranges.bytesRead();
+                return completed(processor, bytesRead, start);
+            }
+            int read;
+            while ((read = channel.read(buffer)) != -1) {
+                bytesRead += read;
+                buffer.flip();
+                processor.process(buffer);
+                buffer.clear();
+            }
+            processor.finish();
+        } catch (NoSuchFileException e) {
+            logger.warn("File not found: {}", fileName);
+            return FileResult.failed(fileName, System.nanoTime() - start);
+        } catch (ClosedByInterruptException e) {
             logger.error("File processing interrupted: {}", fileName);
             Thread.currentThread().interrupt();
-            return FileStatus.FAILED;
+            return FileResult.failed(fileName, System.nanoTime() - start);
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to read file: " + fileName, e);
+        } catch (UncheckedIOException e) {
+            // Thrown by a range of a split file
+            if (e.getCause() instanceof ClosedByInterruptException) {
+                logger.error("File processing interrupted: {}", fileName);
+                Thread.currentThread().interrupt();
+                return FileResult.failed(fileName, System.nanoTime() - start);
+            }
+            throw new FileProcessingException("Failed to read file: " + fileName, e.getCause());
+        } finally {
+            BUFFERS.release(buffer);
         }
+
+        return completed(processor, bytesRead, start);
+    }
+
+    private FileResult completed(ContentProcessor processor, long bytesRead, long start) {
+        long elapsed = System.nanoTime() - start;
+        FileResult result = new FileResult(fileName, FileStatus.COMPLETED, bytesRead,
+                processor.records(), processor.checksum(), elapsed);
+        logger.debug("Completed file: {} ({} bytes, {} records)", fileName, bytesRead, result.records());
+        return result;
     }
 }
@@ -0,0 +1,49 @@
+package com.concurrency.file;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Counts newline-terminated lines. Line counts of adjacent ranges simply add up.
+ */
+final class LineCounter implements SplittableProcessor {
+
+    private long lines;
+    private boolean midLine;
+
+    @Override
+    public void process(ByteBuffer chunk) {
+        int limit = chunk.limit();
+        for (int i = chunk.position(); i < limit; i++) {
+            if (chunk.get(i) == '\n') {
+                lines++;
+            }
+        }
+        if (limit > chunk.position()) {
+            midLine = chunk.get(limit - 1) != '\n';
+        }
+        chunk.position(limit);
+    }
+
+    @Override
+    public void finish() {
+        if (midLine) {
+            lines++;
+            midLine = false;
+        }
+    }
+
+    @Override
+    public long records() {
+        return lines;
+    }
+
+    @Override
+    public byte delimiter() {
+        return '\n';
+    }
+
+    @Override
+    public void merge(SplittableProcessor other) {
+        lines += other.records();
+    }
+}
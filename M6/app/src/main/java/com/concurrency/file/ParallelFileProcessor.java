@@ -1,11 +1,25 @@
 package com.concurrency.file;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
-import com.concurrency.enums.FileStatus;
+import com.concurrency.exception.FileProcessingException;
 import com.concurrency.logging.AppLogger;
+import com.concurrency.metrics.ExecutorMetrics;
+import com.concurrency.metrics.InstrumentedExecutorService;
 import org.slf4j.Logger;
 
 /**
@@ -15,49 +29,480 @@ import org.slf4j.Logger;
  * - Callable
  * - Future
  * - Parallel execution
+ * - Selectable execution strategies: platform threads, virtual threads, ForkJoinPool
+ * - ExecutorCompletionService for results in completion order
+ * - Bounded in-flight submission, so lazy inputs of any size run in constant memory
+ * - Live task status through a lock-free TaskStatusRegistry
+ * - Per-file timeouts, retries with exponential backoff and jitter, and dead letters
+ * - Asynchronous reads with AsynchronousFileChannel and CompletionHandler
+ * - Executor metrics: queue depth, active tasks, wait and run time
  */
 public class ParallelFileProcessor {
 
     private static final Logger logger = AppLogger.getLogger(ParallelFileProcessor.class);
-    private static final int THREAD_POOL_SIZE = 3;
+
+    /** Default bound on submitted but unfinished files: enough to keep every worker busy */
+    static final int DEFAULT_MAX_IN_FLIGHT = Math.max(16, 4 * Runtime.getRuntime().availableProcessors());
+
+    private final ExecutionStrategy strategy;
+    private final int maxInFlight;
+    private final long taskTimeoutNanos;
+    private final RetryPolicy retryPolicy;
+    private final TaskStatusRegistry registry = new TaskStatusRegistry();
+    private final ExecutorMetrics executorMetrics = new ExecutorMetrics("file-processor");
+    private final ConcurrentLinkedQueue<DeadLetter> deadLetters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a processor running files on a platform thread pool sized to the processors
+     */
+    public ParallelFileProcessor() {
+        this(ExecutionStrategy.PLATFORM);
+    }
+
+    /**
+     * Creates a processor with the given execution strategy
+     * @param strategy how file tasks are run
+     */
+    public ParallelFileProcessor(ExecutionStrategy strategy) {
+        this(strategy, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Creates a processor with the given execution strategy and submission window
+     * @param strategy how file tasks are run
+     * @param maxInFlight maximum number of files submitted but not yet finished
+     */
+    public ParallelFileProcessor(ExecutionStrategy strategy, int maxInFlight) {
+        this(strategy, maxInFlight, Duration.ZERO, RetryPolicy.none());
+    }
+
+    /**
+     * Creates a processor that times out and retries files. A file that takes longer than
+     * the timeout once started is cancelled, and a timeout or FileProcessingException is
+     * retried as the policy allows. A file that fails every attempt becomes a FAILED result
+     * and a dead letter, and the rest of the batch carries on.
+     * @param strategy how file tasks are run
+     * @param maxInFlight maximum number of files submitted or waiting to be retried
+     * @param taskTimeout time allowed for each attempt, or Duration.ZERO for no limit
+     * @param retryPolicy how failed attempts are retried
+     */
+    public ParallelFileProcessor(ExecutionStrategy strategy, int maxInFlight, Duration taskTimeout,
+                                 RetryPolicy retryPolicy) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("Execution strategy cannot be null");
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Maximum in-flight files must be positive");
+        }
+        if (taskTimeout == null || taskTimeout.isNegative() || retryPolicy == null) {
+            throw new IllegalArgumentException("Task timeout must be non-negative and retry policy non-null");
+        }
+        this.strategy = strategy;
+        this.maxInFlight = maxInFlight;
+        this.taskTimeoutNanos = taskTimeout.toNanos();
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Returns the live status of this processor's tasks, for monitoring
+     * @return the status registry shared by all runs of this processor
+     */
+    public TaskStatusRegistry statusRegistry() {
+        return registry;
+    }
+
+    /**
+     * Returns the metrics of the executors running this processor's tasks, for monitoring
+     * and for sizing maxInFlight and the pool
+     * @return the metrics shared by all runs of this processor
+     */
+    public ExecutorMetrics executorMetrics() {
+        return executorMetrics;
+    }
+
+    /**
+     * Removes and returns the files that failed every attempt, across all runs so far
+     * @return the dead letters in the order the files gave up
+     */
+    public List<DeadLetter> drainDeadLetters() {
+        List<DeadLetter> drained = new ArrayList<>();
+        DeadLetter deadLetter;
+        while ((deadLetter = deadLetters.poll()) != null) {
+            drained.add(deadLetter);
+        }
+        return drained;
+    }
+
+    /**
+     * Processes a list of files in parallel, counting their lines
+     * @param files list of file names to process
+     * @return one result per file, in the order of the list
+     * @throws Exception if processing fails
+     */
+    public List<FileResult> processFiles(List<String> files) throws Exception {
+        return processFiles(files, ContentProcessor::lineCounter);
+    }
 
     /**
      * Processes a list of files in parallel
      * @param files list of file names to process
+     * @param processorFactory creates the processor run over each file's bytes
+     * @return one result per file, in the order of the list; files that could not be read
+     *         after every attempt are FAILED and listed by drainDeadLetters
      * @throws Exception if processing fails
      */
-    public void processFiles(List<String> files) throws Exception {
+    public List<FileResult> processFiles(List<String> files,
+                                         Supplier<? extends ContentProcessor> processorFactory) throws Exception {
+        return processFiles(files, processorFactory, result -> { });
+    }
+
+    /**
+     * Processes a list of files in parallel, handing each result to a callback as soon as
+     * its file is done. A slow file therefore delays only its own result, not the
+     * reporting of files that finish after it. The callback runs on the calling thread,
+     * one result at a time, so it needs no synchronization.
+     * @param files list of file names to process
+     * @param processorFactory creates the processor run over each file's bytes
+     * @param onResult receives each result in completion order
+     * @return one result per file, in the order of the list
+     * @throws Exception if processing or the callback fails; files still running are cancelled
+     */
+    public List<FileResult> processFiles(List<String> files, Supplier<? extends ContentProcessor> processorFactory,
+                                         Consumer<? super FileResult> onResult) throws Exception {
         if (files == null || files.isEmpty()) {
             logger.warn("No files provided for processing");
-            return;
+            return List.of();
+        }
+        if (onResult == null) {
+            throw new IllegalArgumentException("Result callback cannot be null");
+        }
+
+        FileResult[] results = new FileResult[files.size()];
+        run(files.iterator(), processorFactory, (result, position) -> {
+            results[position] = result;
+            onResult.accept(result);
+        });
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Processes files from a lazy source, such as a directory walk, keeping only the
+     * totals. At most maxInFlight files are read or queued at any time, and the source
+     * is only advanced as files finish, so memory stays constant however many paths it
+     * yields. The caller remains responsible for closing the stream.
+     * @param paths files to process
+     * @param processorFactory creates the processor run over each file's bytes
+     * @param onResult receives each result in completion order, on the calling thread
+     * @return the totals of the run
+     * @throws Exception if processing or the callback fails; files still running are cancelled
+     */
+    public ProcessingSummary processPaths(Stream<Path> paths, Supplier<? extends ContentProcessor> processorFactory,
+                                          Consumer<? super FileResult> onResult) throws Exception {
+        if (paths == null) {
+            throw new IllegalArgumentException("Paths cannot be null");
+        }
+        return processPaths(paths.iterator(), processorFactory, onResult);
+    }
+
+    /**
+     * Processes files from a lazy iterator, keeping only the totals
+     * @param paths files to process
+     * @param processorFactory creates the processor run over each file's bytes
+     * @param onResult receives each result in completion order, on the calling thread
+     * @return the totals of the run
+     * @throws Exception if processing or the callback fails
+     * @see #processPaths(Stream, Supplier, Consumer)
+     */
+    public ProcessingSummary processPaths(Iterator<Path> paths, Supplier<? extends ContentProcessor> processorFactory,
+                                          Consumer<? super FileResult> onResult) throws Exception {
+        if (paths == null || onResult == null) {
+            throw new IllegalArgumentException("Paths and result callback cannot be null");
+        }
+        Iterator<String> names = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return paths.hasNext();
+            }
+
+            @Override
+            public String next() {
+                return paths.next().toString();
+            }
+        };
+        return run(names, processorFactory, (result, position) -> onResult.accept(result));
+    }
+
+    /**
+     * Processes a list of files with asynchronous reads. Instead of occupying a thread per
+     * file, up to maxInFlight files are read at once through AsynchronousFileChannels
+     * whose completion handlers run on the strategy's executor. Timeouts, retries and
+     * splitting of large files apply to processFiles only.
+     * @param files list of file names to process
+     * @param processorFactory creates the processor run over each file's bytes
+     * @return one result per file, in the order of the list
+     * @throws FileProcessingException if a file exists but cannot be read
+     * @throws Exception if processing fails
+     * @see AsyncFileTask
+     */
+    public List<FileResult> processFilesAsync(List<String> files,
+                                              Supplier<? extends ContentProcessor> processorFactory) throws Exception {
+        if (files == null || files.isEmpty()) {
+            logger.warn("No files provided for processing");
+            return List.of();
         }
 
-        ExecutorService executor = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
-        List<Future<FileStatus>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        ExecutorService ioExecutor = new InstrumentedExecutorService(strategy.newExecutor(), executorMetrics);
+        Semaphore window = new Semaphore(maxInFlight);
+        List<AsyncFileTask> tasks = new ArrayList<>(files.size());
+        List<CompletableFuture<FileResult>> futures = new ArrayList<>(files.size());
+        List<FileResult> results = new ArrayList<>(files.size());
+        ProcessingSummary.Builder totals = new ProcessingSummary.Builder();
+        boolean completed = false;
 
         try {
-            // Submit all tasks
+            // Start reads as the window allows; completion handlers free their slot
             for (String file : files) {
-                FileTask task = new FileTask(file);
-                results.add(executor.submit(task));
+                window.acquire();
+                AsyncFileTask task = new AsyncFileTask(file, processorFactory);
+                CompletableFuture<FileResult> future = task.start(ioExecutor);
+                future.whenComplete((result, failure) -> window.release());
+                tasks.add(task);
+                futures.add(future);
             }
 
-            // Collect results
-            for (Future<FileStatus> future : results) {
-                FileStatus status = future.get();
-                logger.info("File processed with status: {}", status);
+            for (CompletableFuture<FileResult> future : futures) {
+                FileResult result;
+                try {
+                    result = future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof FileProcessingException) {
+                        throw (FileProcessingException) e.getCause();
+                    }
+                    throw e;
+                }
+                totals.add(result);
+                results.add(result);
             }
-            
+            completed = true;
+
         } finally {
-            executor.shutdown();
-            try {
-                if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
-                    executor.shutdownNow();
+            if (!completed) {
+                // Reads still in progress need the executor to close their channels and return their buffers
+                tasks.forEach(AsyncFileTask::cancel);
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).exceptionally(e -> null).join();
+            }
+            shutdown(ioExecutor, completed);
+        }
+
+        logSummary(totals.build(System.nanoTime() - start));
+        return results;
+    }
+
+    /**
+     * Runs one task per file through a window of at most maxInFlight files. The calling
+     * thread is the only producer: it fills the window, then waits for any task to complete
+     * before pulling the next file, so a slow consumer or a slow disk holds back the source
+     * instead of letting tasks pile up in the executor's queue. The same thread enforces
+     * timeouts and resubmits retries once their backoff has passed, so no worker sleeps.
+     */
+    private ProcessingSummary run(Iterator<String> files, Supplier<? extends ContentProcessor> processorFactory,
+                                  ObjIntConsumer<FileResult> onResult) throws Exception {
+        long start = System.nanoTime();
+        ExecutorService executor = new InstrumentedExecutorService(strategy.newExecutor(), executorMetrics);
+        CompletionService<FileResult> completionService = new ExecutorCompletionService<>(executor);
+        Map<Future<FileResult>, Attempt> inFlight = new IdentityHashMap<>();
+        PriorityQueue<Attempt> backingOff = new PriorityQueue<>(Comparator.comparingLong(Attempt::dueNanos));
+        ProcessingSummary.Builder totals = new ProcessingSummary.Builder();
+        boolean completed = false;
+        boolean abandoned = false;
+
+        try {
+            int submitted = 0;
+            while (files.hasNext() || !inFlight.isEmpty() || !backingOff.isEmpty()) {
+                // Resubmit retries whose backoff has passed, then top up the window
+                long now = System.nanoTime();
+                while (!backingOff.isEmpty() && backingOff.peek().dueNanos() <= now) {
+                    submit(completionService, inFlight, backingOff.poll(), processorFactory);
+                }
+                while (inFlight.size() + backingOff.size() < maxInFlight && files.hasNext()) {
+                    String fileName = files.next();
+                    Attempt attempt = new Attempt(submitted++, fileName, 1, registry.register(fileName), 0);
+                    submit(completionService, inFlight, attempt, processorFactory);
+                }
+
+                // Collect the next result to complete, waking up for timeouts and retries
+                Future<FileResult> future = nextCompleted(completionService, inFlight, backingOff);
+                if (future == null) {
+                    abandoned |= cancelTimedOut(inFlight);
+                    continue;
+                }
+                Attempt attempt = inFlight.remove(future);
+                FileResult result = resultOf(future, attempt, backingOff);
+                if (result == null) {
+                    continue;
                 }
-            } catch (InterruptedException e) {
+                logger.debug("File {} processed with status: {}", result.fileName(), result.status());
+                totals.add(result);
+                onResult.accept(result, attempt.position());
+            }
+            completed = true;
+
+        } finally {
+            // Tasks cancelled on timeout may ignore the interrupt, so they are not waited for
+            shutdown(executor, completed && !abandoned);
+            if (!completed) {
+                inFlight.values().forEach(attempt -> registry.fail(attempt.task()));
+                backingOff.forEach(attempt -> registry.fail(attempt.task()));
+            }
+        }
+
+        ProcessingSummary summary = totals.build(System.nanoTime() - start);
+        logSummary(summary);
+        return summary;
+    }
+
+    private void submit(CompletionService<FileResult> completionService, Map<Future<FileResult>, Attempt> inFlight,
+                        Attempt attempt, Supplier<? extends ContentProcessor> processorFactory) {
+        FileTask task = new FileTask(attempt.fileName(), processorFactory);
+        inFlight.put(completionService.submit(() -> track(attempt.task(), task)), attempt);
+    }
+
+    /**
+     * Waits for the next task to complete, or until the next timeout or retry is due
+     * @return the completed task, or null if the wait ended first
+     */
+    private Future<FileResult> nextCompleted(CompletionService<FileResult> completionService,
+                                             Map<Future<FileResult>, Attempt> inFlight,
+                                             PriorityQueue<Attempt> backingOff) throws InterruptedException {
+        long now = System.nanoTime();
+        long waitNanos = backingOff.isEmpty() ? Long.MAX_VALUE : backingOff.peek().dueNanos() - now;
+        if (taskTimeoutNanos > 0) {
+            for (Attempt attempt : inFlight.values()) {
+                // A task not started yet cannot time out sooner than a full timeout from now
+                long started = attempt.task().startedNanos();
+                long remaining = started == TaskStatusRegistry.NOT_STARTED ? taskTimeoutNanos
+                        : started + taskTimeoutNanos - now;
+                waitNanos = Math.min(waitNanos, remaining);
+            }
+        }
+        if (waitNanos == Long.MAX_VALUE) {
+            return completionService.take();
+        }
+        return completionService.poll(Math.max(0, waitNanos), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Cancels the tasks that have run longer than the timeout. Their cancelled futures
+     * then complete and are retried or given up like any failure.
+     * @return true if any task was cancelled
+     */
+    private boolean cancelTimedOut(Map<Future<FileResult>, Attempt> inFlight) {
+        if (taskTimeoutNanos == 0) {
+            return false;
+        }
+        long now = System.nanoTime();
+        boolean cancelled = false;
+        for (Map.Entry<Future<FileResult>, Attempt> entry : inFlight.entrySet()) {
+            long started = entry.getValue().task().startedNanos();
+            if (started != TaskStatusRegistry.NOT_STARTED && now - started >= taskTimeoutNanos
+                    && entry.getKey().cancel(true)) {
+                logger.warn("File {} timed out after {} ms", entry.getValue().fileName(),
+                        TimeUnit.NANOSECONDS.toMillis(now - started));
+                cancelled = true;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Runs a task on a worker, recording its transitions in the status registry.
+     * Failures are recorded by the calling thread, which decides whether to retry.
+     */
+    private FileResult track(TaskStatusRegistry.Task status, FileTask task) {
+        registry.start(status);
+        FileResult result = task.call();
+        registry.finish(status, result);
+        return result;
+    }
+
+    /**
+     * Returns the result of a completed attempt. A timeout or FileProcessingException is
+     * scheduled for retry while the policy allows, and otherwise becomes a FAILED result
+     * and a dead letter.
+     * @return the result, or null if the file will be retried
+     * @throws Exception if the task failed in any other way
+     */
+    private FileResult resultOf(Future<FileResult> future, Attempt attempt,
+                                PriorityQueue<Attempt> backingOff) throws Exception {
+        Throwable failure;
+        try {
+            return future.get();
+        } catch (CancellationException e) {
+            failure = new TimeoutException("Timed out after "
+                    + TimeUnit.NANOSECONDS.toMillis(taskTimeoutNanos) + " ms: " + attempt.fileName());
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof FileProcessingException)) {
+                registry.fail(attempt.task());
+                throw e;
+            }
+            failure = e.getCause();
+        }
+
+        if (attempt.number() < retryPolicy.maxAttempts()) {
+            TaskStatusRegistry.Task next = registry.retry(attempt.task());
+            if (next != null) {
+                long backoff = retryPolicy.backoffNanos(attempt.number());
+                logger.warn("Retrying file {} in {} ms after attempt {} failed: {}", attempt.fileName(),
+                        TimeUnit.NANOSECONDS.toMillis(backoff), attempt.number(), failure.getMessage());
+                backingOff.add(new Attempt(attempt.position(), attempt.fileName(), attempt.number() + 1, next,
+                        System.nanoTime() + backoff));
+                return null;
+            }
+        }
+        registry.fail(attempt.task());
+        logger.error("Giving up on file {} after {} attempts", attempt.fileName(), attempt.number(), failure);
+        deadLetters.add(new DeadLetter(attempt.fileName(), attempt.number(), failure));
+        long started = attempt.task().startedNanos();
+        return FileResult.failed(attempt.fileName(),
+                started == TaskStatusRegistry.NOT_STARTED ? 0 : System.nanoTime() - started);
+    }
+
+    /**
+     * Shuts the executor down, waiting for running tasks after a normal run and
+     * interrupting them after a failure
+     */
+    private static void shutdown(ExecutorService executor, boolean completed) {
+        if (!completed) {
+            executor.shutdownNow();
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
                 executor.shutdownNow();
-                Thread.currentThread().interrupt();
             }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
         }
     }
+
+    /**
+     * Logs the totals of a run, with the aggregate throughput over the wall-clock time
+     */
+    private void logSummary(ProcessingSummary summary) {
+        logger.info("Processed {} files ({} failed) with {} strategy: {} bytes, {} records in {} ms, {} MB/s",
+                summary.files(), summary.failed(), strategy, summary.bytesRead(), summary.records(),
+                TimeUnit.NANOSECONDS.toMillis(summary.elapsedNanos()),
+                String.format("%.1f", summary.megabytesPerSecond()));
+    }
+
+    /**
+     * One attempt at a file: its position in the input, its registry handle and, while it
+     * is backing off before a retry, when it is due
+     */
+    private record Attempt(int position, String fileName, int number, TaskStatusRegistry.Task task,
+                           long dueNanos) {
+    }
 }
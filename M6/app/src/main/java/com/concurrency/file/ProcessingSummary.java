@@ -0,0 +1,46 @@
+package com.concurrency.file;
+
+import com.concurrency.enums.FileStatus;
+
+/**
+ * Totals of one processing run, kept instead of the individual results when the
+ * input is too large to hold them all
+ * @param files number of files processed
+ * @param failed number of files that could not be read
+ * @param bytesRead total bytes read
+ * @param records total records found
+ * @param elapsedNanos wall-clock time of the run
+ */
+public record ProcessingSummary(long files, long failed, long bytesRead, long records, long elapsedNanos) {
+
+    /**
+     * Returns the aggregate read throughput over the wall-clock time of the run
+     * @return megabytes (10^6 bytes) per second, or 0 if no time was measured
+     */
+    public double megabytesPerSecond() {
+        return FileResult.throughput(bytesRead, elapsedNanos);
+    }
+
+    /**
+     * Accumulates the totals of a run one result at a time
+     */
+    static final class Builder {
+        private long files;
+        private long failed;
+        private long bytesRead;
+        private long records;
+
+        void add(FileResult result) {
+            files++;
+            bytesRead += result.bytesRead();
+            records += result.records();
+            if (result.status() == FileStatus.FAILED) {
+                failed++;
+            }
+        }
+
+        ProcessingSummary build(long elapsedNanos) {
+            return new ProcessingSummary(files, failed, bytesRead, records, elapsedNanos);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.concurrency.file;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How often a file is retried after a transient failure, such as a FileProcessingException
+ * or a timeout, and how long to wait in between. The waits grow exponentially and are
+ * fully jittered, so files that failed together do not all retry at the same moment.
+ * @param maxAttempts number of attempts per file, including the first
+ * @param initialBackoff upper bound of the wait before the first retry
+ * @param maxBackoff cap on the upper bound as it doubles with each retry
+ */
+public record RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+
+    /**
+     * Validates the policy
+     * @throws IllegalArgumentException if maxAttempts is not positive, a backoff is null or
+     *         negative, or maxBackoff is less than initialBackoff
+     */
+    public RetryPolicy {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Maximum attempts must be positive");
+        }
+        if (initialBackoff == null || maxBackoff == null || initialBackoff.isNegative()
+                || maxBackoff.compareTo(initialBackoff) < 0) {
+            throw new IllegalArgumentException("Backoffs must be non-negative, with maxBackoff at least initialBackoff");
+        }
+    }
+
+    /**
+     * Returns the policy of a single attempt without retries
+     * @return a policy that never retries
+     */
+    public static RetryPolicy none() {
+        return new RetryPolicy(1, Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * Picks the wait before the next attempt: a random time up to
+     * min(maxBackoff, initialBackoff * 2^(failedAttempts - 1))
+     * @param failedAttempts number of attempts that have failed so far, at least 1
+     * @return the wait in nanoseconds
+     */
+    long backoffNanos(int failedAttempts) {
+        long initial = initialBackoff.toNanos();
+        long max = maxBackoff.toNanos();
+        int shift = Math.min(failedAttempts - 1, 62);
+        long bound = initial > (max >> shift) ? max : initial << shift;
+        return bound == 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+}
@@ -0,0 +1,21 @@
+package com.concurrency.file;
+
+/**
+ * A content processor whose work can be split across byte ranges of one file.
+ * Ranges are cut just after a delimiter byte, so every range holds whole records,
+ * and the processors of the ranges are merged once they have all finished.
+ */
+public interface SplittableProcessor extends ContentProcessor {
+
+    /**
+     * Returns the byte that ends each record; ranges are only split after it
+     * @return the record delimiter
+     */
+    byte delimiter();
+
+    /**
+     * Adds the results of a finished processor of a later range to this one
+     * @param other a processor created by the same factory, covering the range after this one's
+     */
+    void merge(SplittableProcessor other);
+}
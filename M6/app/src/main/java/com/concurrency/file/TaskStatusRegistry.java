@@ -0,0 +1,235 @@
+package com.concurrency.file;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.concurrency.enums.FileStatus;
+
+/**
+ * Live status of file tasks as they move through the FileStatus lifecycle:
+ * PENDING when submitted, PROCESSING once a worker picks them up, then COMPLETED or FAILED.
+ * Demonstrates:
+ * - Lock-free state transitions with compare-and-set, so a late update cannot undo a
+ *   cancellation
+ * - LongAdder counters, which workers update without contending with each other
+ * - A bounded ring of recent results, so memory does not grow with the number of files
+ *
+ * Workers only touch their own task and a counter per transition. Monitoring may call
+ * snapshot at any rate; it reads the in-flight tasks, bounded by the processor's window,
+ * and the ring. The figures of a snapshot are each current but not taken atomically together.
+ */
+public class TaskStatusRegistry {
+
+    /** Default number of recent results kept */
+    static final int DEFAULT_RECENT_CAPACITY = 1024;
+
+    /** Start time of a task that has not started; System.nanoTime may return 0 or less */
+    static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private final Set<Task> active = ConcurrentHashMap.newKeySet();
+    private final Map<FileStatus, LongAdder> counts = new EnumMap<>(FileStatus.class);
+
+    private final AtomicReferenceArray<FileResult> recent;
+    private final AtomicLong recorded = new AtomicLong();
+
+    /**
+     * Creates a registry keeping the last 1024 results
+     */
+    public TaskStatusRegistry() {
+        this(DEFAULT_RECENT_CAPACITY);
+    }
+
+    /**
+     * Creates a registry
+     * @param recentCapacity number of recent results kept for snapshots
+     */
+    public TaskStatusRegistry(int recentCapacity) {
+        if (recentCapacity <= 0) {
+            throw new IllegalArgumentException("Recent capacity must be positive");
+        }
+        this.recent = new AtomicReferenceArray<>(recentCapacity);
+        for (FileStatus status : FileStatus.values()) {
+            counts.put(status, new LongAdder());
+        }
+    }
+
+    /**
+     * Registers a submitted task as PENDING
+     * @param fileName the file of the task
+     * @return the handle used for the task's transitions
+     */
+    Task register(String fileName) {
+        Task task = new Task(fileName);
+        active.add(task);
+        counts.get(FileStatus.PENDING).increment();
+        return task;
+    }
+
+    /**
+     * Moves a task from PENDING to PROCESSING
+     * @param task the task
+     * @return false if the task was already failed, cancelled or retried
+     */
+    boolean start(Task task) {
+        long now = System.nanoTime();
+        if (!transition(task, FileStatus.PENDING, FileStatus.PROCESSING)) {
+            return false;
+        }
+        task.startedNanos = now;
+        return true;
+    }
+
+    /**
+     * Moves a PROCESSING task to the final status of its result
+     * @param task the task
+     * @param result the result of the task
+     * @return false if the task was failed, cancelled or retried meanwhile
+     */
+    boolean finish(Task task, FileResult result) {
+        if (!transition(task, FileStatus.PROCESSING, result.status())) {
+            return false;
+        }
+        retire(task, result);
+        return true;
+    }
+
+    /**
+     * Marks a PENDING or PROCESSING task FAILED, such as when it threw or was cancelled
+     * @param task the task
+     * @return false if the task had already ended
+     */
+    boolean fail(Task task) {
+        if (!transition(task, FileStatus.PENDING, FileStatus.FAILED)
+                && !transition(task, FileStatus.PROCESSING, FileStatus.FAILED)) {
+            return false;
+        }
+        long started = task.startedNanos;
+        retire(task, FileResult.failed(task.fileName, started == NOT_STARTED ? 0 : System.nanoTime() - started));
+        return true;
+    }
+
+    /**
+     * Ends a failed attempt of a task without counting it as FAILED, and registers the
+     * next attempt as PENDING. The old handle can no longer move, so an attempt that was
+     * abandoned after a timeout cannot report over its successor.
+     * @param task the failed attempt
+     * @return the handle of the next attempt, or null if the task had already ended
+     */
+    Task retry(Task task) {
+        if (!transition(task, FileStatus.PENDING, null) && !transition(task, FileStatus.PROCESSING, null)) {
+            return null;
+        }
+        active.remove(task);
+        return register(task.fileName);
+    }
+
+    /**
+     * Returns the number of tasks in a status. PENDING and PROCESSING count the tasks in
+     * that status now; COMPLETED and FAILED count every task that has ended so.
+     * @param status the status
+     * @return the count
+     */
+    public long count(FileStatus status) {
+        return counts.get(status).sum();
+    }
+
+    /**
+     * Takes a snapshot for monitoring
+     * @return the counts per status, the longest-running task and the recent results
+     */
+    public Snapshot snapshot() {
+        Map<FileStatus, Long> countSnapshot = new EnumMap<>(FileStatus.class);
+        for (FileStatus status : FileStatus.values()) {
+            countSnapshot.put(status, count(status));
+        }
+
+        long now = System.nanoTime();
+        ActiveTask oldest = null;
+        for (Task task : active) {
+            long started = task.startedNanos;
+            if (task.status.get() == FileStatus.PROCESSING && started != NOT_STARTED
+                    && (oldest == null || now - started > oldest.runningNanos())) {
+                oldest = new ActiveTask(task.fileName, now - started);
+            }
+        }
+
+        long end = recorded.get();
+        int capacity = recent.length();
+        List<FileResult> results = new ArrayList<>((int) Math.min(end, capacity));
+        for (long i = Math.max(0, end - capacity); i < end; i++) {
+            FileResult result = recent.get((int) (i % capacity));
+            if (result != null) {
+                results.add(result);
+            }
+        }
+        return new Snapshot(Collections.unmodifiableMap(countSnapshot), oldest, Collections.unmodifiableList(results));
+    }
+
+    /**
+     * Moves a task between states; a null target ends an attempt that is being retried
+     */
+    private boolean transition(Task task, FileStatus from, FileStatus to) {
+        if (!task.status.compareAndSet(from, to)) {
+            return false;
+        }
+        if (to != null) {
+            counts.get(to).increment();
+        }
+        counts.get(from).decrement();
+        return true;
+    }
+
+    private void retire(Task task, FileResult result) {
+        active.remove(task);
+        recent.set((int) (recorded.getAndIncrement() % recent.length()), result);
+    }
+
+    /**
+     * Point-in-time view of the registry
+     * @param counts number of tasks per status, as returned by count
+     * @param oldestProcessing the task that has been PROCESSING the longest, or null if none is
+     * @param recentResults results of the most recently ended tasks, oldest first; their
+     *                      elapsedNanos give the per-file durations
+     */
+    public record Snapshot(Map<FileStatus, Long> counts, ActiveTask oldestProcessing,
+                           List<FileResult> recentResults) {
+    }
+
+    /**
+     * A task being processed
+     * @param fileName the file of the task
+     * @param runningNanos time since the task started
+     */
+    public record ActiveTask(String fileName, long runningNanos) {
+    }
+
+    /**
+     * Handle of one in-flight task, or of one attempt of it when it is retried
+     */
+    static final class Task {
+        final String fileName;
+        final AtomicReference<FileStatus> status = new AtomicReference<>(FileStatus.PENDING);
+        volatile long startedNanos = NOT_STARTED;
+
+        Task(String fileName) {
+            this.fileName = fileName;
+        }
+
+        /**
+         * Returns when the attempt started
+         * @return the System.nanoTime of the start, or NOT_STARTED until it has moved to PROCESSING
+         */
+        long startedNanos() {
+            return startedNanos;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.concurrency.ingest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.concurrency.enums.FileStatus;
+import com.concurrency.file.ContentProcessor;
+import com.concurrency.file.FileResult;
+import com.concurrency.file.ParallelFileProcessor;
+import com.concurrency.logging.AppLogger;
+import org.slf4j.Logger;
+
+/**
+ * Long-running service that processes files as they land in a directory.
+ * Demonstrates:
+ * - WatchService for change notifications instead of polling the directory
+ * - Debouncing: a file is only processed once it has been quiet for a while, so files
+ *   still being written are not read half-way
+ * - A producer thread (watcher) and a consumer thread (processor) joined by a BlockingQueue
+ * - A persisted ledger, so no file is processed twice across restarts
+ *
+ * Files already in the directory when the service starts are picked up like new ones.
+ * Hidden files, whose names start with '.', are ignored; writers can use them for
+ * temporary names and rename into place when done.
+ *
+ * Files are tracked by path. Once a file has completed, a file written later under the
+ * same name is skipped, even with different content, so writers should use unique names.
+ * Files that fail, or whose run is aborted, are neither recorded in the ledger nor kept
+ * claimed, so their next change, or a restart, queues them again.
+ */
+public class DirectoryIngestionService implements AutoCloseable {
+
+    private static final Logger logger = AppLogger.getLogger(DirectoryIngestionService.class);
+
+    /** Default time a file must go without changes before it is processed */
+    public static final Duration DEFAULT_QUIET_PERIOD = Duration.ofMillis(200);
+
+    private final Path directory;
+    private final Path ledgerFile;
+    private final ProcessedFileLedger ledger;
+    private final ParallelFileProcessor processor;
+    private final Supplier<? extends ContentProcessor> processorFactory;
+    private final Consumer<? super FileResult> onResult;
+    private final long quietNanos;
+
+    private final WatchService watchService;
+    private final BlockingQueue<Path> ready = new LinkedBlockingQueue<>();
+
+    /** Files queued or being processed, so repeated events do not resubmit them */
+    private final Set<Path> claimed = ConcurrentHashMap.newKeySet();
+
+    /** Files taken off the ready queue and not yet finished; used by the processing thread only */
+    private final Set<Path> inFlight = new HashSet<>();
+
+    private final Thread watcherThread;
+    private final Thread processorThread;
+    private volatile boolean closed;
+
+    /**
+     * Creates a service counting the lines of each file
+     * @param directory the directory to watch
+     * @param ledgerFile the ledger of processed files, created if missing
+     * @param processor the processor running the files
+     * @throws IOException if the directory cannot be watched or the ledger cannot be opened
+     */
+    public DirectoryIngestionService(Path directory, Path ledgerFile, ParallelFileProcessor processor)
+            throws IOException {
+        this(directory, ledgerFile, processor, ContentProcessor::lineCounter, result -> { }, DEFAULT_QUIET_PERIOD);
+    }
+
+    /**
+     * Creates a service
+     * @param directory the directory to watch
+     * @param ledgerFile the ledger of processed files, created if missing
+     * @param processor the processor running the files
+     * @param processorFactory creates the processor run over each file's bytes
+     * @param onResult receives each result, on the service's processing thread
+     * @param quietPeriod time a file must go without changes before it is processed
+     * @throws IOException if the directory cannot be watched or the ledger cannot be opened
+     */
+    public DirectoryIngestionService(Path directory, Path ledgerFile, ParallelFileProcessor processor,
+                                     Supplier<? extends ContentProcessor> processorFactory,
+                                     Consumer<? super FileResult> onResult, Duration quietPeriod) throws IOException {
+        if (directory == null || ledgerFile == null || processor == null || processorFactory == null
+                || onResult == null || quietPeriod == null || quietPeriod.isNegative()) {
+            throw new IllegalArgumentException("Arguments cannot be null and quiet period cannot be negative");
+        }
+        if (!Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("Not a directory: " + directory);
+        }
+        this.directory = directory.toAbsolutePath().normalize();
+        this.ledgerFile = ledgerFile.toAbsolutePath().normalize();
+        this.processor = processor;
+        this.processorFactory = processorFactory;
+        this.onResult = onResult;
+        this.quietNanos = quietPeriod.toNanos();
+        this.ledger = new ProcessedFileLedger(ledgerFile);
+        try {
+            this.watchService = this.directory.getFileSystem().newWatchService();
+            this.directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            ledger.close();
+            throw e;
+        }
+        this.watcherThread = new Thread(this::watch, "ingest-watcher");
+        this.processorThread = new Thread(this::process, "ingest-processor");
+    }
+
+    /**
+     * Starts watching the directory and processing files
+     */
+    public void start() {
+        logger.info("Watching {} for new files", directory);
+        watcherThread.start();
+        processorThread.start();
+    }
+
+    /**
+     * Returns the ledger of processed files
+     * @return the ledger
+     */
+    public ProcessedFileLedger ledger() {
+        return ledger;
+    }
+
+    /**
+     * Stops watching, cancels files being processed and closes the ledger
+     * @throws IOException if the watch service or the ledger cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        watchService.close();
+        processorThread.interrupt();
+        try {
+            watcherThread.join(TimeUnit.SECONDS.toMillis(10));
+            processorThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            ledger.close();
+        }
+        logger.info("Stopped watching {}", directory);
+    }
+
+    /**
+     * Watcher loop: turns change events into ready files once they have been quiet for
+     * the quiet period. Each file's last change is tracked here, on one thread, and the
+     * wait for events ends when the earliest pending file is due.
+     */
+    private void watch() {
+        Map<Path, Long> pending = new HashMap<>();
+        scan(pending);
+        try {
+            while (!closed) {
+                WatchKey key = pending.isEmpty() ? watchService.take()
+                        : watchService.poll(nextDue(pending), TimeUnit.NANOSECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            logger.warn("Missed events in {}, rescanning", directory);
+                            scan(pending);
+                        } else {
+                            offer(pending, directory.resolve((Path) event.context()));
+                        }
+                    }
+                    if (!key.reset()) {
+                        logger.error("Directory {} is no longer accessible", directory);
+                        return;
+                    }
+                }
+                releaseQuiet(pending);
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * Processor loop: runs files through the processor as they become ready. A run keeps
+     * pulling ready files for as long as any arrive, and the thread waits for the next
+     * file once the directory goes idle.
+     */
+    private void process() {
+        while (!closed) {
+            Path first;
+            try {
+                first = ready.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            inFlight.add(first);
+            try {
+                processor.processPaths(readyFiles(first), processorFactory, this::completed);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                if (closed) {
+                    return;
+                }
+                logger.error("Failed to process files from {}", directory, e);
+            } finally {
+                // Files the run took but did not finish may be offered again
+                claimed.removeAll(inFlight);
+                inFlight.clear();
+            }
+        }
+    }
+
+    private void completed(FileResult result) {
+        Path file = Path.of(result.fileName());
+        if (result.status() == FileStatus.COMPLETED) {
+            try {
+                ledger.record(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            claimed.remove(file);
+        }
+        inFlight.remove(file);
+        onResult.accept(result);
+    }
+
+    /**
+     * Returns the files ready now, starting with one already taken; ends as soon as none is ready.
+     * A file counts as in flight once it leaves the queue, as a run may abort before taking it.
+     */
+    private Iterator<Path> readyFiles(Path first) {
+        return new Iterator<>() {
+            private Path next = first;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !closed) {
+                    next = ready.poll();
+                    if (next != null) {
+                        inFlight.add(next);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Path next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Path path = next;
+                next = null;
+                return path;
+            }
+        };
+    }
+
+    /**
+     * Adds every file already in the directory to the pending files
+     */
+    private void scan(Map<Path, Long> pending) {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                offer(pending, entry);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to scan {}", directory, e);
+        }
+    }
+
+    /**
+     * Records a change to a file, restarting its quiet period
+     */
+    private void offer(Map<Path, Long> pending, Path file) {
+        if (file.getFileName().toString().startsWith(".") || file.equals(ledgerFile)
+                || claimed.contains(file) || ledger.contains(file)) {
+            return;
+        }
+        pending.put(file, System.nanoTime());
+    }
+
+    /**
+     * Moves files that have been quiet for the quiet period to the ready queue
+     */
+    private void releaseQuiet(Map<Path, Long> pending) {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, Long>> entries = pending.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Path, Long> entry = entries.next();
+            if (now - entry.getValue() < quietNanos) {
+                continue;
+            }
+            entries.remove();
+            Path file = entry.getKey();
+            if (Files.isRegularFile(file) && claimed.add(file)) {
+                ready.add(file);
+            }
+        }
+    }
+
+    private long nextDue(Map<Path, Long> pending) {
+        long now = System.nanoTime();
+        long due = Long.MAX_VALUE;
+        for (long changed : pending.values()) {
+            due = Math.min(due, changed + quietNanos - now);
+        }
+        return Math.max(0, due);
+    }
+}
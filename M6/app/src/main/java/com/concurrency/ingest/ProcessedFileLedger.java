@@ -0,0 +1,124 @@
+package com.concurrency.ingest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.concurrency.logging.AppLogger;
+import org.slf4j.Logger;
+
+/**
+ * Append-only record of processed files, one absolute path per line, that survives restarts.
+ * Every entry is forced to disk before record returns, so a file recorded as processed is
+ * never processed again, even after a crash. A crash that cuts the last line short leaves a
+ * torn entry, which is dropped when the ledger is opened again.
+ */
+public class ProcessedFileLedger implements AutoCloseable {
+
+    private static final Logger logger = AppLogger.getLogger(ProcessedFileLedger.class);
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Set<String> processed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Opens a ledger, creating it if it does not exist
+     * @param file the ledger file
+     * @throws IOException if the ledger cannot be read or opened for writing
+     */
+    public ProcessedFileLedger(Path file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("Ledger file cannot be null");
+        }
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            load();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns whether a file has been processed
+     * @param path the file
+     * @return true if the file is in the ledger
+     */
+    public boolean contains(Path path) {
+        return processed.contains(key(path));
+    }
+
+    /**
+     * Records a file as processed and forces the entry to disk
+     * @param path the file
+     * @return false if the file was already recorded
+     * @throws IOException if the entry cannot be written
+     */
+    public synchronized boolean record(Path path) throws IOException {
+        String key = key(path);
+        if (key.indexOf('\n') >= 0) {
+            throw new IOException("Cannot record a file name containing a newline: " + key);
+        }
+        if (!processed.add(key)) {
+            return false;
+        }
+        ByteBuffer line = StandardCharsets.UTF_8.encode(key + "\n");
+        while (line.hasRemaining()) {
+            channel.write(line);
+        }
+        channel.force(false);
+        return true;
+    }
+
+    /**
+     * Returns the number of files recorded
+     * @return the entry count
+     */
+    public int size() {
+        return processed.size();
+    }
+
+    /**
+     * Closes the ledger file
+     * @throws IOException if closing fails
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads the existing entries and positions the channel after the last complete one
+     */
+    private void load() throws IOException {
+        // cut at the last newline byte before decoding, so a torn multi-byte character is never decoded
+        byte[] bytes = Files.readAllBytes(file);
+        int complete = bytes.length;
+        while (complete > 0 && bytes[complete - 1] != '\n') {
+            complete--;
+        }
+        for (String line : new String(bytes, 0, complete, StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty()) {
+                processed.add(line);
+            }
+        }
+        if (complete < channel.size()) {
+            logger.warn("Dropping torn entry at the end of ledger {}", file);
+            channel.truncate(complete);
+        }
+        channel.position(complete);
+        logger.info("Loaded {} processed files from ledger {}", processed.size(), file);
+    }
+
+    private static String key(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+}
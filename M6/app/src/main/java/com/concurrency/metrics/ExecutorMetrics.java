@@ -0,0 +1,95 @@
+package com.concurrency.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of one executor, or of a series of executors doing the
+ * same job, such as the per-run pools of a ParallelFileProcessor. Updated by
+ * InstrumentedExecutorService; every update is a LongAdder increment, so workers never
+ * contend on a shared counter.
+ */
+public class ExecutorMetrics {
+
+    private final String name;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder active = new LongAdder();
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private final LatencyHistogram runTime = new LatencyHistogram();
+
+    /**
+     * Creates empty metrics
+     * @param name name used when the metrics are reported
+     */
+    public ExecutorMetrics(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Metrics name cannot be blank");
+        }
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of the metrics
+     * @return the name
+     */
+    public String name() {
+        return name;
+    }
+
+    void taskSubmitted() {
+        submitted.increment();
+        queued.increment();
+    }
+
+    void taskRejected() {
+        rejected.increment();
+    }
+
+    void tasksDequeued(long count) {
+        queued.add(-count);
+    }
+
+    void taskStarted(long waitNanos) {
+        active.increment();
+        waitTime.record(waitNanos);
+    }
+
+    void taskFinished(long runNanos) {
+        active.decrement();
+        completed.increment();
+        runTime.record(runNanos);
+    }
+
+    void taskFailed() {
+        failed.increment();
+    }
+
+    /**
+     * Takes a snapshot of the metrics
+     * @return the current counts and histograms
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(name, submitted.sum(), completed.sum(), failed.sum(), rejected.sum(),
+                queued.sum(), active.sum(), waitTime.snapshot(), runTime.snapshot());
+    }
+
+    /**
+     * Point-in-time view of the metrics
+     * @param name name of the metrics
+     * @param submitted tasks handed to the executor
+     * @param completed tasks that ran to the end, including those that failed
+     * @param failed tasks that threw
+     * @param rejected tasks the executor refused
+     * @param queueDepth tasks submitted but not started yet
+     * @param active tasks running now
+     * @param waitTime time tasks spent queued
+     * @param runTime time tasks spent running
+     */
+    public record Snapshot(String name, long submitted, long completed, long failed, long rejected,
+                           long queueDepth, long active, LatencyHistogram.Snapshot waitTime,
+                           LatencyHistogram.Snapshot runTime) {
+    }
+}
@@ -0,0 +1,160 @@
+package com.concurrency.metrics;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ExecutorService wrapper that records queue depth, active tasks, and the wait and run time
+ * of every task into ExecutorMetrics. Tasks are wrapped on the way in, so any executor can
+ * be instrumented, and interrupts from Future.cancel still reach the running task.
+ *
+ * Tasks that shutdownNow discards never start, so they are taken off the queue depth then;
+ * this works for executors such as ForkJoinPool that cancel queued tasks without returning them.
+ */
+public class InstrumentedExecutorService extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final ExecutorMetrics metrics;
+
+    /** Tasks of this executor queued but not started, so shutdownNow knows how many it dropped */
+    private final AtomicLong waiting = new AtomicLong();
+
+    /**
+     * Wraps an executor
+     * @param delegate the executor running the tasks; shutting this wrapper down shuts it down
+     * @param metrics where the tasks are recorded
+     */
+    public InstrumentedExecutorService(ExecutorService delegate, ExecutorMetrics metrics) {
+        if (delegate == null || metrics == null) {
+            throw new IllegalArgumentException("Executor and metrics cannot be null");
+        }
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the metrics this executor records into
+     * @return the metrics
+     */
+    public ExecutorMetrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        waiting.incrementAndGet();
+        metrics.taskSubmitted();
+        try {
+            delegate.execute(new InstrumentedTask(command, System.nanoTime()));
+        } catch (RejectedExecutionException e) {
+            dequeue();
+            metrics.taskRejected();
+            throw e;
+        }
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+        return new FailureCountingTask<>(callable);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+        return new FailureCountingTask<>(runnable, value);
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> dropped = delegate.shutdownNow();
+        metrics.tasksDequeued(waiting.getAndSet(0));
+        return dropped;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Takes one task off the queue depth, unless shutdownNow already took it
+     */
+    private void dequeue() {
+        if (waiting.getAndUpdate(count -> count > 0 ? count - 1 : 0) > 0) {
+            metrics.tasksDequeued(1);
+        }
+    }
+
+    /**
+     * Records the wait before a task starts and the time it runs
+     */
+    private final class InstrumentedTask implements Runnable {
+        private final Runnable task;
+        private final long submittedNanos;
+
+        InstrumentedTask(Runnable task, long submittedNanos) {
+            this.task = task;
+            this.submittedNanos = submittedNanos;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            dequeue();
+            metrics.taskStarted(start - submittedNanos);
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                metrics.taskFailed();
+                throw e;
+            } finally {
+                metrics.taskFinished(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Future of a submitted task, which keeps its exception instead of throwing it
+     * and therefore counts the failure itself
+     */
+    private final class FailureCountingTask<T> extends FutureTask<T> {
+
+        FailureCountingTask(Callable<T> callable) {
+            super(callable);
+        }
+
+        FailureCountingTask(Runnable runnable, T value) {
+            super(runnable, value);
+        }
+
+        @Override
+        protected void setException(Throwable t) {
+            metrics.taskFailed();
+            super.setException(t);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.concurrency.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations with power-of-two buckets. Recording is a bit count and
+ * two LongAdder increments, cheap enough for every task; the price is that percentiles are
+ * only known to within a factor of two, which is plenty for sizing pools.
+ * Bucket 0 holds 0 ns and bucket i holds [2^(i-1), 2^i) ns.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Creates an empty histogram
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a duration
+     * @param nanos the duration in nanoseconds; negative values count as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[Math.min(BUCKETS - Long.numberOfLeadingZeros(value), BUCKETS - 1)].increment();
+        sum.add(value);
+    }
+
+    /**
+     * Takes a snapshot of the counts so far
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts[i].sum();
+        }
+        return new Snapshot(snapshot, sum.sum());
+    }
+
+    /**
+     * Immutable counts of a histogram at one point in time
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long sum;
+        private final long count;
+
+        Snapshot(long[] counts, long sum) {
+            this.counts = counts;
+            this.sum = sum;
+            long total = 0;
+            for (long bucket : counts) {
+                total += bucket;
+            }
+            this.count = total;
+        }
+
+        /**
+         * Returns the number of recorded durations
+         * @return the count
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Returns the mean duration
+         * @return the mean in nanoseconds, or 0 if empty
+         */
+        public long mean() {
+            return count == 0 ? 0 : sum / count;
+        }
+
+        /**
+         * Returns an upper bound of a percentile
+         * @param percentile between 0 and 100
+         * @return the upper end of the bucket holding the percentile in nanoseconds, or 0 if empty
+         */
+        public long percentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100");
+            }
+            long rank = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return i == 0 ? 0 : i == counts.length - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Returns the durations recorded since an earlier snapshot of the same histogram
+         * @param earlier the earlier snapshot
+         * @return a snapshot of the interval between the two
+         */
+        public Snapshot minus(Snapshot earlier) {
+            long[] interval = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                interval[i] = counts[i] - earlier.counts[i];
+            }
+            return new Snapshot(interval, sum - earlier.sum);
+        }
+    }
+}
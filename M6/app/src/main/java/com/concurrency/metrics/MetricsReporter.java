@@ -0,0 +1,100 @@
+package com.concurrency.metrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.concurrency.logging.AppLogger;
+import org.slf4j.Logger;
+
+/**
+ * Logs registered executor metrics at a fixed rate on a daemon thread. Each report shows
+ * the current queue depth and active tasks, and the counts and latency percentiles of the
+ * interval since the previous report.
+ */
+public class MetricsReporter implements AutoCloseable {
+
+    private static final Logger logger = AppLogger.getLogger(MetricsReporter.class);
+
+    private final long periodNanos;
+    private final Map<ExecutorMetrics, ExecutorMetrics.Snapshot> previous = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "metrics-reporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates a reporter
+     * @param period time between reports
+     */
+    public MetricsReporter(Duration period) {
+        if (period == null || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Report period must be positive");
+        }
+        this.periodNanos = period.toNanos();
+    }
+
+    /**
+     * Adds metrics to the report
+     * @param metrics the metrics
+     */
+    public void register(ExecutorMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics cannot be null");
+        }
+        previous.putIfAbsent(metrics, metrics.snapshot());
+    }
+
+    /**
+     * Starts reporting at the configured period
+     */
+    public void start() {
+        scheduler.scheduleAtFixedRate(this::report, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Logs one report now
+     */
+    public synchronized void report() {
+        for (Map.Entry<ExecutorMetrics, ExecutorMetrics.Snapshot> entry : previous.entrySet()) {
+            ExecutorMetrics.Snapshot current = entry.getKey().snapshot();
+            ExecutorMetrics.Snapshot last = entry.getValue();
+            LatencyHistogram.Snapshot wait = current.waitTime().minus(last.waitTime());
+            LatencyHistogram.Snapshot run = current.runTime().minus(last.runTime());
+            logger.info("{}: queue={} active={} submitted=+{} completed=+{} failed=+{} rejected=+{} "
+                            + "wait p50<={} p99<={} run p50<={} p99<={} mean={}",
+                    current.name(), current.queueDepth(), current.active(),
+                    current.submitted() - last.submitted(), current.completed() - last.completed(),
+                    current.failed() - last.failed(), current.rejected() - last.rejected(),
+                    format(wait.percentile(50)), format(wait.percentile(99)),
+                    format(run.percentile(50)), format(run.percentile(99)), format(run.mean()));
+            entry.setValue(current);
+        }
+    }
+
+    /**
+     * Stops reporting, after a final report
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        report();
+    }
+
+    private static String format(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + "ns";
+        }
+        if (nanos < 1_000_000) {
+            return nanos / 1_000 + "us";
+        }
+        if (nanos < 1_000_000_000) {
+            return nanos / 1_000_000 + "ms";
+        }
+        return nanos / 1_000_000_000 + "s";
+    }
+}
@@ -1,11 +1,24 @@
 package com.concurrency.app;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 
 import com.concurrency.cache.ThreadSafeCache;
+import com.concurrency.cache.Versioned;
 
 /**
  * Tests for ThreadSafeCache
@@ -32,4 +45,131 @@ public class CacheTest {
         cache.put("key1", null);
         assertNull(cache.get("key1"));
     }
+
+    @Test
+    void testConcurrentMergeLosesNoUpdates() throws Exception {
+        ThreadSafeCache<String, Integer> cache = new ThreadSafeCache<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    cache.merge("counter", 1, Integer::sum);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertEquals(80_000, cache.get("counter"));
+    }
+
+    @Test
+    void testComputeIfAbsentRunsOnce() throws Exception {
+        ThreadSafeCache<String, String> cache = new ThreadSafeCache<>();
+        AtomicInteger calls = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> cache.computeIfAbsent("key", k -> {
+                calls.incrementAndGet();
+                return k.toUpperCase();
+            })));
+        }
+        for (Future<String> future : futures) {
+            assertEquals("KEY", future.get());
+        }
+        executor.shutdown();
+        assertEquals(1, calls.get());
+        assertNull(cache.computeIfAbsent("absent", k -> null));
+        assertNull(cache.compute("key", (k, v) -> null));
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    void testBoundedCacheEvictsOldestWrites() {
+        ThreadSafeCache<Integer, Integer> cache = new ThreadSafeCache<>(100);
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(i, i);
+            cache.put(i, i + 1);
+        }
+        assertEquals(100, cache.size());
+        assertNull(cache.get(0));
+        assertEquals(1_000, cache.get(999));
+        assertTrue(cache.get(900) != null);
+        assertThrows(IllegalArgumentException.class, () -> new ThreadSafeCache<String, String>(0));
+    }
+
+    @Test
+    void testCompareAndSetLosesNoUpdates() throws Exception {
+        ThreadSafeCache<String, Integer> cache = new ThreadSafeCache<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    while (true) {
+                        Versioned<Integer> current = cache.getWithVersion("counter");
+                        long version = current == null ? Versioned.ABSENT : current.version();
+                        int next = current == null ? 1 : current.value() + 1;
+                        if (cache.compareAndSet("counter", version, next)) {
+                            break;
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertEquals(40_000, cache.get("counter"));
+    }
+
+    @Test
+    void testVersionsNeverRepeatAfterRemoval() {
+        ThreadSafeCache<String, String> cache = new ThreadSafeCache<>();
+        cache.put("key", "a");
+        Versioned<String> first = cache.getWithVersion("key");
+        cache.remove("key");
+        cache.put("key", "a");
+        Versioned<String> second = cache.getWithVersion("key");
+        assertNotEquals(first.version(), second.version());
+        assertFalse(cache.compareAndSet("key", first.version(), "b"));
+        assertFalse(cache.compareAndSet("key", Versioned.ABSENT, "b"));
+        assertTrue(cache.compareAndSet("key", second.version(), "b"));
+        assertTrue(cache.compareAndSet("other", Versioned.ABSENT, "c"));
+        assertNull(cache.getWithVersion("missing"));
+    }
+
+    @Test
+    void testReplaceIf() {
+        ThreadSafeCache<String, Integer> cache = new ThreadSafeCache<>();
+        assertFalse(cache.replaceIf("stock", v -> v > 0, 5));
+        cache.put("stock", 1);
+        assertTrue(cache.replaceIf("stock", v -> v > 0, 0));
+        assertFalse(cache.replaceIf("stock", v -> v > 0, -1));
+        assertEquals(0, cache.get("stock"));
+        assertThrows(IllegalArgumentException.class, () -> cache.replaceIf("stock", null, 1));
+    }
+
+    @Test
+    void testReplacedValuesBecomeUnreachable() throws Exception {
+        for (ThreadSafeCache<String, byte[]> cache : List.of(new ThreadSafeCache<String, byte[]>(),
+                new ThreadSafeCache<String, byte[]>(10))) {
+            byte[] first = new byte[8 * 1024 * 1024];
+            WeakReference<byte[]> firstRef = new WeakReference<>(first);
+            cache.put("key", first);
+            first = null;
+            cache.put("key", new byte[1]);
+
+            for (int i = 0; i < 50 && firstRef.get() != null; i++) {
+                System.gc();
+                Thread.sleep(10);
+            }
+            assertNull(firstRef.get());
+            assertEquals(1, cache.get("key").length);
+        }
+    }
 }
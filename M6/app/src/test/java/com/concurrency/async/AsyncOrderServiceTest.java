@@ -1,8 +1,14 @@
 package com.concurrency.async;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -13,9 +19,27 @@ public class AsyncOrderServiceTest {
     @Test
     @Timeout(value = 5, unit = TimeUnit.SECONDS)
     void testProcessOrder() {
-        AsyncOrderService service = new AsyncOrderService();
-        
-        // Should complete without throwing exception
-        service.processOrder();
+        try (AsyncOrderService service = new AsyncOrderService()) {
+            // Should complete without throwing exception
+            service.processOrder();
+        }
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testCloseShutsDownOwnPoolOnly() {
+        AsyncOrderService owning = new AsyncOrderService();
+        owning.close();
+        assertThrows(RejectedExecutionException.class, owning::processOrder);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            try (AsyncOrderService borrowing = new AsyncOrderService(pool)) {
+                borrowing.processOrder();
+            }
+            assertFalse(pool.isShutdown());
+        } finally {
+            pool.shutdown();
+        }
     }
 }
\ No newline at end of file
@@ -1,15 +1,42 @@
 package com.concurrency.file;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import com.concurrency.enums.FileStatus;
+import com.concurrency.exception.FileProcessingException;
 
 /**
  * Tests for ParallelFileProcessor
  */
 public class ParallelFileProcessorTest {
 
+    @TempDir
+    Path dir;
+
     @Test
     void testProcessFiles() throws Exception {
         ParallelFileProcessor processor = new ParallelFileProcessor();
@@ -27,4 +54,336 @@ public class ParallelFileProcessorTest {
         // Should handle empty list gracefully
         processor.processFiles(files);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCountsLinesOfRealFiles() throws Exception {
+        Path small = Files.writeString(dir.resolve("small.txt"), "a\nb\nc");
+        Path large = Files.writeString(dir.resolve("large.txt"), "line\n".repeat(100_000));
+        ParallelFileProcessor processor = new ParallelFileProcessor();
+
+        List<FileResult> results = processor.processFiles(
+                List.of(small.toString(), large.toString(), dir.resolve("missing.txt").toString()));
+
+        assertEquals(3, results.size());
+        assertEquals(FileStatus.COMPLETED, results.get(0).status());
+        assertEquals(3, results.get(0).records());
+        assertEquals(5, results.get(0).bytesRead());
+        assertEquals(100_000, results.get(1).records());
+        assertEquals(500_000, results.get(1).bytesRead());
+        assertEquals(FileStatus.FAILED, results.get(2).status());
+    }
+
+    @Test
+    void testChecksumMatchesWholeFile() throws Exception {
+        byte[] bytes = new byte[200_000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        Path file = Files.write(dir.resolve("data.bin"), bytes);
+        CRC32C expected = new CRC32C();
+        expected.update(bytes);
+
+        FileResult result = new FileTask(file.toString(), ContentProcessor::crc32c).call();
+
+        assertEquals(expected.getValue(), result.checksum());
+        assertEquals(bytes.length, result.bytesRead());
+    }
+
+    @Test
+    void testParsesRecordsAcrossChunkBoundaries() throws Exception {
+        List<String> written = new ArrayList<>();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            String record = "record-" + i + "-" + "x".repeat(i % 50);
+            written.add(record);
+            content.append(record).append(';');
+        }
+        Path file = Files.writeString(dir.resolve("records.txt"), content.toString());
+        List<String> parsed = new ArrayList<>();
+
+        FileResult result = new FileTask(file.toString(), () -> ContentProcessor.delimitedRecords((byte) ';',
+                record -> parsed.add(StandardCharsets.UTF_8.decode(record).toString()))).call();
+
+        assertTrue(result.bytesRead() > FileTask.BUFFER_SIZE);
+        assertEquals(20_000, result.records());
+        assertEquals(written, parsed);
+    }
+
+    @Test
+    void testUnreadableFileThrows() throws IOException {
+        Path directory = Files.createDirectory(dir.resolve("folder"));
+
+        assertThrows(FileProcessingException.class, () -> new FileTask(directory.toString()).call());
+    }
+
+    @Test
+    void testEveryStrategyProducesTheSameResults() throws Exception {
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            files.add(Files.writeString(dir.resolve("file" + i + ".txt"), "x\n".repeat(i)).toString());
+        }
+
+        for (ExecutionStrategy strategy : ExecutionStrategy.values()) {
+            List<FileResult> results = new ParallelFileProcessor(strategy).processFiles(files);
+            assertEquals(50, results.size());
+            for (int i = 0; i < 50; i++) {
+                assertEquals(i, results.get(i).records(), strategy + " file " + i);
+            }
+        }
+        assertEquals(Runtime.version().feature() >= 21, ExecutionStrategy.VIRTUAL.isSupported());
+        assertNotNull(ExecutionStrategy.VIRTUAL.newExecutor().shutdownNow());
+    }
+
+    @Test
+    void testCallbackReceivesEveryResultOnCallingThread() throws Exception {
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            files.add(Files.writeString(dir.resolve("stream" + i + ".txt"), "x\n".repeat(i)).toString());
+        }
+        Thread caller = Thread.currentThread();
+        List<FileResult> streamed = new ArrayList<>();
+
+        List<FileResult> results = new ParallelFileProcessor().processFiles(files, ContentProcessor::lineCounter,
+                result -> {
+                    assertEquals(caller, Thread.currentThread());
+                    streamed.add(result);
+                });
+
+        assertEquals(20, streamed.size());
+        assertTrue(streamed.containsAll(results));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, results.get(i).records());
+        }
+    }
+
+    @Test
+    void testCallbackFailureStopsProcessing() throws Exception {
+        Path file = Files.writeString(dir.resolve("one.txt"), "a\n");
+
+        assertThrows(IllegalStateException.class, () -> new ParallelFileProcessor().processFiles(
+                List.of(file.toString(), file.toString()), ContentProcessor::lineCounter,
+                result -> { throw new IllegalStateException("stop"); }));
+    }
+
+    @Test
+    void testLazyInputKeepsWindowBounded() throws Exception {
+        Path file = Files.writeString(dir.resolve("shared.txt"), "a\nb\n");
+        AtomicInteger pulled = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+        AtomicInteger maxOutstanding = new AtomicInteger();
+        Stream<Path> paths = Stream.generate(() -> {
+            maxOutstanding.accumulateAndGet(pulled.incrementAndGet() - finished.get(), Math::max);
+            return file;
+        }).limit(5_000);
+
+        ProcessingSummary summary = new ParallelFileProcessor(ExecutionStrategy.PLATFORM, 8)
+                .processPaths(paths, ContentProcessor::lineCounter, result -> finished.incrementAndGet());
+
+        assertEquals(5_000, summary.files());
+        assertEquals(0, summary.failed());
+        assertEquals(10_000, summary.records());
+        assertEquals(20_000, summary.bytesRead());
+        assertEquals(5_000, finished.get());
+        assertTrue(maxOutstanding.get() <= 8, "outstanding " + maxOutstanding.get());
+    }
+
+    @Test
+    void testInvalidWindowRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelFileProcessor(ExecutionStrategy.PLATFORM, 0));
+    }
+
+    @Test
+    void testSplitsLargeFileAtLineBoundaries() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 30_000; i++) {
+            content.append("y".repeat(i % 97)).append('\n');
+        }
+        content.append("last line without newline");
+        Path file = Files.writeString(dir.resolve("huge.txt"), content.toString());
+        FileResult sequential = new FileTask(file.toString()).call();
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            FileResult split = new FileTask(file.toString(), ContentProcessor::lineCounter, 1_000).call();
+            FileResult inPool = pool.submit(new FileTask(file.toString(), ContentProcessor::lineCounter, 4_096)).get();
+
+            assertEquals(30_001, sequential.records());
+            assertEquals(sequential.records(), split.records());
+            assertEquals(sequential.bytesRead(), split.bytesRead());
+            assertEquals(sequential.records(), inPool.records());
+            assertEquals(sequential.bytesRead(), inPool.bytesRead());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testFileWithoutDelimiterIsProcessedWhole() throws Exception {
+        Path file = Files.writeString(dir.resolve("single.txt"), "z".repeat(100_000));
+
+        FileResult result = new FileTask(file.toString(), ContentProcessor::lineCounter, 100).call();
+
+        assertEquals(1, result.records());
+        assertEquals(100_000, result.bytesRead());
+    }
+
+    @Test
+    void testUnreadableFileIsRetriedThenDeadLettered() throws Exception {
+        Path directory = Files.createDirectory(dir.resolve("not-a-file"));
+        Path file = Files.writeString(dir.resolve("fine.txt"), "a\n");
+        ParallelFileProcessor processor = new ParallelFileProcessor(ExecutionStrategy.PLATFORM, 4,
+                Duration.ZERO, new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5)));
+
+        List<FileResult> results = processor.processFiles(List.of(directory.toString(), file.toString()));
+
+        assertEquals(FileStatus.FAILED, results.get(0).status());
+        assertEquals(FileStatus.COMPLETED, results.get(1).status());
+        List<DeadLetter> deadLetters = processor.drainDeadLetters();
+        assertEquals(1, deadLetters.size());
+        assertEquals(directory.toString(), deadLetters.get(0).fileName());
+        assertEquals(3, deadLetters.get(0).attempts());
+        assertTrue(deadLetters.get(0).lastFailure() instanceof FileProcessingException);
+        assertTrue(processor.drainDeadLetters().isEmpty());
+        assertEquals(1, processor.statusRegistry().count(FileStatus.FAILED));
+        assertEquals(0, processor.statusRegistry().count(FileStatus.PENDING));
+    }
+
+    @Test
+    void testTransientFailureSucceedsOnRetry() throws Exception {
+        Path file = Files.writeString(dir.resolve("flaky.txt"), "a\nb\n");
+        AtomicInteger created = new AtomicInteger();
+        Supplier<ContentProcessor> flaky = () -> {
+            if (created.getAndIncrement() < 2) {
+                throw new FileProcessingException("Transient failure");
+            }
+            return ContentProcessor.lineCounter();
+        };
+        ParallelFileProcessor processor = new ParallelFileProcessor(ExecutionStrategy.PLATFORM, 4,
+                Duration.ZERO, new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5)));
+
+        List<FileResult> results = processor.processFiles(List.of(file.toString()), flaky);
+
+        assertEquals(FileStatus.COMPLETED, results.get(0).status());
+        assertEquals(2, results.get(0).records());
+        assertTrue(processor.drainDeadLetters().isEmpty());
+        assertEquals(1, processor.statusRegistry().count(FileStatus.COMPLETED));
+        assertEquals(0, processor.statusRegistry().count(FileStatus.FAILED));
+    }
+
+    @Test
+    void testHungFileTimesOutWithoutStallingBatch() throws Exception {
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            // only the first file's content makes the processor hang, whichever worker reads it
+            files.add(Files.writeString(dir.resolve("timed" + i + ".txt"), i == 0 ? "hang\n" : "x\n").toString());
+        }
+        ParallelFileProcessor processor = new ParallelFileProcessor(ExecutionStrategy.PLATFORM, 4,
+                Duration.ofMillis(200), RetryPolicy.none());
+        long start = System.nanoTime();
+
+        List<FileResult> results = processor.processFiles(files, HangingProcessor::new);
+
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        assertEquals(FileStatus.FAILED, results.get(0).status());
+        for (int i = 1; i < 5; i++) {
+            assertEquals(FileStatus.COMPLETED, results.get(i).status());
+        }
+        List<DeadLetter> deadLetters = processor.drainDeadLetters();
+        assertEquals(1, deadLetters.size());
+        assertEquals(files.get(0), deadLetters.get(0).fileName());
+        assertTrue(deadLetters.get(0).lastFailure() instanceof TimeoutException);
+    }
+
+    @Test
+    void testAsyncReadsMatchBlockingReads() throws Exception {
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            files.add(Files.writeString(dir.resolve("async" + i + ".txt"), "line\n".repeat(i * 300)).toString());
+        }
+        files.add(dir.resolve("missing.txt").toString());
+        ParallelFileProcessor processor = new ParallelFileProcessor(ExecutionStrategy.PLATFORM, 32);
+
+        List<FileResult> blocking = processor.processFiles(files, ContentProcessor::crc32c);
+        List<FileResult> async = processor.processFilesAsync(files, ContentProcessor::crc32c);
+        List<FileResult> lines = processor.processFilesAsync(files, ContentProcessor::lineCounter);
+
+        assertEquals(101, async.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(blocking.get(i).checksum(), async.get(i).checksum());
+            assertEquals(blocking.get(i).bytesRead(), async.get(i).bytesRead());
+            assertEquals(i * 300, lines.get(i).records());
+        }
+        assertEquals(FileStatus.FAILED, async.get(100).status());
+    }
+
+    @Test
+    void testAsyncUnreadableFileThrows() throws IOException {
+        Path directory = Files.createDirectory(dir.resolve("async-folder"));
+
+        assertThrows(FileProcessingException.class, () -> new ParallelFileProcessor()
+                .processFilesAsync(List.of(directory.toString()), ContentProcessor::lineCounter));
+    }
+
+    @Test
+    void testAsyncFailureReleasesReadsInProgress() throws IOException {
+        List<String> files = new ArrayList<>();
+        files.add(Files.writeString(dir.resolve("async-bad.txt"), "h\n").toString());
+        for (int i = 0; i < 16; i++) {
+            files.add(Files.writeString(dir.resolve("async-slow" + i + ".txt"), "x\n".repeat(100_000)).toString());
+        }
+        int buffersInUse = FileTask.BUFFERS.inUse();
+        // The first file fails at once while the others are still being read, slowly
+        Supplier<ContentProcessor> failOrSlow = () -> new ContentProcessor() {
+            @Override
+            public void process(ByteBuffer chunk) {
+                if (chunk.get(chunk.position()) == 'h') {
+                    throw new FileProcessingException("Bad content");
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(2));
+            }
+
+            @Override
+            public long records() {
+                return 0;
+            }
+        };
+
+        assertThrows(FileProcessingException.class, () -> new ParallelFileProcessor(ExecutionStrategy.PLATFORM, 8)
+                .processFilesAsync(files, failOrSlow));
+        assertEquals(buffersInUse, FileTask.BUFFERS.inUse());
+    }
+
+    /** Counts lines, but blocks until interrupted on a chunk containing 'h' */
+    private static final class HangingProcessor implements ContentProcessor {
+        private final ContentProcessor lines = ContentProcessor.lineCounter();
+
+        @Override
+        public void process(ByteBuffer chunk) {
+            for (int i = chunk.position(); i < chunk.limit(); i++) {
+                if (chunk.get(i) == 'h') {
+                    hang();
+                }
+            }
+            lines.process(chunk);
+        }
+
+        @Override
+        public void finish() {
+            lines.finish();
+        }
+
+        @Override
+        public long records() {
+            return lines.records();
+        }
+
+        private static void hang() {
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FileProcessingException("Interrupted");
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.concurrency.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.concurrency.enums.FileStatus;
+
+/**
+ * Tests for TaskStatusRegistry
+ */
+public class TaskStatusRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testTransitionsFollowLifecycle() {
+        TaskStatusRegistry registry = new TaskStatusRegistry();
+        TaskStatusRegistry.Task first = registry.register("a.txt");
+        TaskStatusRegistry.Task second = registry.register("b.txt");
+        assertEquals(2, registry.count(FileStatus.PENDING));
+
+        assertTrue(registry.start(first));
+        assertFalse(registry.start(first));
+        assertEquals(1, registry.count(FileStatus.PROCESSING));
+
+        assertTrue(registry.finish(first, new FileResult("a.txt", FileStatus.COMPLETED, 10, 1, 0, 5)));
+        assertTrue(registry.fail(second));
+        assertFalse(registry.start(second));
+        assertFalse(registry.fail(first));
+
+        assertEquals(0, registry.count(FileStatus.PENDING));
+        assertEquals(0, registry.count(FileStatus.PROCESSING));
+        assertEquals(1, registry.count(FileStatus.COMPLETED));
+        assertEquals(1, registry.count(FileStatus.FAILED));
+    }
+
+    @Test
+    void testStartTimeSetOnlyWhenStarted() {
+        TaskStatusRegistry registry = new TaskStatusRegistry();
+        TaskStatusRegistry.Task failed = registry.register("failed.txt");
+        TaskStatusRegistry.Task started = registry.register("started.txt");
+        assertEquals(TaskStatusRegistry.NOT_STARTED, started.startedNanos());
+
+        registry.fail(failed);
+        assertFalse(registry.start(failed));
+        assertEquals(TaskStatusRegistry.NOT_STARTED, failed.startedNanos());
+
+        assertTrue(registry.start(started));
+        long startedNanos = started.startedNanos();
+        assertTrue(startedNanos != TaskStatusRegistry.NOT_STARTED);
+        assertFalse(registry.start(started));
+        assertEquals(startedNanos, started.startedNanos());
+    }
+
+    @Test
+    void testFailedTaskCannotComplete() {
+        TaskStatusRegistry registry = new TaskStatusRegistry();
+        TaskStatusRegistry.Task id = registry.register("slow.txt");
+        registry.start(id);
+        registry.fail(id);
+
+        assertFalse(registry.finish(id, new FileResult("slow.txt", FileStatus.COMPLETED, 1, 1, 0, 1)));
+        assertEquals(0, registry.count(FileStatus.COMPLETED));
+        assertEquals(1, registry.count(FileStatus.FAILED));
+    }
+
+    @Test
+    void testSnapshotShowsOldestProcessingAndRecentResults() throws Exception {
+        TaskStatusRegistry registry = new TaskStatusRegistry(3);
+        assertNull(registry.snapshot().oldestProcessing());
+        TaskStatusRegistry.Task oldest = registry.register("oldest.txt");
+        registry.start(oldest);
+        Thread.sleep(5);
+        registry.start(registry.register("newer.txt"));
+
+        for (int i = 0; i < 5; i++) {
+            TaskStatusRegistry.Task id = registry.register("done" + i);
+            registry.start(id);
+            registry.finish(id, new FileResult("done" + i, FileStatus.COMPLETED, i, i, 0, i));
+        }
+        TaskStatusRegistry.Snapshot snapshot = registry.snapshot();
+
+        assertEquals("oldest.txt", snapshot.oldestProcessing().fileName());
+        assertTrue(snapshot.oldestProcessing().runningNanos() >= 5_000_000);
+        assertEquals(2, snapshot.counts().get(FileStatus.PROCESSING));
+        assertEquals(5, snapshot.counts().get(FileStatus.COMPLETED));
+        List<String> recent = new ArrayList<>();
+        snapshot.recentResults().forEach(result -> recent.add(result.fileName()));
+        assertEquals(List.of("done2", "done3", "done4"), recent);
+    }
+
+    @Test
+    void testProcessorReportsEveryTask() throws Exception {
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            files.add(Files.writeString(dir.resolve("file" + i + ".txt"), "x\n").toString());
+        }
+        files.add(dir.resolve("missing.txt").toString());
+        ParallelFileProcessor processor = new ParallelFileProcessor();
+
+        processor.processFiles(files);
+        TaskStatusRegistry registry = processor.statusRegistry();
+
+        assertEquals(0, registry.count(FileStatus.PENDING));
+        assertEquals(0, registry.count(FileStatus.PROCESSING));
+        assertEquals(10, registry.count(FileStatus.COMPLETED));
+        assertEquals(1, registry.count(FileStatus.FAILED));
+        assertEquals(11, registry.snapshot().recentResults().size());
+    }
+}
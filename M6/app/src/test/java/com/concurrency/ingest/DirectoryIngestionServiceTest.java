@@ -0,0 +1,224 @@
+package com.concurrency.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.concurrency.enums.FileStatus;
+import com.concurrency.exception.FileProcessingException;
+import com.concurrency.file.ContentProcessor;
+import com.concurrency.file.ExecutionStrategy;
+import com.concurrency.file.FileResult;
+import com.concurrency.file.ParallelFileProcessor;
+import com.concurrency.file.RetryPolicy;
+
+/**
+ * Tests for DirectoryIngestionService and ProcessedFileLedger
+ */
+public class DirectoryIngestionServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testProcessesExistingAndNewFilesOnceAcrossRestarts() throws Exception {
+        Path inbox = Files.createDirectory(dir.resolve("inbox"));
+        Path ledgerFile = dir.resolve("ledger");
+        Path existing = Files.writeString(inbox.resolve("existing.txt"), "a\nb\n");
+        BlockingQueue<FileResult> results = new LinkedBlockingQueue<>();
+
+        try (DirectoryIngestionService service = newService(inbox, ledgerFile, results)) {
+            service.start();
+            FileResult first = results.poll(10, TimeUnit.SECONDS);
+            assertEquals(existing.toString(), first.fileName());
+            assertEquals(2, first.records());
+
+            Path landed = Files.writeString(inbox.resolve("landed.txt"), "x\ny\nz\n");
+            FileResult second = results.poll(10, TimeUnit.SECONDS);
+            assertEquals(landed.toString(), second.fileName());
+            assertEquals(FileStatus.COMPLETED, second.status());
+            assertEquals(3, second.records());
+        }
+
+        try (DirectoryIngestionService restarted = newService(inbox, ledgerFile, results)) {
+            restarted.start();
+            Path later = Files.writeString(inbox.resolve("later.txt"), "1\n");
+            FileResult third = results.poll(10, TimeUnit.SECONDS);
+            assertEquals(later.toString(), third.fileName());
+            assertEquals(3, restarted.ledger().size());
+        }
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    void testLedgerDropsTornEntry() throws Exception {
+        Path ledgerFile = dir.resolve("ledger");
+        Path done = dir.resolve("done.txt").toAbsolutePath();
+        Files.writeString(ledgerFile, done + "\n" + dir.resolve("torn"), StandardCharsets.UTF_8);
+
+        try (ProcessedFileLedger ledger = new ProcessedFileLedger(ledgerFile)) {
+            assertTrue(ledger.contains(done));
+            assertFalse(ledger.contains(dir.resolve("torn")));
+            assertTrue(ledger.record(dir.resolve("next.txt")));
+            assertFalse(ledger.record(dir.resolve("next.txt")));
+        }
+
+        List<String> lines = Files.readAllLines(ledgerFile);
+        assertEquals(List.of(done.toString(), dir.resolve("next.txt").toAbsolutePath().toString()), lines);
+    }
+
+    @Test
+    void testLedgerDropsTornMultiByteCharacter() throws Exception {
+        Path ledgerFile = dir.resolve("ledger");
+        Path done = dir.resolve("done.txt").toAbsolutePath();
+        byte[] entry = (done + "\n" + dir + "/caf\u00e9").getBytes(StandardCharsets.UTF_8);
+        // drop the last byte of the two-byte character
+        Files.write(ledgerFile, Arrays.copyOf(entry, entry.length - 1));
+
+        try (ProcessedFileLedger ledger = new ProcessedFileLedger(ledgerFile)) {
+            assertTrue(ledger.contains(done));
+            assertEquals(1, ledger.size());
+        }
+
+        assertEquals(List.of(done.toString()), Files.readAllLines(ledgerFile));
+    }
+
+    @Test
+    void testFailedFileIsAttemptedAgainAfterChange() throws Exception {
+        Path inbox = Files.createDirectory(dir.resolve("inbox"));
+        Path file = Files.writeString(inbox.resolve("file.txt"), "!\n");
+        BlockingQueue<FileResult> results = new LinkedBlockingQueue<>();
+
+        try (DirectoryIngestionService service = newService(inbox, dir.resolve("ledger"), results,
+                RejectingProcessor::new)) {
+            service.start();
+            FileResult failed = results.poll(10, TimeUnit.SECONDS);
+            assertEquals(file.toString(), failed.fileName());
+            assertEquals(FileStatus.FAILED, failed.status());
+            assertEquals(0, service.ledger().size());
+
+            Files.writeString(file, "fixed\n");
+            FileResult retried = results.poll(10, TimeUnit.SECONDS);
+            assertEquals(file.toString(), retried.fileName());
+            assertEquals(FileStatus.COMPLETED, retried.status());
+            assertEquals(1, retried.records());
+            assertTrue(service.ledger().contains(file));
+        }
+    }
+
+    @Test
+    void testFileTakenByAbortedRunIsAttemptedAgain() throws Exception {
+        Path inbox = Files.createDirectory(dir.resolve("inbox"));
+        Path one = Files.writeString(inbox.resolve("one.txt"), "!\n");
+        Path two = Files.writeString(inbox.resolve("two.txt"), "!\n");
+        BlockingQueue<FileResult> results = new LinkedBlockingQueue<>();
+        // Only the first processor created rejects; the first attempt fails and backs off; meanwhile the run takes the other file off the
+        // queue without starting it, and the run aborts on the retried file's result
+        AtomicBoolean failedOnce = new AtomicBoolean();
+        Supplier<ContentProcessor> failsOnce = () -> failedOnce.compareAndSet(false, true)
+                ? new RejectingProcessor() : ContentProcessor.lineCounter();
+        AtomicReference<String> aborted = new AtomicReference<>();
+        Consumer<FileResult> abortsOnce = result -> {
+            if (aborted.compareAndSet(null, result.fileName())) {
+                throw new IllegalStateException("Callback failure");
+            }
+            results.add(result);
+        };
+        ParallelFileProcessor processor = new ParallelFileProcessor(ExecutionStrategy.PLATFORM, 1, Duration.ZERO,
+                new RetryPolicy(2, Duration.ofMillis(200), Duration.ofMillis(200)));
+
+        try (DirectoryIngestionService service = new DirectoryIngestionService(inbox, dir.resolve("ledger"),
+                processor, failsOnce, abortsOnce, Duration.ofMillis(50))) {
+            service.start();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (aborted.get() == null && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            Path other = one.toString().equals(aborted.get()) ? two : one;
+
+            // Changes made before the aborted run has released the file are ignored, so keep changing it
+            FileResult retried = null;
+            while (retried == null && System.nanoTime() < deadline + TimeUnit.SECONDS.toNanos(10)) {
+                Files.writeString(other, "changed\n");
+                retried = results.poll(500, TimeUnit.MILLISECONDS);
+            }
+            assertEquals(other.toString(), retried.fileName());
+            assertEquals(FileStatus.COMPLETED, retried.status());
+        }
+    }
+
+    @Test
+    void testCompletedNameIsSkippedWhenWrittenAgain() throws Exception {
+        Path inbox = Files.createDirectory(dir.resolve("inbox"));
+        BlockingQueue<FileResult> results = new LinkedBlockingQueue<>();
+
+        try (DirectoryIngestionService service = newService(inbox, dir.resolve("ledger"), results)) {
+            service.start();
+            Path file = Files.writeString(inbox.resolve("file.txt"), "1\n");
+            assertEquals(file.toString(), results.poll(10, TimeUnit.SECONDS).fileName());
+
+            // Same name, new content: the ledger keys on the path, so this is not processed
+            Files.delete(file);
+            Files.writeString(file, "1\n2\n");
+            Path other = Files.writeString(inbox.resolve("other.txt"), "x\n");
+            assertEquals(other.toString(), results.poll(10, TimeUnit.SECONDS).fileName());
+            assertNull(results.poll(500, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private static DirectoryIngestionService newService(Path inbox, Path ledgerFile,
+                                                        BlockingQueue<FileResult> results) throws Exception {
+        return newService(inbox, ledgerFile, results, ContentProcessor::lineCounter);
+    }
+
+    private static DirectoryIngestionService newService(Path inbox, Path ledgerFile, BlockingQueue<FileResult> results,
+                                                        Supplier<? extends ContentProcessor> processorFactory)
+            throws Exception {
+        return new DirectoryIngestionService(inbox, ledgerFile, new ParallelFileProcessor(),
+                processorFactory, results::add, Duration.ofMillis(50));
+    }
+
+    /** Counts lines, but fails on a chunk containing '!' */
+    private static final class RejectingProcessor implements ContentProcessor {
+        private final ContentProcessor lines = ContentProcessor.lineCounter();
+
+        @Override
+        public void process(ByteBuffer chunk) {
+            for (int i = chunk.position(); i < chunk.limit(); i++) {
+                if (chunk.get(i) == '!') {
+                    throw new FileProcessingException("Rejected content");
+                }
+            }
+            lines.process(chunk);
+        }
+
+        @Override
+        public void finish() {
+            lines.finish();
+        }
+
+        @Override
+        public long records() {
+            return lines.records();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.concurrency.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.concurrency.file.ParallelFileProcessor;
+
+/**
+ * Tests for InstrumentedExecutorService
+ */
+public class InstrumentedExecutorServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100);
+        }
+        histogram.record(1_000_000);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.count());
+        assertEquals(127, snapshot.percentile(50));
+        assertEquals(127, snapshot.percentile(99));
+        assertEquals((1L << 20) - 1, snapshot.percentile(100));
+        assertEquals((99 * 100 + 1_000_000) / 100, snapshot.mean());
+
+        histogram.record(0);
+        LatencyHistogram.Snapshot interval = histogram.snapshot().minus(snapshot);
+        assertEquals(1, interval.count());
+        assertEquals(0, interval.percentile(100));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.percentile(101));
+    }
+
+    @Test
+    void testQueueDepthAndActiveTasks() throws Exception {
+        ExecutorMetrics metrics = new ExecutorMetrics("test");
+        ExecutorService executor = new InstrumentedExecutorService(Executors.newSingleThreadExecutor(), metrics);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> {
+                running.countDown();
+                release.await();
+                return null;
+            }));
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> { }));
+            }
+            running.await();
+
+            ExecutorMetrics.Snapshot busy = metrics.snapshot();
+            assertEquals(5, busy.submitted());
+            assertEquals(4, busy.queueDepth());
+            assertEquals(1, busy.active());
+
+            release.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        ExecutorMetrics.Snapshot done = metrics.snapshot();
+        assertEquals(5, done.completed());
+        assertEquals(0, done.queueDepth());
+        assertEquals(0, done.active());
+        assertEquals(5, done.waitTime().count());
+        assertEquals(5, done.runTime().count());
+    }
+
+    @Test
+    void testFailuresAndDroppedTasks() throws Exception {
+        ExecutorMetrics metrics = new ExecutorMetrics("test");
+        ExecutorService executor = new InstrumentedExecutorService(Executors.newSingleThreadExecutor(), metrics);
+        CountDownLatch running = new CountDownLatch(1);
+
+        Future<?> failing = executor.submit(() -> {
+            throw new IllegalStateException("boom");
+        });
+        assertThrows(ExecutionException.class, failing::get);
+        executor.submit(() -> {
+            running.countDown();
+            Thread.sleep(10_000);
+            return null;
+        });
+        executor.submit(() -> { });
+        executor.submit(() -> { });
+        running.await();
+
+        assertEquals(2, executor.shutdownNow().size());
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        ExecutorMetrics.Snapshot snapshot = metrics.snapshot();
+        // The interrupted sleep fails too
+        assertEquals(2, snapshot.failed());
+        assertEquals(0, snapshot.queueDepth());
+        assertEquals(0, snapshot.active());
+        assertEquals(2, snapshot.completed());
+    }
+
+    @Test
+    void testProcessorRecordsItsTasks() throws Exception {
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Path file = dir.resolve("file" + i + ".txt");
+            Files.writeString(file, "line\n");
+            files.add(file.toString());
+        }
+        ParallelFileProcessor processor = new ParallelFileProcessor();
+        processor.processFiles(files);
+
+        ExecutorMetrics.Snapshot snapshot = processor.executorMetrics().snapshot();
+        assertEquals(6, snapshot.submitted());
+        assertEquals(6, snapshot.completed());
+        assertEquals(0, snapshot.queueDepth());
+        assertEquals(6, snapshot.runTime().count());
+
+        try (MetricsReporter reporter = new MetricsReporter(Duration.ofMinutes(1))) {
+            reporter.register(processor.executorMetrics());
+            reporter.report();
+        }
+    }
+}